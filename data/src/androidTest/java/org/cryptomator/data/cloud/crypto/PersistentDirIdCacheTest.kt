@@ -0,0 +1,157 @@
+package org.cryptomator.data.cloud.crypto
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.cryptolib.api.CryptorProvider
+import org.cryptomator.cryptolib.api.Masterkey
+import org.cryptomator.data.cloud.webdav.WebDavFile
+import org.cryptomator.data.cloud.webdav.WebDavFolder
+import org.cryptomator.data.db.Database
+import org.cryptomator.data.db.InMemoryDatabase
+import org.cryptomator.data.db.entities.DirIdCacheEntity
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.security.SecureRandom
+import java.util.Date
+import java.util.concurrent.Executor
+
+@RunWith(AndroidJUnit4::class)
+@SmallTest
+class PersistentDirIdCacheTest {
+
+	private val cryptor: Cryptor = CryptorProvider.forScheme(CryptorProvider.Scheme.SIV_GCM).provide(Masterkey.generate(SecureRandom()), SecureRandom())
+	private val pendingUpdates = ArrayList<Runnable>()
+	private val root = RootCryptoFolder(CryptoCloud(null))
+	private val dir = WebDavFolder(null, "d", "/d")
+
+	private lateinit var database: Database
+	private lateinit var inTest: PersistentDirIdCache
+
+	@Before
+	fun setup() {
+		database = InMemoryDatabase.create()
+		inTest = PersistentDirIdCache(database, VAULT_ID, { cryptor }, 3, Executor { pendingUpdates.add(it) })
+	}
+
+	@Test
+	fun testStoredDirIdIsValidatedByModificationDateOfDirFile() {
+		val folder = folder(root, "a", Date(1000))
+
+		inTest.put(folder, "dir-a")
+		applyUpdates()
+
+		MatcherAssert.assertThat(inTest.get(folder)?.id, CoreMatchers.`is`("dir-a"))
+		MatcherAssert.assertThat(inTest.get(folder)?.validated, CoreMatchers.`is`(true))
+	}
+
+	@Test
+	fun testDirIdIsNotValidatedWithoutModificationDateOfDirFile() {
+		inTest.put(folder(root, "a", Date(1000)), "dir-a")
+		applyUpdates()
+
+		val persisted = inTest.get(folder(root, "a", null))
+
+		MatcherAssert.assertThat(persisted?.id, CoreMatchers.`is`("dir-a"))
+		MatcherAssert.assertThat(persisted?.validated, CoreMatchers.`is`(false))
+	}
+
+	@Test
+	fun testDirIdIsDroppedIfDirFileWasModified() {
+		val folder = folder(root, "a", Date(1000))
+		inTest.put(folder, "dir-a")
+		applyUpdates()
+
+		MatcherAssert.assertThat(inTest.get(folder(root, "a", Date(2000))), CoreMatchers.nullValue())
+		applyUpdates()
+
+		MatcherAssert.assertThat(inTest.get(folder), CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testDirIdIsNotReadableWithAnotherMasterkey() {
+		val folder = folder(root, "a", Date(1000))
+		inTest.put(folder, "dir-a")
+		applyUpdates()
+
+		val otherCryptor = CryptorProvider.forScheme(CryptorProvider.Scheme.SIV_GCM).provide(Masterkey.generate(SecureRandom()), SecureRandom())
+		val otherInTest = PersistentDirIdCache(database, VAULT_ID, { otherCryptor }, 3, Executor { it.run() })
+
+		MatcherAssert.assertThat(otherInTest.get(folder), CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testEvictRemovesFolderAndSubfolders() {
+		val folderA = folder(root, "a", Date(1000))
+		val folderAB = folder(folderA, "b", Date(1000))
+		val folderC = folder(root, "c", Date(1000))
+		inTest.put(folderA, "dir-a")
+		inTest.put(folderAB, "dir-ab")
+		inTest.put(folderC, "dir-c")
+		applyUpdates()
+
+		inTest.evict(folderA)
+
+		MatcherAssert.assertThat(inTest.get(folderA), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.get(folderAB), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.get(folderC)?.id, CoreMatchers.`is`("dir-c"))
+	}
+
+	@Test
+	fun testStoreMadeBeforeEvictionIsNotApplied() {
+		val folder = folder(root, "a", Date(1000))
+
+		inTest.put(folder, "dir-a")
+		inTest.evict(folder)
+		applyUpdates()
+
+		MatcherAssert.assertThat(inTest.get(folder), CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testLeastRecentlyUsedEntriesAreEvictedWhenFull() {
+		val folderA = folder(root, "a", Date(1000))
+		val folderB = folder(root, "b", Date(1000))
+		val folderC = folder(root, "c", Date(1000))
+		val folderD = folder(root, "d", Date(1000))
+		inTest.put(folderA, "dir-a")
+		inTest.put(folderB, "dir-b")
+		inTest.put(folderC, "dir-c")
+		applyUpdates()
+		lastUsed(folderA, 3)
+		lastUsed(folderB, 1)
+		lastUsed(folderC, 2)
+
+		inTest.put(folderD, "dir-d")
+		applyUpdates()
+
+		MatcherAssert.assertThat(inTest.get(folderA)?.id, CoreMatchers.`is`("dir-a"))
+		MatcherAssert.assertThat(inTest.get(folderB), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.get(folderC)?.id, CoreMatchers.`is`("dir-c"))
+		MatcherAssert.assertThat(inTest.get(folderD)?.id, CoreMatchers.`is`("dir-d"))
+	}
+
+	private fun folder(parent: CryptoFolder, name: String, dirFileModified: Date?): CryptoFolder {
+		val path = parent.path + "/" + name
+		return CryptoFolder(parent, name, path, WebDavFile(dir, "dir.c9r", "/d" + path + "/dir.c9r", null, dirFileModified))
+	}
+
+	private fun lastUsed(folder: CryptoFolder, lastUsed: Long) {
+		val entity = database.loadAll(DirIdCacheEntity::class.java).single { it.pathHash == cryptor.fileNameCryptor().hashDirectoryId("dirIdCache:" + folder.path) }
+		entity.lastUsed = lastUsed
+		database.store(entity)
+	}
+
+	private fun applyUpdates() {
+		pendingUpdates.forEach { it.run() }
+		pendingUpdates.clear()
+	}
+
+	companion object {
+
+		private const val VAULT_ID = 1L
+	}
+}
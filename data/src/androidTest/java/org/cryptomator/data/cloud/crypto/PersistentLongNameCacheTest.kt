@@ -0,0 +1,99 @@
+package org.cryptomator.data.cloud.crypto
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import org.cryptomator.data.db.Database
+import org.cryptomator.data.db.InMemoryDatabase
+import org.cryptomator.data.db.entities.LongNameCacheEntity
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+@SmallTest
+class PersistentLongNameCacheTest {
+
+	private lateinit var database: Database
+	private lateinit var inTest: PersistentLongNameCache
+
+	@Before
+	fun setup() {
+		database = InMemoryDatabase.create()
+		inTest = PersistentLongNameCache(database, VAULT_ID)
+	}
+
+	@Test
+	fun testPersistedLongNamesAreReturnedByShortName() {
+		inTest.putAll(longNames(0 until 3))
+
+		MatcherAssert.assertThat(inTest.getAll(shortNames(0 until 4)), CoreMatchers.`is`(longNames(0 until 3)))
+	}
+
+	@Test
+	fun testLongNamesAreReadAndWrittenInBatchesOfAnyNumberOfNames() {
+		// more names than host parameters SQLite allows per statement
+		val longNames = longNames(0 until 1500)
+
+		inTest.putAll(longNames)
+
+		MatcherAssert.assertThat(database.loadAll(LongNameCacheEntity::class.java).size, CoreMatchers.`is`(1500))
+		MatcherAssert.assertThat(inTest.getAll(longNames.keys), CoreMatchers.`is`(longNames))
+	}
+
+	@Test
+	fun testPersistedLongNamesAreNotDuplicated() {
+		inTest.putAll(longNames(0 until 2))
+
+		inTest.putAll(longNames(0 until 3))
+
+		MatcherAssert.assertThat(database.loadAll(LongNameCacheEntity::class.java).size, CoreMatchers.`is`(3))
+	}
+
+	@Test
+	fun testLongNameWhichDoesNotMatchItsShortNameIsDropped() {
+		val shortName = PersistentLongNameCache.shortName(longName(0))
+		database.create(LongNameCacheEntity(null, VAULT_ID, shortName, longName(1)))
+
+		MatcherAssert.assertThat(inTest.getAll(listOf(shortName)), CoreMatchers.`is`(emptyMap<String, String>()))
+		MatcherAssert.assertThat(database.loadAll(LongNameCacheEntity::class.java), CoreMatchers.`is`(emptyList<LongNameCacheEntity>()))
+	}
+
+	@Test
+	fun testLongNamesOfOtherVaultsAreNotReturned() {
+		PersistentLongNameCache(database, OTHER_VAULT_ID).putAll(longNames(0 until 1))
+
+		MatcherAssert.assertThat(inTest.getAll(shortNames(0 until 1)), CoreMatchers.`is`(emptyMap<String, String>()))
+	}
+
+	@Test
+	fun testLongNamesOfVaultAreClearedWhenFull() {
+		inTest = PersistentLongNameCache(database, VAULT_ID, 4)
+		PersistentLongNameCache(database, OTHER_VAULT_ID, 4).putAll(longNames(0 until 1))
+		inTest.putAll(longNames(0 until 3))
+
+		inTest.putAll(longNames(3 until 5))
+
+		MatcherAssert.assertThat(inTest.getAll(shortNames(0 until 5)), CoreMatchers.`is`(longNames(3 until 5)))
+		MatcherAssert.assertThat(PersistentLongNameCache(database, OTHER_VAULT_ID).getAll(shortNames(0 until 1)), CoreMatchers.`is`(longNames(0 until 1)))
+	}
+
+	private fun longName(index: Int): String {
+		return "longName$index.c9r"
+	}
+
+	private fun longNames(indices: IntRange): Map<String, String> {
+		return indices.associate { PersistentLongNameCache.shortName(longName(it)) to longName(it) }
+	}
+
+	private fun shortNames(indices: IntRange): List<String> {
+		return indices.map { PersistentLongNameCache.shortName(longName(it)) }
+	}
+
+	companion object {
+
+		private const val VAULT_ID = 1L
+		private const val OTHER_VAULT_ID = 2L
+	}
+}
@@ -0,0 +1,139 @@
+package org.cryptomator.data.cloud.crypto
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.cryptolib.api.CryptorProvider
+import org.cryptomator.cryptolib.api.Masterkey
+import org.cryptomator.data.cloud.crypto.VaultIndex.IndexedNode
+import org.cryptomator.data.db.InMemoryDatabase
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.security.SecureRandom
+import java.util.Date
+import java.util.concurrent.Executor
+
+@RunWith(AndroidJUnit4::class)
+@SmallTest
+class VaultIndexTest {
+
+	private val cryptor: Cryptor = CryptorProvider.forScheme(CryptorProvider.Scheme.SIV_GCM).provide(Masterkey.generate(SecureRandom()), SecureRandom())
+	private val root = RootCryptoFolder(CryptoCloud(null))
+	private val folderA = CryptoFolder(root, "a", "/a", null)
+
+	private lateinit var inTest: VaultIndex
+
+	@Before
+	fun setup() {
+		inTest = VaultIndex(InMemoryDatabase.create(), VAULT_ID, { cryptor }, 100, Executor { it.run() })
+	}
+
+	@Test
+	fun testListedContentsAreIndexed() {
+		val modified = Date(1000)
+
+		inTest.listed(root, listOf(folder("/a"), file("/b", 10L, modified)))
+
+		val indexed = inTest.list(root)!!.associateBy { it.path }
+		MatcherAssert.assertThat(indexed.keys, CoreMatchers.`is`(setOf("/a", "/b")))
+		MatcherAssert.assertThat(indexed.getValue("/a").folder, CoreMatchers.`is`(true))
+		MatcherAssert.assertThat(indexed.getValue("/b").size, CoreMatchers.`is`(10L))
+		MatcherAssert.assertThat(indexed.getValue("/b").modified, CoreMatchers.`is`(modified))
+		MatcherAssert.assertThat(indexed.getValue("/b").ciphertextPath, CoreMatchers.`is`("c/b"))
+	}
+
+	@Test
+	fun testUnlistedFolderIsNotIndexed() {
+		inTest.listed(root, listOf(folder("/a")))
+
+		MatcherAssert.assertThat(inTest.list(folderA), CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testListingReplacesChildrenAndDropsSubtreesOfVanishedNodes() {
+		inTest.listed(root, listOf(folder("/a"), file("/b")))
+		inTest.listed(folderA, listOf(file("/a/x")))
+
+		inTest.listed(root, listOf(file("/b"), file("/c")))
+
+		MatcherAssert.assertThat(paths(inTest.list(root)), CoreMatchers.`is`(setOf("/b", "/c")))
+		MatcherAssert.assertThat(inTest.list(folderA), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(paths(inTest.all()), CoreMatchers.`is`(setOf("/b", "/c")))
+	}
+
+	@Test
+	fun testListedFolderReplacedByFileDropsItsContents() {
+		inTest.listed(root, listOf(folder("/a")))
+		inTest.listed(folderA, listOf(file("/a/x")))
+
+		inTest.listed(root, listOf(file("/a")))
+
+		MatcherAssert.assertThat(inTest.list(root)!!.single().folder, CoreMatchers.`is`(false))
+		MatcherAssert.assertThat(inTest.list(folderA), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(paths(inTest.all()), CoreMatchers.`is`(setOf("/a")))
+	}
+
+	@Test
+	fun testRelistingFolderKeepsContentsOfListedSubfolder() {
+		inTest.listed(root, listOf(folder("/a")))
+		inTest.listed(folderA, listOf(file("/a/x")))
+
+		inTest.listed(root, listOf(folder("/a"), file("/b")))
+
+		MatcherAssert.assertThat(paths(inTest.list(folderA)), CoreMatchers.`is`(setOf("/a/x")))
+	}
+
+	@Test
+	fun testRemovedFolderDropsSubtree() {
+		inTest.listed(root, listOf(folder("/a"), file("/b")))
+		inTest.listed(folderA, listOf(file("/a/x")))
+
+		inTest.removed(folderA)
+
+		MatcherAssert.assertThat(paths(inTest.list(root)), CoreMatchers.`is`(setOf("/b")))
+		MatcherAssert.assertThat(inTest.list(folderA), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(paths(inTest.all()), CoreMatchers.`is`(setOf("/b")))
+	}
+
+	@Test
+	fun testAddedNodeIsIndexed() {
+		inTest.listed(root, listOf(file("/b")))
+
+		inTest.added(file("/c"))
+
+		MatcherAssert.assertThat(paths(inTest.list(root)), CoreMatchers.`is`(setOf("/b", "/c")))
+	}
+
+	@Test
+	fun testContentsOfFoldersIndexedFirstAreDroppedWhenFull() {
+		inTest = VaultIndex(InMemoryDatabase.create(), VAULT_ID, { cryptor }, 4, Executor { it.run() })
+		inTest.listed(root, listOf(folder("/a"), file("/f")))
+		inTest.listed(folderA, listOf(file("/a/x")))
+
+		inTest.listed(folderA, listOf(file("/a/x"), file("/a/y")))
+
+		MatcherAssert.assertThat(inTest.list(root), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(paths(inTest.list(folderA)), CoreMatchers.`is`(setOf("/a/x", "/a/y")))
+		MatcherAssert.assertThat(paths(inTest.all()), CoreMatchers.`is`(setOf("/a/x", "/a/y")))
+	}
+
+	private fun folder(path: String): IndexedNode {
+		return IndexedNode(path, true, null, null, "c" + path + "/dir.c9r")
+	}
+
+	private fun file(path: String, size: Long? = null, modified: Date? = null): IndexedNode {
+		return IndexedNode(path, false, size, modified, "c$path")
+	}
+
+	private fun paths(nodes: List<IndexedNode>?): Set<String>? {
+		return nodes?.map { it.path }?.toSet()
+	}
+
+	companion object {
+
+		private const val VAULT_ID = 1L
+	}
+}
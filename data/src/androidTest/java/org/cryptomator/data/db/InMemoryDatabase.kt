@@ -0,0 +1,17 @@
+package org.cryptomator.data.db
+
+import android.database.sqlite.SQLiteDatabase
+import org.cryptomator.data.db.entities.DaoMaster
+import org.greenrobot.greendao.database.StandardDatabase
+
+object InMemoryDatabase {
+
+	/**
+	 * @return a [Database] with all tables created, which is discarded as soon as it is garbage collected
+	 */
+	fun create(): Database {
+		val db = StandardDatabase(SQLiteDatabase.create(null))
+		DaoMaster.createAllTables(db, false)
+		return Database(db)
+	}
+}
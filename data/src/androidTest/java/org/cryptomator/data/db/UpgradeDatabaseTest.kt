@@ -8,8 +8,11 @@ import androidx.test.platform.app.InstrumentationRegistry
 import com.google.common.base.Optional
 import org.cryptomator.data.BuildConfig
 import org.cryptomator.data.db.entities.CloudEntityDao
+import org.cryptomator.data.db.entities.DirIdCacheEntityDao
+import org.cryptomator.data.db.entities.LongNameCacheEntityDao
 import org.cryptomator.data.db.entities.UpdateCheckEntityDao
 import org.cryptomator.data.db.entities.VaultEntityDao
+import org.cryptomator.data.db.entities.VaultIndexEntityDao
 import org.cryptomator.domain.CloudType
 import org.cryptomator.util.FlavorConfig
 import org.cryptomator.util.SharedPreferencesHandler
@@ -61,10 +64,16 @@ class UpgradeDatabaseTest {
 		Upgrade11To12(sharedPreferencesHandler).applyTo(db, 11)
 		Upgrade12To13(context).applyTo(db, 12)
 		Upgrade13To14(sharedPreferencesHandler).applyTo(db, 13)
+		Upgrade14To15().applyTo(db, 14)
+		Upgrade15To16().applyTo(db, 15)
+		Upgrade16To17().applyTo(db, 16)
 
 		CloudEntityDao(DaoConfig(db, CloudEntityDao::class.java)).loadAll()
 		VaultEntityDao(DaoConfig(db, VaultEntityDao::class.java)).loadAll()
 		UpdateCheckEntityDao(DaoConfig(db, UpdateCheckEntityDao::class.java)).loadAll()
+		DirIdCacheEntityDao(DaoConfig(db, DirIdCacheEntityDao::class.java)).loadAll()
+		VaultIndexEntityDao(DaoConfig(db, VaultIndexEntityDao::class.java)).loadAll()
+		LongNameCacheEntityDao(DaoConfig(db, LongNameCacheEntityDao::class.java)).loadAll()
 	}
 
 
@@ -164,6 +164,17 @@ internal class DropboxCloudContentRepository(private val cloud: DropboxCloud, co
 			}
 		}
 
+		@Throws(BackendException::class)
+		override fun read(file: DropboxFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+			try {
+				cloud.read(file, offset, length, data, progressAware)
+			} catch (e: IOException) {
+				mapToNoSuchCloudFileExceptionIfMatches(e, file)?.let { throw it } ?: throw FatalBackendException(e)
+			} catch (e: DbxException) {
+				mapToNoSuchCloudFileExceptionIfMatches(e, file)?.let { throw it } ?: throw FatalBackendException(e)
+			}
+		}
+
 		private fun mapToNoSuchCloudFileExceptionIfMatches(e: Exception, file: DropboxFile): NoSuchCloudFileException? {
 			if (ExceptionUtil.contains(e, GetMetadataErrorException::class.java)) {
 				if (ExceptionUtil.extract(e, GetMetadataErrorException::class.java).get().errorValue.pathValue.isNotFound) {
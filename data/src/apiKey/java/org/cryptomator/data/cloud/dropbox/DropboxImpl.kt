@@ -349,6 +349,28 @@ internal class DropboxImpl(cloud: DropboxCloud, context: Context) {
 		}
 	}
 
+	@Throws(DbxException::class, IOException::class)
+	fun read(file: CloudFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		progressAware.onProgress(Progress.started(DownloadState.download(file)))
+		object : TransferredBytesAwareOutputStream(data) {
+			override fun bytesTransferred(transferred: Long) {
+				progressAware.onProgress( //
+					Progress.progress(DownloadState.download(file)) //
+						.between(0) //
+						.and(length) //
+						.withValue(transferred)
+				)
+			}
+		}.use {
+			client() //
+				.files() //
+				.downloadBuilder(file.path) //
+				.range(offset, length) //
+				.download(it)
+		}
+		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
+	}
+
 	private fun createLruCache(cacheSize: Int): Boolean {
 		if (diskLruCache == null) {
 			diskLruCache = try {
@@ -139,6 +139,31 @@ internal class OnedriveCloudContentRepository(private val cloud: OnedriveCloud,
 			}
 		}
 
+		@Throws(BackendException::class)
+		override fun read(file: OnedriveFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+			try {
+				oneDriveImpl.read(file, offset, length, data, progressAware)
+			} catch (e: IOException) {
+				when {
+					ExceptionUtil.contains(e, NoSuchCloudFileException::class.java) -> {
+						throw NoSuchCloudFileException(file.name)
+					}
+					else -> {
+						throw FatalBackendException(e)
+					}
+				}
+			} catch (e: BackendException) {
+				when {
+					ExceptionUtil.contains(e, NoSuchCloudFileException::class.java) -> {
+						throw NoSuchCloudFileException(file.name)
+					}
+					else -> {
+						throw e
+					}
+				}
+			}
+		}
+
 		@Throws(BackendException::class)
 		override fun delete(node: OnedriveNode) {
 			oneDriveImpl.delete(node)
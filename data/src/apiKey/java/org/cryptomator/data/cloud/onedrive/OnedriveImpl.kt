@@ -8,6 +8,7 @@ import com.microsoft.graph.models.DriveItemUploadableProperties
 import com.microsoft.graph.models.FileSystemInfo
 import com.microsoft.graph.models.Folder
 import com.microsoft.graph.models.ItemReference
+import com.microsoft.graph.options.HeaderOption
 import com.microsoft.graph.options.Option
 import com.microsoft.graph.options.QueryOption
 import com.microsoft.graph.requests.DriveRequestBuilder
@@ -361,6 +362,22 @@ internal class OnedriveImpl(private val cloud: OnedriveCloud, private val client
 		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
 	}
 
+	@Throws(BackendException::class, IOException::class)
+	fun read(file: OnedriveFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		progressAware.onProgress(Progress.started(DownloadState.download(file)))
+		val nodeInfo = requireNodeInfo(file)
+		val range = if (length > Long.MAX_VALUE - offset) "bytes=$offset-" else "bytes=$offset-${offset + length - 1}"
+		val request = drive(nodeInfo.driveId).items(nodeInfo.id).content().buildRequest(listOf(HeaderOption("Range", range)))
+		request.get()?.use { inputStream ->
+			object : TransferredBytesAwareOutputStream(data) {
+				override fun bytesTransferred(transferred: Long) {
+					progressAware.onProgress(Progress.progress(DownloadState.download(file)).between(0).and(length).withValue(transferred))
+				}
+			}.use { out -> CopyStream.copyStreamToStream(inputStream, out, length) }
+		}
+		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
+	}
+
 	private fun createLruCache(cacheSize: Int): Boolean {
 		if (diskLruCache == null) {
 			diskLruCache = try {
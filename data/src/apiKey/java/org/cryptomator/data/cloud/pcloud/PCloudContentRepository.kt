@@ -153,6 +153,15 @@ internal class PCloudContentRepository(private val cloud: PCloud, client: ApiCli
 			}
 		}
 
+		@Throws(BackendException::class)
+		override fun read(file: PCloudFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+			try {
+				cloud.read(file, offset, length, data, progressAware)
+			} catch (e: IOException) {
+				throw FatalBackendException(e)
+			}
+		}
+
 		@Throws(BackendException::class)
 		override fun delete(node: PCloudNode) {
 			try {
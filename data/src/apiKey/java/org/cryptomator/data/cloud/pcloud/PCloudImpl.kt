@@ -17,6 +17,8 @@ import org.cryptomator.data.cloud.pcloud.PCloudApiError.isNoSuchCloudFileExcepti
 import org.cryptomator.data.cloud.pcloud.PCloudApiError.isUnauthorizedException
 import org.cryptomator.data.cloud.pcloud.PCloudApiError.isWrongCredentialsException
 import org.cryptomator.data.util.CopyStream
+import org.cryptomator.data.util.NetworkTimeout
+import org.cryptomator.data.util.TransferredBytesAwareOutputStream
 import org.cryptomator.domain.PCloud
 import org.cryptomator.domain.exception.BackendException
 import org.cryptomator.domain.exception.CloudNodeAlreadyExistsException
@@ -39,8 +41,11 @@ import org.cryptomator.util.file.LruFileCacheUtil.Companion.retrieveFromLruCache
 import java.io.File
 import java.io.IOException
 import java.io.OutputStream
+import java.net.HttpURLConnection
 import java.util.Date
 import kotlin.math.pow
+import okhttp3.OkHttpClient
+import okhttp3.Request
 import okio.BufferedSink
 import okio.BufferedSource
 import okio.source
@@ -52,6 +57,16 @@ internal class PCloudImpl(private val cloud: PCloud, private val client: ApiClie
 	private val sharedPreferencesHandler: SharedPreferencesHandler
 	private var diskLruCache: DiskLruCache? = null
 
+	// the SDK can't request ranges of a file link, so ranges are requested directly using the connections of the SDK
+	private val rangeHttpClient: OkHttpClient by lazy {
+		OkHttpClient() //
+			.newBuilder() //
+			.connectionPool(client.connectionPool()) //
+			.connectTimeout(NetworkTimeout.CONNECTION.timeout, NetworkTimeout.CONNECTION.unit) //
+			.readTimeout(NetworkTimeout.READ.timeout, NetworkTimeout.READ.unit) //
+			.build()
+	}
+
 	fun root(): PCloudFolder {
 		return root
 	}
@@ -284,6 +299,40 @@ internal class PCloudImpl(private val cloud: PCloud, private val client: ApiClie
 		}
 	}
 
+	@Throws(IOException::class, BackendException::class)
+	fun read(file: PCloudFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		progressAware.onProgress(Progress.started(DownloadState.download(file)))
+		try {
+			val fileLink = client.createFileLink(file.path, DownloadOptions.DEFAULT).execute()
+			val range = if (length > Long.MAX_VALUE - offset) "bytes=$offset-" else "bytes=$offset-${offset + length - 1}"
+			val request = Request.Builder().url(fileLink.bestUrl()).header("Range", range).build()
+			rangeHttpClient.newCall(request).execute().use { response ->
+				when {
+					response.code == HttpURLConnection.HTTP_NOT_FOUND -> throw NoSuchCloudFileException(file.name)
+					response.code == 416 -> return@use
+					!response.isSuccessful -> throw FatalBackendException("Response code isn't between 200 and 300: " + response.code)
+				}
+				val inputStream = response.body?.byteStream() ?: throw FatalBackendException("Response body is null")
+				if (response.code != HttpURLConnection.HTTP_PARTIAL) {
+					CopyStream.skip(inputStream, offset)
+				}
+				object : TransferredBytesAwareOutputStream(data) {
+					override fun bytesTransferred(transferred: Long) {
+						progressAware.onProgress( //
+							Progress.progress(DownloadState.download(file)) //
+								.between(0) //
+								.and(length) //
+								.withValue(transferred)
+						)
+					}
+				}.use { out -> CopyStream.copyStreamToStream(inputStream, out, length) }
+			}
+		} catch (ex: ApiError) {
+			handleApiError(ex, file.name)
+		}
+		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
+	}
+
 	private fun readFile(filePath: String, sink: DataSink, listener: ProgressListener) {
 		var attempts = 0
 		while (++attempts <= MaxContentLinkDownloadAttempts) {
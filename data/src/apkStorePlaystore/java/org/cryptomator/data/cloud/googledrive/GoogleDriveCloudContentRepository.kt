@@ -168,6 +168,18 @@ internal class GoogleDriveCloudContentRepository(context: Context, private val c
 			}
 		}
 
+		@Throws(BackendException::class)
+		override fun read(file: GoogleDriveFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+			try {
+				if (file.driveId == null) {
+					throw NoSuchCloudFileException(file.name)
+				}
+				impl.read(file, offset, length, data, progressAware)
+			} catch (e: IOException) {
+				throw FatalBackendException(e)
+			}
+		}
+
 		@Throws(BackendException::class)
 		override fun delete(node: GoogleDriveNode) {
 			try {
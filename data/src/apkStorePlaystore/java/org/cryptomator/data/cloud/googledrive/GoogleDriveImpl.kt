@@ -342,6 +342,33 @@ internal class GoogleDriveImpl(context: Context, googleDriveCloud: GoogleDriveCl
 		}
 	}
 
+	@Throws(IOException::class)
+	fun read(file: GoogleDriveFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		progressAware.onProgress(Progress.started(DownloadState.download(file)))
+		try {
+			object : TransferredBytesAwareOutputStream(data) {
+				override fun bytesTransferred(transferred: Long) {
+					progressAware.onProgress( //
+						Progress.progress(DownloadState.download(file)) //
+							.between(0) //
+							.and(length) //
+							.withValue(transferred)
+					)
+				}
+			}.use {
+				val request = client() //
+					.files()[file.driveId] //
+					.setAlt("media") //
+					.setSupportsAllDrives(true)
+				request.mediaHttpDownloader.setContentRange(offset, if (length > Long.MAX_VALUE - offset) Long.MAX_VALUE - 1 else offset + length - 1)
+				request.executeMediaAndDownloadTo(it)
+			}
+		} catch (e: HttpResponseException) {
+			ignoreEmptyFileErrorAndRethrowOthers(e, file)
+		}
+		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
+	}
+
 	private fun createLruCache(cacheSize: Int): Boolean {
 		if (diskLruCache == null) {
 			diskLruCache = try {
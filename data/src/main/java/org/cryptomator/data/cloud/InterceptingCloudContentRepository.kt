@@ -12,6 +12,7 @@ import org.cryptomator.domain.usecases.cloud.DownloadState
 import org.cryptomator.domain.usecases.cloud.UploadState
 import java.io.File
 import java.io.OutputStream
+import java.util.function.Consumer
 
 abstract class InterceptingCloudContentRepository<CloudType : Cloud, NodeType : CloudNode, DirType : CloudFolder, FileType : CloudFile> protected constructor(private val delegate: CloudContentRepository<CloudType, NodeType, DirType, FileType>) :
 	CloudContentRepository<CloudType, NodeType, DirType, FileType> {
@@ -110,6 +111,19 @@ abstract class InterceptingCloudContentRepository<CloudType : Cloud, NodeType :
 		}
 	}
 
+	@Throws(BackendException::class)
+	override fun listInPages(folder: DirType, onPage: Consumer<List<NodeType>>): List<NodeType> {
+		return try {
+			delegate.listInPages(folder, onPage)
+		} catch (e: BackendException) {
+			throwWrappedIfRequired(e)
+			throw e
+		} catch (e: RuntimeException) {
+			throwWrappedIfRequired(e)
+			throw e
+		}
+	}
+
 	@Throws(BackendException::class)
 	override fun create(folder: DirType): DirType {
 		return try {
@@ -175,6 +189,19 @@ abstract class InterceptingCloudContentRepository<CloudType : Cloud, NodeType :
 		}
 	}
 
+	@Throws(BackendException::class)
+	override fun read(file: FileType, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		try {
+			delegate.read(file, offset, length, data, progressAware)
+		} catch (e: BackendException) {
+			throwWrappedIfRequired(e)
+			throw e
+		} catch (e: RuntimeException) {
+			throwWrappedIfRequired(e)
+			throw e
+		}
+	}
+
 	@Throws(BackendException::class)
 	override fun delete(node: NodeType) {
 		try {
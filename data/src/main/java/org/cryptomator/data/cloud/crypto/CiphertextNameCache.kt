@@ -0,0 +1,86 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.cryptolib.api.Cryptor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Bounded LRU cache of encrypted names by directory ID and cleartext name, so resolving the same node repeatedly (e.g. during conflict
+ * checks) doesn't encrypt its name again.
+ *
+ * Additionally remembers the metadata files of shortened names written during the last [NAME_FILE_TTL_MILLIS], so they aren't uploaded
+ * again moments later. These are forgotten as soon as nodes are moved or deleted, because this might remove shortened nodes.
+ *
+ * The cache belongs to the cryptor it is used with and is cleared when used with another one, i.e. after the vault was locked and
+ * unlocked again.
+ */
+class CiphertextNameCache(private val maxEntries: Int = DEFAULT_MAX_ENTRIES) {
+
+	private val names = LinkedHashMap<NameKey, String>(16, 0.75f, true)
+	private val writtenNameFiles = LinkedHashMap<String, Long>()
+
+	private var cryptor: Cryptor? = null
+
+	@Synchronized
+	fun get(cryptor: Cryptor, dirId: String, prefix: String, cleartextName: String): String? {
+		ensureOwnedBy(cryptor)
+		return names[NameKey(dirId, prefix, cleartextName)]
+	}
+
+	@Synchronized
+	fun put(cryptor: Cryptor, dirId: String, prefix: String, cleartextName: String, ciphertextName: String) {
+		ensureOwnedBy(cryptor)
+		names[NameKey(dirId, prefix, cleartextName)] = ciphertextName
+		val iterator = names.keys.iterator()
+		while (names.size > maxEntries && iterator.hasNext()) {
+			iterator.next()
+			iterator.remove()
+		}
+	}
+
+	/**
+	 * @return `true` if the metadata file at `path` has been written recently
+	 */
+	@Synchronized
+	fun isNameFileWritten(cryptor: Cryptor, path: String): Boolean {
+		ensureOwnedBy(cryptor)
+		val writtenAt = writtenNameFiles[path] ?: return false
+		if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writtenAt) > NAME_FILE_TTL_MILLIS) {
+			writtenNameFiles.remove(path)
+			return false
+		}
+		return true
+	}
+
+	@Synchronized
+	fun nameFileWritten(cryptor: Cryptor, path: String) {
+		ensureOwnedBy(cryptor)
+		writtenNameFiles.remove(path)
+		writtenNameFiles[path] = System.nanoTime()
+		val iterator = writtenNameFiles.keys.iterator()
+		while (writtenNameFiles.size > maxEntries && iterator.hasNext()) {
+			iterator.next()
+			iterator.remove()
+		}
+	}
+
+	@Synchronized
+	fun forgetWrittenNameFiles() {
+		writtenNameFiles.clear()
+	}
+
+	private fun ensureOwnedBy(cryptor: Cryptor) {
+		if (this.cryptor !== cryptor) {
+			names.clear()
+			writtenNameFiles.clear()
+			this.cryptor = cryptor
+		}
+	}
+
+	private data class NameKey(val dirId: String, val prefix: String, val cleartextName: String)
+
+	companion object {
+
+		private const val DEFAULT_MAX_ENTRIES = 4096
+		private const val NAME_FILE_TTL_MILLIS = 60_000L
+	}
+}
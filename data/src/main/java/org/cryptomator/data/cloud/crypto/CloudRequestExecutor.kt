@@ -0,0 +1,22 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.domain.executor.DaemonExecutors
+import java.util.concurrent.Callable
+import java.util.concurrent.Future
+
+/**
+ * Thread pool shared by all vaults for small cloud requests which can be sent concurrently, e.g. resolving the names of shortened nodes.
+ *
+ * The number of threads bounds the requests in flight, so a huge folder doesn't flood the cloud with requests. Tasks must not wait for other
+ * tasks of this executor.
+ */
+internal object CloudRequestExecutor {
+
+	const val MAX_CONCURRENT_REQUESTS = 8
+
+	private val threadPoolExecutor = DaemonExecutors.bounded("cloud_request", MAX_CONCURRENT_REQUESTS)
+
+	fun <T> submit(task: Callable<T>): Future<T> {
+		return threadPoolExecutor.submit(task)
+	}
+}
@@ -6,22 +6,30 @@ import org.cryptomator.domain.Cloud
 import org.cryptomator.domain.CloudFile
 import org.cryptomator.domain.CloudFolder
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.domain.exception.BackendException
 import org.cryptomator.domain.exception.CloudNodeAlreadyExistsException
 import org.cryptomator.domain.exception.FatalBackendException
+import org.cryptomator.domain.executor.SubtreeTraversal
 import org.cryptomator.domain.repository.CloudContentRepository
 import org.cryptomator.domain.usecases.ProgressAware
 import org.cryptomator.domain.usecases.cloud.DataSource
 import org.cryptomator.domain.usecases.cloud.DownloadState
 import org.cryptomator.domain.usecases.cloud.UploadState
+import org.cryptomator.util.SharedPreferencesHandler
 import java.io.File
 import java.io.OutputStream
+import java.nio.channels.SeekableByteChannel
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.function.Consumer
 import java.util.function.Supplier
 
-internal class CryptoCloudContentRepository(context: Context, cloudContentRepository: CloudContentRepository<Cloud, CloudNode, CloudFolder, CloudFile>, cloud: CryptoCloud, cryptor: Supplier<Cryptor>) :
+internal class CryptoCloudContentRepository(context: Context, cloudContentRepository: CloudContentRepository<Cloud, CloudNode, CloudFolder, CloudFile>, cloud: CryptoCloud, cryptor: Supplier<Cryptor>, chunkCache: DecryptedChunkCache, persistentDirIdCache: PersistentDirIdCache, longNameCache: PersistentLongNameCache, private val vaultIndex: VaultIndex) :
 	CloudContentRepository<CryptoCloud, CryptoNode, CryptoFolder, CryptoFile> {
 
 	private var cryptoImpl: CryptoImplDecorator
+	private val sharedPreferencesHandler = SharedPreferencesHandler(context)
+	private val folderStatistics = FolderStatisticsCache()
 
 	@Synchronized
 	@Throws(BackendException::class)
@@ -55,13 +63,97 @@ internal class CryptoCloudContentRepository(context: Context, cloudContentReposi
 
 	@Throws(BackendException::class)
 	override fun list(folder: CryptoFolder): List<CryptoNode> {
-		return cryptoImpl.list(folder)
+		return cryptoImpl.list(folder).also {
+			indexListing(folder, it)
+			cacheContents(folder, it)
+		}
+	}
+
+	/**
+	 * Lists the folder for the user, who is likely to open one of its subfolders next, so unlike [list], e.g. used to search the vault, this
+	 * prefetches the directory IDs of the subfolders if enabled.
+	 */
+	@Throws(BackendException::class)
+	override fun listInPages(folder: CryptoFolder, onPage: Consumer<List<CryptoNode>>): List<CryptoNode> {
+		return cryptoImpl.list(folder, onPage).also {
+			if (sharedPreferencesHandler.prefetchDirIds()) {
+				cryptoImpl.prefetchDirIds(it)
+			}
+			indexListing(folder, it)
+			cacheContents(folder, it)
+		}
+	}
+
+	/**
+	 * @return the contents of the folder as indexed when it was listed last, without contacting the cloud, or `null` if the folder
+	 * hasn't been listed yet or its directory isn't known
+	 */
+	@Throws(BackendException::class)
+	override fun cachedList(folder: CryptoFolder): List<CryptoNode>? {
+		val indexedNodes = vaultIndex.list(folder) ?: return null
+		val dirIdInfo = cryptoImpl.locallyKnownDirIdInfo(folder) ?: return null
+		return indexedNodes.map { cryptoImpl.indexedNode(folder, dirIdInfo.cloudFolder, it) }
+	}
+
+	/**
+	 * Sums up the contents of the folder and its subfolders, listing up to [SubtreeTraversal.MAX_PARALLEL_VISITS] folders concurrently.
+	 * Folders whose contents are known from previous listings aren't listed again and subfolders whose totals are known aren't descended
+	 * into. These listings aren't shown to the user, so they neither prefetch directory IDs nor update the vault index.
+	 *
+	 * The totals of all folders of the subtree are cached afterwards, as long as the contents of all their descendants are cached.
+	 */
+	@Throws(BackendException::class)
+	override fun statistics(folder: CryptoFolder): FolderStatistics {
+		val generation = folderStatistics.generation()
+		val root = StatisticsVisit(folder, null)
+		val visited = ConcurrentLinkedQueue<StatisticsVisit>()
+		SubtreeTraversal.traverse(root) { visit ->
+			visit.dirId = dirId(visit.folder)
+			val total = visit.dirId?.let { folderStatistics.total(it) }
+			val subfolders = if (total != null) {
+				visit.total = total
+				emptyList()
+			} else {
+				val contents = visit.dirId?.let { folderStatistics[it] } ?: cacheContents(visit.folder, cryptoImpl.list(visit.folder)).also {
+					visit.dirId = visit.dirId ?: dirId(visit.folder)
+				}
+				visit.total = contents.statistics
+				contents.subfoldersOf(visit.folder).map { StatisticsVisit(it, visit) }
+			}
+			visit.cached = visit.dirId != null
+			// recorded before the subfolders are visited, so subfolders are recorded after their parent
+			visited.add(visit)
+			subfolders
+		}
+		visited.reversed().forEach { visit ->
+			val dirId = visit.dirId
+			if (visit.cached && dirId != null) {
+				folderStatistics.putTotal(dirId, visit.parent?.dirId, visit.total, generation)
+			}
+			visit.parent?.let { parent ->
+				parent.total += visit.total
+				parent.cached = parent.cached && visit.cached
+			}
+		}
+		return root.total
+	}
+
+	/**
+	 * @return the statistics of the folder as computed by [statistics], without contacting the cloud, or `null` if they are unknown or the
+	 * folder or one of its subfolders has changed since
+	 */
+	@Throws(BackendException::class)
+	override fun cachedStatistics(folder: CryptoFolder): FolderStatistics? {
+		return dirId(folder)?.let { folderStatistics.total(it) }
 	}
 
 	@Throws(BackendException::class)
 	override fun create(folder: CryptoFolder): CryptoFolder {
 		return try {
-			cryptoImpl.create(folder)
+			cryptoImpl.create(folder).also {
+				indexAdded(it)
+				invalidateContentsOf(folder.parent)
+			}
 		} catch (e: CloudNodeAlreadyExistsException) {
 			throw CloudNodeAlreadyExistsException(folder.name)
 		}
@@ -69,8 +161,14 @@ internal class CryptoCloudContentRepository(context: Context, cloudContentReposi
 
 	@Throws(BackendException::class)
 	override fun move(source: CryptoFolder, target: CryptoFolder): CryptoFolder {
+		cryptoImpl.forgetWrittenNameFiles()
 		return try {
-			cryptoImpl.move(source, target)
+			cryptoImpl.move(source, target).also {
+				vaultIndex.removed(source)
+				indexAdded(it)
+				invalidateContentsOf(source.parent)
+				invalidateContentsOf(target.parent)
+			}
 		} catch (e: CloudNodeAlreadyExistsException) {
 			throw CloudNodeAlreadyExistsException(target.name)
 		}
@@ -78,8 +176,16 @@ internal class CryptoCloudContentRepository(context: Context, cloudContentReposi
 
 	@Throws(BackendException::class)
 	override fun move(source: CryptoFile, target: CryptoFile): CryptoFile {
+		cryptoImpl.evictFromChunkCache(source)
+		cryptoImpl.evictFromChunkCache(target)
+		cryptoImpl.forgetWrittenNameFiles()
 		return try {
-			cryptoImpl.move(source, target)
+			cryptoImpl.move(source, target).also {
+				vaultIndex.removed(source)
+				indexAdded(it)
+				invalidateContentsOf(source.parent)
+				invalidateContentsOf(target.parent)
+			}
 		} catch (e: CloudNodeAlreadyExistsException) {
 			throw CloudNodeAlreadyExistsException(target.name)
 		}
@@ -87,7 +193,11 @@ internal class CryptoCloudContentRepository(context: Context, cloudContentReposi
 
 	@Throws(BackendException::class)
 	override fun write(file: CryptoFile, data: DataSource, progressAware: ProgressAware<UploadState>, replace: Boolean, size: Long): CryptoFile {
-		return cryptoImpl.write(file, data, progressAware, replace, size)
+		cryptoImpl.evictFromChunkCache(file)
+		return cryptoImpl.write(file, data, progressAware, replace, size).also {
+			indexAdded(it)
+			invalidateContentsOf(file.parent)
+		}
 	}
 
 	@Throws(BackendException::class)
@@ -95,9 +205,33 @@ internal class CryptoCloudContentRepository(context: Context, cloudContentReposi
 		cryptoImpl.read(file, data, progressAware)
 	}
 
+	@Throws(BackendException::class)
+	override fun read(file: CryptoFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		cryptoImpl.read(file, offset, length, data, progressAware)
+	}
+
+	/**
+	 * @return a read-only channel to seek within the cleartext of the file, fetching only the required ciphertext chunks
+	 */
+	fun newReadableChannel(file: CryptoFile): SeekableByteChannel {
+		return DecryptingSeekableByteChannel(cryptoImpl, file)
+	}
+
+	/**
+	 * @return the header and first cleartext chunk of the file, fetching only the first ciphertext chunk
+	 */
+	@Throws(BackendException::class)
+	fun probe(file: CryptoFile): CryptoFileProbe {
+		return cryptoImpl.probe(file)
+	}
+
 	@Throws(BackendException::class)
 	override fun delete(node: CryptoNode) {
+		cryptoImpl.evictFromChunkCache(node)
+		cryptoImpl.forgetWrittenNameFiles()
 		cryptoImpl.delete(node)
+		vaultIndex.removed(node)
+		invalidateContentsOf(node.parent as CryptoFolder?)
 	}
 
 	@Throws(BackendException::class)
@@ -117,11 +251,89 @@ internal class CryptoCloudContentRepository(context: Context, cloudContentReposi
 			throw FatalBackendException(e)
 		}
 
+		MemoryTrimmable.Registry.register(context, chunkCache)
 		cryptoImpl = when (cloud.vault.format) {
-			8 -> CryptoImplVaultFormat8(context, cryptor, cloudContentRepository, vaultLocation, DirIdCacheFormat7(), cloud.vault.shorteningThreshold)
-			7 -> CryptoImplVaultFormat7(context, cryptor, cloudContentRepository, vaultLocation, DirIdCacheFormat7())
-			6, 5 -> CryptoImplVaultFormatPre7(context, cryptor, cloudContentRepository, vaultLocation, DirIdCacheFormatPre7())
+			8 -> CryptoImplVaultFormat8(context, cryptor, cloudContentRepository, vaultLocation, dirIdCacheFormat7(context), cloud.vault.shorteningThreshold, chunkCache, persistentDirIdCache)
+			7 -> CryptoImplVaultFormat7(context, cryptor, cloudContentRepository, vaultLocation, dirIdCacheFormat7(context), chunkCache, persistentDirIdCache)
+			6, 5 -> CryptoImplVaultFormatPre7(context, cryptor, cloudContentRepository, vaultLocation, DirIdCacheFormatPre7(), chunkCache, persistentDirIdCache, longNameCache)
 			else -> throw IllegalStateException(String.format("No CryptoImpl for vault format %d.", cloud.vault.format))
 		}
 	}
+
+	@Throws(BackendException::class)
+	private fun dirId(folder: CryptoFolder): String? {
+		return cryptoImpl.locallyKnownDirIdInfo(folder)?.id
+	}
+
+	@Throws(BackendException::class)
+	private fun cacheContents(folder: CryptoFolder, nodes: List<CryptoNode>): FolderStatisticsCache.Contents {
+		return FolderStatisticsCache.Contents.of(nodes).also { contents ->
+			dirId(folder)?.let { folderStatistics.put(it, contents) }
+		}
+	}
+
+	@Throws(BackendException::class)
+	private fun invalidateContentsOf(folder: CryptoFolder?) {
+		folder?.let { dirId(it) }?.let { folderStatistics.invalidate(it) }
+	}
+
+	private fun indexListing(folder: CryptoFolder, nodes: List<CryptoNode>) {
+		// symlinks aren't indexed, they show up as soon as the folder is listed again
+		val indexableNodes = nodes.filter { it is CryptoFile || it is CryptoFolder }
+		val indexedNodes = indexableNodes.mapNotNull { indexedNode(it) }
+		if (indexedNodes.size == indexableNodes.size) {
+			vaultIndex.listed(folder, indexedNodes)
+		}
+	}
+
+	private fun indexAdded(node: CryptoNode) {
+		indexedNode(node)?.let { vaultIndex.added(it) }
+	}
+
+	/**
+	 * @return the entry of the node for the [VaultIndex] or `null` if the node can't be indexed, e.g. because the directory of its parent
+	 * isn't known locally
+	 */
+	private fun indexedNode(node: CryptoNode): VaultIndex.IndexedNode? {
+		val parent = node.parent as? CryptoFolder ?: return null
+		val parentDir = try {
+			cryptoImpl.locallyKnownDirIdInfo(parent)?.cloudFolder ?: return null
+		} catch (e: BackendException) {
+			return null
+		}
+		val parentDirPrefix = parentDir.path + "/"
+		return when (node) {
+			is CryptoFile -> {
+				if (!node.cloudFile.path.startsWith(parentDirPrefix)) {
+					return null
+				}
+				VaultIndex.IndexedNode(node.path, false, node.size, node.modified, node.cloudFile.path.substring(parentDirPrefix.length))
+			}
+			is CryptoFolder -> {
+				val dirFile = node.dirFile ?: return null
+				if (!dirFile.path.startsWith(parentDirPrefix)) {
+					return null
+				}
+				VaultIndex.IndexedNode(node.path, true, null, null, dirFile.path.substring(parentDirPrefix.length))
+			}
+			else -> null
+		}
+	}
+
+	private fun dirIdCacheFormat7(context: Context): DirIdCache {
+		return DirIdCacheFormat7().also { MemoryTrimmable.Registry.register(context, it) }
+	}
+
+	/**
+	 * A folder visited by [statistics]. The total starts with the contents of the folder, the totals of its subfolders are added once all
+	 * folders are visited.
+	 */
+	private class StatisticsVisit(val folder: CryptoFolder, val parent: StatisticsVisit?) {
+
+		var dirId: String? = null
+		var total = FolderStatistics.EMPTY
+
+		// whether the contents of the folder and all its descendants are cached, so a change within the subtree invalidates its total
+		var cached = false
+	}
 }
@@ -5,12 +5,15 @@ import android.content.Context;
 import com.google.common.base.Optional;
 
 import org.cryptomator.cryptolib.api.Cryptor;
+import org.cryptomator.data.db.Database;
 import org.cryptomator.data.repository.CloudContentRepositoryFactory;
 import org.cryptomator.domain.Cloud;
 import org.cryptomator.domain.Vault;
 import org.cryptomator.domain.exception.MissingCryptorException;
 import org.cryptomator.domain.repository.CloudContentRepository;
 
+import java.util.function.Supplier;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -25,12 +28,14 @@ public class CryptoCloudContentRepositoryFactory implements CloudContentReposito
 	private final Lazy<CloudContentRepository> cloudContentRepository;
 	private final Cryptors cryptors;
 	private final Context context;
+	private final Database database;
 
 	@Inject
-	public CryptoCloudContentRepositoryFactory(Lazy<CloudContentRepository> cloudContentRepository, Cryptors cryptors, Context context) {
+	public CryptoCloudContentRepositoryFactory(Lazy<CloudContentRepository> cloudContentRepository, Cryptors cryptors, Context context, Database database) {
 		this.cloudContentRepository = cloudContentRepository;
 		this.cryptors = cryptors;
 		this.context = context;
+		this.database = database;
 	}
 
 	@Override
@@ -42,7 +47,11 @@ public class CryptoCloudContentRepositoryFactory implements CloudContentReposito
 	public CloudContentRepository<CryptoCloud, CryptoNode, CryptoFolder, CryptoFile> cloudContentRepositoryFor(Cloud cloud) {
 		CryptoCloud cryptoCloud = (CryptoCloud) cloud;
 		Vault vault = cryptoCloud.getVault();
-		return new CryptoCloudContentRepository(context, cloudContentRepository.get(), cryptoCloud, cryptors.get(vault));
+		Supplier<Cryptor> cryptor = cryptors.get(vault);
+		PersistentDirIdCache persistentDirIdCache = new PersistentDirIdCache(database, vault.getId(), cryptor);
+		PersistentLongNameCache longNameCache = new PersistentLongNameCache(database, vault.getId());
+		VaultIndex vaultIndex = new VaultIndex(database, vault.getId(), cryptor);
+		return new CryptoCloudContentRepository(context, cloudContentRepository.get(), cryptoCloud, cryptor, cryptors.chunkCache(), persistentDirIdCache, longNameCache, vaultIndex);
 	}
 
 	public void deregisterCryptor(Vault vault) {
@@ -0,0 +1,21 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.domain.executor.DaemonExecutors
+import java.util.concurrent.Callable
+import java.util.concurrent.Future
+import kotlin.math.max
+
+/**
+ * Thread pool shared by all vaults for CPU bound cryptographic work on all cores, e.g. encrypting and decrypting file content chunks or file names.
+ */
+internal object CryptoExecutor {
+
+	@JvmField
+	val PARALLELISM = max(1, Runtime.getRuntime().availableProcessors())
+
+	private val threadPoolExecutor = DaemonExecutors.bounded("crypto", PARALLELISM)
+
+	fun <T> submit(task: Callable<T>): Future<T> {
+		return threadPoolExecutor.submit(task)
+	}
+}
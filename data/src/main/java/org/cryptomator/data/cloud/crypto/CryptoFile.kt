@@ -9,14 +9,18 @@ class CryptoFile(
 	/**
 	 * @return The actual file in the underlying, i.e. decorated, CloudContentRepository
 	 */
-	val cloudFile: CloudFile
+	val cloudFile: CloudFile,
+	/**
+	 * @return the modification date as last seen, used as long as the [cloudFile] doesn't know its own, e.g. for files from the [VaultIndex]
+	 */
+	private val lastKnownModified: Date? = null
 ) : CloudFile, CryptoNode {
 
 	override val cloud: Cloud?
 		get() = parent.cloud
 
 	override val modified: Date?
-		get() = cloudFile.modified
+		get() = cloudFile.modified ?: lastKnownModified
 
 	override fun equals(other: Any?): Boolean {
 		if (other == null || javaClass != other.javaClass) {
@@ -0,0 +1,22 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.cryptolib.api.FileHeader
+
+/**
+ * Result of probing the header and the first chunk of a [CryptoFile].
+ *
+ * If the file is not `intact`, i.e. the header or the first chunk are truncated or fail authentication, `header` and `firstCleartextChunk` are empty.
+ */
+class CryptoFileProbe private constructor(val file: CryptoFile, val intact: Boolean, val header: FileHeader?, val firstCleartextChunk: ByteArray) {
+
+	companion object {
+
+		fun intact(file: CryptoFile, header: FileHeader, firstCleartextChunk: ByteArray): CryptoFileProbe {
+			return CryptoFileProbe(file, true, header, firstCleartextChunk)
+		}
+
+		fun corrupt(file: CryptoFile): CryptoFileProbe {
+			return CryptoFileProbe(file, false, null, ByteArray(0))
+		}
+	}
+}
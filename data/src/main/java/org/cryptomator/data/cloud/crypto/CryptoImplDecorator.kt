@@ -1,29 +1,36 @@
 package org.cryptomator.data.cloud.crypto
 
 import android.content.Context
+import org.cryptomator.cryptolib.api.AuthenticationFailedException
 import org.cryptomator.cryptolib.api.Cryptor
-import org.cryptomator.cryptolib.common.DecryptingReadableByteChannel
-import org.cryptomator.cryptolib.common.EncryptingWritableByteChannel
+import org.cryptomator.cryptolib.api.FileHeader
 import org.cryptomator.data.cloud.crypto.DirIdCache.DirIdInfo
+import org.cryptomator.data.cloud.crypto.ResolvedPathCache.ResolvedPath
+import org.cryptomator.data.util.CopyStream
+import org.cryptomator.data.util.TransferredBytesAwareOutputStream
 import org.cryptomator.domain.Cloud
 import org.cryptomator.domain.CloudFile
 import org.cryptomator.domain.CloudFolder
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.CloudType
 import org.cryptomator.domain.exception.BackendException
 import org.cryptomator.domain.exception.CloudNodeAlreadyExistsException
 import org.cryptomator.domain.exception.EmptyDirFileException
 import org.cryptomator.domain.exception.FatalBackendException
 import org.cryptomator.domain.exception.NoDirFileException
 import org.cryptomator.domain.exception.ParentFolderIsNullException
+import org.cryptomator.domain.executor.SubtreeTraversal
 import org.cryptomator.domain.repository.CloudContentRepository
 import org.cryptomator.domain.usecases.DownloadFileReplacingProgressAware
 import org.cryptomator.domain.usecases.ProgressAware
 import org.cryptomator.domain.usecases.UploadFileReplacingProgressAware
 import org.cryptomator.domain.usecases.cloud.DataSource
 import org.cryptomator.domain.usecases.cloud.DownloadState
-import org.cryptomator.domain.usecases.cloud.FileBasedDataSource.Companion.from
 import org.cryptomator.domain.usecases.cloud.Progress
+import org.cryptomator.domain.usecases.cloud.RangeOutputStream
 import org.cryptomator.domain.usecases.cloud.UploadState
+import org.cryptomator.util.BufferPool
+import org.cryptomator.util.SharedPreferencesHandler
 import java.io.ByteArrayOutputStream
 import java.io.File
 import java.io.FileInputStream
@@ -31,11 +38,16 @@ import java.io.FileOutputStream
 import java.io.IOException
 import java.io.OutputStream
 import java.nio.ByteBuffer
-import java.nio.channels.Channels
-import java.util.LinkedList
-import java.util.Queue
+import java.nio.charset.StandardCharsets
+import java.util.Collections
 import java.util.UUID
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.Consumer
 import java.util.function.Supplier
+import kotlin.math.min
+import timber.log.Timber
 
 
 abstract class CryptoImplDecorator(
@@ -44,12 +56,26 @@ abstract class CryptoImplDecorator(
 	val cloudContentRepository: CloudContentRepository<Cloud, CloudNode, CloudFolder, CloudFile>,
 	private val storageLocation: CloudFolder,
 	val dirIdCache: DirIdCache,
-	val shorteningThreshold: Int
+	val shorteningThreshold: Int,
+	private val chunkCache: DecryptedChunkCache,
+	private val persistentDirIdCache: PersistentDirIdCache
 ) {
 
 	@Volatile
 	private var root: RootCryptoFolder? = null
 
+	private val verifiedPersistedDirIds = ConcurrentHashMap.newKeySet<String>()
+
+	protected val nameCache = CiphertextNameCache()
+
+	private val resolvedPaths = ResolvedPathCache()
+
+	// incremented by each prefetch and eviction, so prefetched directory IDs which became obsolete in the meantime aren't cached
+	private val prefetchGeneration = AtomicLong()
+
+	// makes checking the generation and caching a prefetched directory ID atomic with respect to evictions
+	private val prefetchLock = Any()
+
 	@Throws(BackendException::class)
 	abstract fun folder(cryptoParent: CryptoFolder, cleartextName: String): CryptoFolder
 
@@ -63,6 +89,19 @@ abstract class CryptoImplDecorator(
 	@Throws(BackendException::class)
 	abstract fun list(cryptoFolder: CryptoFolder): List<CryptoNode>
 
+	/**
+	 * Lists the folder, handing the cleartext nodes to `onPage` in pages. Formats able to decrypt the pages of the underlying listing as they
+	 * arrive override this, all others hand over the complete listing as a single page.
+	 */
+	@Throws(BackendException::class)
+	open fun list(cryptoFolder: CryptoFolder, onPage: Consumer<List<CryptoNode>>): List<CryptoNode> {
+		return list(cryptoFolder).also {
+			if (it.isNotEmpty()) {
+				onPage.accept(it)
+			}
+		}
+	}
+
 	@Throws(BackendException::class)
 	abstract fun encryptFolderName(cryptoFolder: CryptoFolder, name: String): String
 
@@ -109,22 +148,37 @@ abstract class CryptoImplDecorator(
 	val internalCache: File
 		get() = context.cacheDir
 
-	@Throws(BackendException::class)
-	fun deepCollectSubfolders(source: CryptoFolder): List<CryptoFolder> {
-
-		val queue: Queue<CryptoFolder> = LinkedList()
-		queue.add(source)
-		val result: MutableList<CryptoFolder> = LinkedList()
-
-		while (!queue.isEmpty()) {
-			val folder = queue.remove()
-			val subfolders = shallowCollectSubfolders(folder)
-			queue.addAll(subfolders)
-			result.addAll(subfolders)
+	/**
+	 * Deletes the directories of the folder and all its subfolders, but not the dir file of the folder itself.
+	 *
+	 * The subtree is traversed with concurrent listings first. The directories are deleted afterwards, deepest first and each level
+	 * concurrently, so a directory is only deleted once the directories of all its subfolders are deleted. The dir files of the subfolders
+	 * are contained in the directory of their parent, thus an interrupted deletion can be retried as all remaining directories are still
+	 * reachable.
+	 */
+	@Throws(BackendException::class)
+	fun deleteDirectories(folder: CryptoFolder) {
+		val rootDirIdInfo = getCachingAwareDirIdInfo(folder) ?: run {
+			Timber.tag("CryptoFs").w("Dir file doesn't exists while deleting the folder, continue anyway")
+			return
+		}
+		val directoriesByDepth = ConcurrentHashMap<Int, MutableList<CloudFolder>>()
+		SubtreeTraversal.traverse(Triple(folder, rootDirIdInfo, 0)) { (current, dirIdInfo, depth) ->
+			directoriesByDepth.computeIfAbsent(depth) { Collections.synchronizedList(ArrayList()) }.add(dirIdInfo.cloudFolder)
+			// the folder might have been evicted from the cache since its directory ID was loaded
+			addFolderToCache(current, dirIdInfo)
+			val subfolders = shallowCollectSubfolders(current)
+			val subfolderDirIdInfos = ParallelMapping.startBlocking(subfolders) { getCachingAwareDirIdInfo(it) }.await()
+			subfolders.zip(subfolderDirIdInfos).mapNotNull { (subfolder, subfolderDirIdInfo) ->
+				subfolderDirIdInfo?.let { Triple(subfolder, it, depth + 1) } ?: run {
+					Timber.tag("CryptoFs").w("Dir file doesn't exists of a sub folder while deleting the parent, continue anyway")
+					null
+				}
+			}
+		}
+		directoriesByDepth.keys.sortedDescending().forEach { depth ->
+			ParallelMapping.startBlocking(directoriesByDepth.getValue(depth).toList()) { cloudContentRepository.delete(it) }.await()
 		}
-
-		result.reverse()
-		return result
 	}
 
 	@Throws(BackendException::class)
@@ -144,10 +198,17 @@ abstract class CryptoImplDecorator(
 	@Throws(BackendException::class)
 	fun resolve(cloud: CryptoCloud, path: String): CryptoFolder {
 		val names = path.removePrefix("/").split("/").toTypedArray()
+		resolvedPaths["/" + names.joinToString("/")]?.let {
+			if (it.isCurrent(dirIdCache)) {
+				return it.folder
+			}
+		}
+		val generation = resolvedPaths.generation()
 		var folder: CryptoFolder = root(cloud)
 		for (name in names) {
 			folder = folder(folder, name)
 		}
+		resolvedPaths.put(ResolvedPath(folder, dirIdCache), generation)
 		return folder
 	}
 
@@ -254,22 +315,6 @@ abstract class CryptoImplDecorator(
 		}
 	}
 
-	@Throws(BackendException::class, IOException::class)
-	private fun writeFromTmpFile(originalDataSource: DataSource, cryptoFile: CryptoFile, encryptedFile: File, progressAware: ProgressAware<UploadState>, replace: Boolean): CryptoFile {
-		val targetFile = targetFile(cryptoFile, replace)
-		return file(
-			targetFile,  //
-			cloudContentRepository.write( //
-				targetFile.cloudFile,  //
-				originalDataSource.decorate(from(encryptedFile)), //
-				UploadFileReplacingProgressAware(cryptoFile, progressAware),  //
-				replace,  //
-				encryptedFile.length()
-			),  //
-			cryptoFile.size
-		)
-	}
-
 	@Throws(BackendException::class)
 	private fun targetFile(cryptoFile: CryptoFile, replace: Boolean): CryptoFile {
 		return if (replace || !cloudContentRepository.exists(cryptoFile)) {
@@ -308,29 +353,105 @@ abstract class CryptoImplDecorator(
 
 	@Throws(BackendException::class)
 	fun read(cryptoFile: CryptoFile, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		val cleartextSize = cryptoFile.size
+		val cachedChunks = if (cleartextSize != null && chunkCache.accepts(cleartextSize)) chunkCacheKey(cryptoFile) else null
+		if (cleartextSize != null && cachedChunks != null && readFromChunkCache(cachedChunks, 0, (cleartextSize - 1) / cryptor().fileContentCryptor().cleartextChunkSize(), data)) {
+			progressAware.onProgress(Progress.completed(DownloadState.decryption(cryptoFile)))
+			return
+		}
+		val onCleartextChunk = cachedChunks?.let { chunkCacheWriter(it) }
+		if (requiresEncryptedTmpFile(cryptoFile.cloudFile)) {
+			readFromTmpFile(cryptoFile, data, progressAware, onCleartextChunk)
+		} else {
+			readStreaming(cryptoFile, data, progressAware, onCleartextChunk)
+		}
+	}
+
+	private fun chunkCacheKey(cryptoFile: CryptoFile): DecryptedChunkCache.FileKey? {
+		return DecryptedChunkCache.FileKey.of(cryptor(), cryptoFile.cloudFile)
+	}
+
+	private fun chunkCacheWriter(file: DecryptedChunkCache.FileKey): (Long, ByteBuffer) -> Unit {
+		return { chunkNumber, cleartext ->
+			chunkCache.put(file, chunkNumber, ByteArray(cleartext.remaining()).also { cleartext.get(it) })
+		}
+	}
+
+	/**
+	 * Writes the cleartext of the chunks `firstChunk` to `lastChunk` (inclusive) to `data` if all of them are cached.
+	 *
+	 * @return `false` if at least one chunk is not cached, nothing has been written then
+	 */
+	@Throws(BackendException::class)
+	private fun readFromChunkCache(file: DecryptedChunkCache.FileKey, firstChunk: Long, lastChunk: Long, data: OutputStream): Boolean {
+		if (firstChunk > lastChunk) {
+			return false
+		}
+		val cleartextChunks = ArrayList<ByteArray>()
+		for (chunkNumber in firstChunk..lastChunk) {
+			cleartextChunks.add(chunkCache.get(file, chunkNumber) ?: return false)
+		}
+		try {
+			cleartextChunks.forEach { data.write(it) }
+		} catch (e: IOException) {
+			throw FatalBackendException(e)
+		}
+		return true
+	}
+
+	fun evictFromChunkCache(node: CryptoNode) {
+		if (node is CryptoFile) {
+			chunkCache.evict(node.cloudFile.path)
+		}
+	}
+
+	/**
+	 * Moving or deleting nodes might remove the metadata files of shortened names, so they have to be written again when needed.
+	 */
+	fun forgetWrittenNameFiles() {
+		nameCache.forgetWrittenNameFiles()
+	}
+
+	/**
+	 * Only the backends maintaining a DiskLruCache need the downloaded ciphertext as file to be able to store it in the cache.
+	 */
+	private fun requiresEncryptedTmpFile(ciphertextFile: CloudFile): Boolean {
+		return ciphertextFile.cloud?.type() in LRU_CACHING_CLOUD_TYPES && SharedPreferencesHandler(context).useLruCache()
+	}
+
+	@Throws(BackendException::class)
+	private fun readStreaming(cryptoFile: CryptoFile, data: OutputStream, progressAware: ProgressAware<DownloadState>, onCleartextChunk: ((Long, ByteBuffer) -> Unit)?) {
+		try {
+			DecryptingOutputStream(data, cryptor(), true, onCleartextChunk = onCleartextChunk).use { decryptingOutputStream ->
+				cloudContentRepository.read(cryptoFile.cloudFile, null, decryptingOutputStream, DownloadFileReplacingProgressAware(cryptoFile, progressAware))
+			}
+			progressAware.onProgress(Progress.completed(DownloadState.decryption(cryptoFile)))
+		} catch (e: IOException) {
+			throw FatalBackendException(e)
+		}
+	}
+
+	@Throws(BackendException::class)
+	private fun readFromTmpFile(cryptoFile: CryptoFile, data: OutputStream, progressAware: ProgressAware<DownloadState>, onCleartextChunk: ((Long, ByteBuffer) -> Unit)?) {
 		val ciphertextFile = cryptoFile.cloudFile
 		try {
 			val encryptedTmpFile = readToTmpFile(cryptoFile, ciphertextFile, progressAware)
 			progressAware.onProgress(Progress.started(DownloadState.decryption(cryptoFile)))
 			try {
-				Channels.newChannel(FileInputStream(encryptedTmpFile)).use { readableByteChannel ->
-					DecryptingReadableByteChannel(readableByteChannel, cryptor(), true).use { decryptingReadableByteChannel ->
-						val buff = ByteBuffer.allocate(cryptor().fileContentCryptor().ciphertextChunkSize())
-						val cleartextSize = cryptoFile.size ?: Long.MAX_VALUE
-						var decrypted: Long = 0
-						var read: Int
-						while (decryptingReadableByteChannel.read(buff).also { read = it } > 0) {
-							buff.flip()
-							data.write(buff.array(), 0, buff.remaining())
-							decrypted += read.toLong()
-							progressAware
-								.onProgress(
-									Progress.progress(DownloadState.decryption(cryptoFile)) //
-										.between(0) //
-										.and(cleartextSize) //
-										.withValue(decrypted)
-								)
-						}
+				val cleartextSize = cryptoFile.size ?: Long.MAX_VALUE
+				val progressReportingData = object : TransferredBytesAwareOutputStream(data) {
+					override fun bytesTransferred(transferred: Long) {
+						progressAware.onProgress(
+							Progress.progress(DownloadState.decryption(cryptoFile)) //
+								.between(0) //
+								.and(cleartextSize) //
+								.withValue(transferred)
+						)
+					}
+				}
+				FileInputStream(encryptedTmpFile).use { ciphertext ->
+					DecryptingOutputStream(progressReportingData, cryptor(), true, onCleartextChunk = onCleartextChunk).use { decryptingOutputStream ->
+						CopyStream.copyStreamToStream(ciphertext, decryptingOutputStream)
 					}
 				}
 			} finally {
@@ -342,6 +463,103 @@ abstract class CryptoImplDecorator(
 		}
 	}
 
+	/**
+	 * Decrypts `length` cleartext bytes starting at the cleartext `offset` while fetching only the ciphertext chunks containing them.
+	 */
+	@Throws(BackendException::class)
+	fun read(cryptoFile: CryptoFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		read(cryptoFile, null, offset, length, data, progressAware)
+	}
+
+	/**
+	 * Like [read] but reuses the `header` if already known. Otherwise it is fetched separately if the range doesn't start within the first chunk.
+	 */
+	@Throws(BackendException::class)
+	fun read(cryptoFile: CryptoFile, header: FileHeader?, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		require(offset >= 0 && length >= 0) { "Invalid range" }
+		if (length == 0L) {
+			return
+		}
+		val cleartextChunkSize = cryptor().fileContentCryptor().cleartextChunkSize()
+		val ciphertextChunkSize = cryptor().fileContentCryptor().ciphertextChunkSize()
+		val headerSize = cryptor().fileHeaderCryptor().headerSize()
+		val end = if (length > Long.MAX_VALUE - offset) Long.MAX_VALUE else offset + length
+		val firstChunk = offset / cleartextChunkSize
+		val chunkCount = min((end - 1) / cleartextChunkSize - firstChunk + 1, (Long.MAX_VALUE - headerSize) / ciphertextChunkSize)
+		val cleartextRange = RangeOutputStream(data, offset - firstChunk * cleartextChunkSize, length)
+		val cleartextSize = cryptoFile.size
+		val cachedChunks = if (chunkCount <= Int.MAX_VALUE / cleartextChunkSize && chunkCache.accepts(chunkCount * cleartextChunkSize)) chunkCacheKey(cryptoFile) else null
+		if (cleartextSize != null && cleartextSize > 0 && cachedChunks != null) {
+			val lastChunk = min(firstChunk + chunkCount - 1, (cleartextSize - 1) / cleartextChunkSize)
+			if (readFromChunkCache(cachedChunks, firstChunk, lastChunk, cleartextRange)) {
+				return
+			}
+		}
+		val onCleartextChunk = cachedChunks?.let { chunkCacheWriter(it) }
+		try {
+			if (header == null && firstChunk == 0L) {
+				DecryptingOutputStream(cleartextRange, cryptor(), true, onCleartextChunk = onCleartextChunk).use { decryptingOutputStream ->
+					cloudContentRepository.read(cryptoFile.cloudFile, 0, headerSize + chunkCount * ciphertextChunkSize, decryptingOutputStream, DownloadFileReplacingProgressAware(cryptoFile, progressAware))
+				}
+			} else {
+				DecryptingOutputStream(cleartextRange, cryptor(), true, header ?: readHeader(cryptoFile), firstChunk, onCleartextChunk).use { decryptingOutputStream ->
+					val ciphertextOffset = headerSize + firstChunk * ciphertextChunkSize
+					cloudContentRepository.read(cryptoFile.cloudFile, ciphertextOffset, chunkCount * ciphertextChunkSize, decryptingOutputStream, DownloadFileReplacingProgressAware(cryptoFile, progressAware))
+				}
+			}
+		} catch (e: IOException) {
+			throw FatalBackendException(e)
+		}
+	}
+
+	@Throws(BackendException::class)
+	fun readHeader(cryptoFile: CryptoFile): FileHeader {
+		val headerSize = cryptor().fileHeaderCryptor().headerSize()
+		val out = ByteArrayOutputStream(headerSize)
+		cloudContentRepository.read(cryptoFile.cloudFile, 0, headerSize.toLong(), out, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
+		if (out.size() < headerSize) {
+			throw FatalBackendException(String.format("Incomplete file header in %s", cryptoFile.cloudFile.path))
+		}
+		return cryptor().fileHeaderCryptor().decryptHeader(ByteBuffer.wrap(out.toByteArray()))
+	}
+
+	/**
+	 * Fetches only the header and the first ciphertext chunk, e.g. for MIME type sniffing, thumbnails or a quick corruption check.
+	 *
+	 * The returned header can be passed to [read] to fetch further ranges without downloading it again.
+	 */
+	@Throws(BackendException::class)
+	fun probe(cryptoFile: CryptoFile): CryptoFileProbe {
+		val headerSize = cryptor().fileHeaderCryptor().headerSize()
+		val ciphertextChunkSize = cryptor().fileContentCryptor().ciphertextChunkSize()
+		val out = ByteArrayOutputStream(headerSize + ciphertextChunkSize)
+		cloudContentRepository.read(cryptoFile.cloudFile, 0, (headerSize + ciphertextChunkSize).toLong(), out, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
+		val ciphertext = out.toByteArray()
+		if (ciphertext.size < headerSize) {
+			Timber.tag("CryptoFs").w("Incomplete file header in %s", cryptoFile.cloudFile.path)
+			return CryptoFileProbe.corrupt(cryptoFile)
+		}
+		return try {
+			val header = cryptor().fileHeaderCryptor().decryptHeader(ByteBuffer.wrap(ciphertext, 0, headerSize))
+			val firstCleartextChunk = if (ciphertext.size > headerSize) {
+				val cleartextChunk = BufferPool.lease(ciphertextChunkSize)
+				try {
+					cryptor().fileContentCryptor().decryptChunk(ByteBuffer.wrap(ciphertext, headerSize, ciphertext.size - headerSize), cleartextChunk, 0, header, true)
+					cleartextChunk.flip()
+					ByteArray(cleartextChunk.remaining()).also { cleartextChunk.get(it) }
+				} finally {
+					BufferPool.release(cleartextChunk)
+				}
+			} else {
+				ByteArray(0)
+			}
+			CryptoFileProbe.intact(cryptoFile, header, firstCleartextChunk)
+		} catch (e: AuthenticationFailedException) {
+			Timber.tag("CryptoFs").w(e, "Header or first chunk of %s failed authentication", cryptoFile.cloudFile.path)
+			CryptoFileProbe.corrupt(cryptoFile)
+		}
+	}
+
 	@Throws(BackendException::class, IOException::class)
 	private fun readToTmpFile(cryptoFile: CryptoFile, file: CloudFile, progressAware: ProgressAware<DownloadState>): File {
 		val encryptedTmpFile = File.createTempFile(UUID.randomUUID().toString(), ".crypto", internalCache)
@@ -358,12 +576,119 @@ abstract class CryptoImplDecorator(
 
 	@Throws(BackendException::class)
 	fun getOrCreateCachingAwareDirIdInfo(folder: CryptoFolder): DirIdInfo {
-		return dirIdCache[folder] ?: return getOrCreateDirIdInfo(folder)
+		return dirIdCache[folder] ?: persistedDirIdInfo(folder, false) ?: return getOrCreateDirIdInfo(folder)
 	}
 
 	@Throws(BackendException::class)
 	fun getCachingAwareDirIdInfo(folder: CryptoFolder): DirIdInfo? {
-		return dirIdCache[folder] ?: return getDirIdInfo(folder)
+		return dirIdCache[folder] ?: persistedDirIdInfo(folder, false) ?: return getDirIdInfo(folder)?.also {
+			persistentDirIdCache.put(folder, it.id)
+		}
+	}
+
+	/**
+	 * @return the directory ID of the folder if it is cached or persisted, i.e. known without contacting the cloud. The directory ID may
+	 * not be verified yet, so it must only be used to read from the directory.
+	 */
+	@Throws(BackendException::class)
+	fun locallyKnownDirIdInfo(folder: CryptoFolder): DirIdInfo? {
+		return dirIdCache[folder] ?: if (RootCryptoFolder.isRoot(folder)) {
+			dirIdCache.put(folder, createDirIdInfoFor(CryptoConstants.ROOT_DIR_ID))
+		} else {
+			persistedDirIdInfo(folder, true)
+		}
+	}
+
+	/**
+	 * @return the node of the vault index entry, located in `parentDir` which is the directory of `parent`
+	 */
+	@Throws(BackendException::class)
+	fun indexedNode(parent: CryptoFolder, parentDir: CloudFolder, indexedNode: VaultIndex.IndexedNode): CryptoNode {
+		val segments = indexedNode.ciphertextPath.split("/")
+		var ciphertextParent = parentDir
+		segments.dropLast(1).forEach { ciphertextParent = cloudContentRepository.folder(ciphertextParent, it) }
+		return if (indexedNode.folder) {
+			folder(parent, indexedNode.name, cloudContentRepository.file(ciphertextParent, segments.last()))
+		} else {
+			CryptoFile(parent, indexedNode.name, path(parent, indexedNode.name), indexedNode.size, cloudContentRepository.file(ciphertextParent, segments.last()), indexedNode.modified)
+		}
+	}
+
+	/**
+	 * @return the persisted directory ID of the folder. Only directory IDs validated using the modification date of the dir file are
+	 * cached, as everything else uses the cache to write as well. Unvalidated ones are only returned if `forReading` and verified in the
+	 * background once per session, becoming cached as soon as they are verified.
+	 */
+	@Throws(BackendException::class)
+	private fun persistedDirIdInfo(folder: CryptoFolder, forReading: Boolean): DirIdInfo? {
+		val persisted = persistentDirIdCache.get(folder) ?: return null
+		if (persisted.validated) {
+			return dirIdCache.put(folder, createDirIdInfoFor(persisted.id))
+		}
+		if (!forReading) {
+			return null
+		}
+		if (verifiedPersistedDirIds.add(folder.path)) {
+			CloudRequestExecutor.submit(Callable { verifyPersistedDirId(folder, persisted.id) })
+		}
+		return createDirIdInfoFor(persisted.id)
+	}
+
+	private fun verifyPersistedDirId(folder: CryptoFolder, persistedDirId: String) {
+		try {
+			if (loadDirId(folder) == persistedDirId) {
+				if (dirIdCache[folder] == null) {
+					dirIdCache.put(folder, createDirIdInfoFor(persistedDirId))
+				}
+			} else {
+				Timber.tag("CryptoFs").i("Persisted directory ID of %s is outdated", folder.path)
+				evictFromCache(folder)
+			}
+		} catch (e: Exception) {
+			Timber.tag("CryptoFs").w(e, "Failed to verify persisted directory ID of %s", folder.path)
+		}
+	}
+
+	/**
+	 * Loads the directory IDs of (up to [MAX_PREFETCHED_DIR_IDS]) listed subfolders in the background, so listing one of them afterwards
+	 * doesn't have to read its dir file first. Prefetches of previous listings which haven't been sent yet are skipped.
+	 */
+	fun prefetchDirIds(nodes: List<CryptoNode>) {
+		val generation = prefetchGeneration.incrementAndGet()
+		nodes.asSequence() //
+			.filterIsInstance<CryptoFolder>() //
+			.filter { it.dirFile != null && dirIdCache[it] == null } //
+			.take(MAX_PREFETCHED_DIR_IDS) //
+			.forEach { folder -> CloudRequestExecutor.submit(Callable { prefetchDirId(folder, generation) }) }
+	}
+
+	private fun prefetchDirId(folder: CryptoFolder, generation: Long) {
+		if (prefetchGeneration.get() != generation || dirIdCache[folder] != null) {
+			return
+		}
+		try {
+			persistentDirIdCache.get(folder)?.takeIf { it.validated }?.let {
+				cachePrefetchedDirId(folder, createDirIdInfoFor(it.id), generation, false)
+				return
+			}
+			// reading the dir file right away saves checking its existence, folders without one fail to be read
+			val dirId = String(loadContentsOfDirFile(folder), StandardCharsets.UTF_8)
+			cachePrefetchedDirId(folder, createDirIdInfoFor(dirId), generation, true)
+		} catch (e: Exception) {
+			Timber.tag("CryptoFs").d("Failed to prefetch directory ID of %s: %s", folder.path, e.message)
+		}
+	}
+
+	private fun cachePrefetchedDirId(folder: CryptoFolder, dirIdInfo: DirIdInfo, generation: Long, persist: Boolean) {
+		synchronized(prefetchLock) {
+			if (prefetchGeneration.get() != generation) {
+				return
+			}
+			dirIdCache.put(folder, dirIdInfo)
+			if (persist) {
+				persistentDirIdCache.put(folder, dirIdInfo.id)
+			}
+		}
 	}
 
 	@Throws(BackendException::class)
@@ -421,7 +746,13 @@ abstract class CryptoImplDecorator(
 	}
 
 	fun evictFromCache(cryptoFolder: CryptoFolder) {
+		synchronized(prefetchLock) {
+			prefetchGeneration.incrementAndGet()
+		}
+		resolvedPaths.invalidate(cryptoFolder)
 		dirIdCache.evict(cryptoFolder)
+		persistentDirIdCache.evict(cryptoFolder)
+		verifiedPersistedDirIds.remove(cryptoFolder.path)
 	}
 
 	@Throws(BackendException::class)
@@ -429,37 +760,36 @@ abstract class CryptoImplDecorator(
 		if (!replace) {
 			assertCryptoFileAlreadyExists(cryptoFile)
 		}
-		try {
-			data.open(context)?.use { stream ->
-				requireNotNull(cryptoFile.size)
-				val encryptedTmpFile = File.createTempFile(UUID.randomUUID().toString(), ".crypto", internalCache)
-				try {
-					Channels.newChannel(FileOutputStream(encryptedTmpFile)).use { writableByteChannel ->
-						EncryptingWritableByteChannel(writableByteChannel, cryptor()).use { encryptingWritableByteChannel ->
-							progressAware.onProgress(Progress.started(UploadState.encryption(cryptoFile)))
-							val buff = ByteBuffer.allocate(cryptor().fileContentCryptor().cleartextChunkSize())
-							val ciphertextSize = cryptor().fileContentCryptor().ciphertextSize(cryptoFile.size) + cryptor().fileHeaderCryptor().headerSize()
-							var read: Int
-							var encrypted: Long = 0
-							while (stream.read(buff.array()).also { read = it } > 0) {
-								buff.limit(read)
-								val written = encryptingWritableByteChannel.write(buff)
-								buff.flip()
-								encrypted += written.toLong()
-								progressAware.onProgress(Progress.progress(UploadState.encryption(cryptoFile)).between(0).and(ciphertextSize).withValue(encrypted))
-							}
-							encryptingWritableByteChannel.close()
-							data.modifiedDate(context).ifPresent { encryptedTmpFile.setLastModified(it.time) }
-							progressAware.onProgress(Progress.completed(UploadState.encryption(cryptoFile)))
-							return writeFromTmpFile(data, cryptoFile, encryptedTmpFile, progressAware, replace)
-						}
-					}
-				} finally {
-					encryptedTmpFile.delete()
-				}
-			} ?: throw IllegalStateException("InputStream shouldn't be null")
-		} catch (e: IOException) {
-			throw FatalBackendException(e)
-		}
+		val size = data.size(context) ?: requireNotNull(cryptoFile.size)
+		val targetFile = targetFile(cryptoFile, replace)
+		return file(
+			targetFile,  //
+			cloudContentRepository.write( //
+				targetFile.cloudFile,  //
+				encryptingDataSource(data, size), //
+				UploadFileReplacingProgressAware(cryptoFile, progressAware),  //
+				replace,  //
+				ciphertextSize(size)
+			),  //
+			cryptoFile.size
+		)
+	}
+
+	/**
+	 * @return a data source providing the ciphertext of `data` which is encrypted chunk by chunk while the backend uploads it
+	 */
+	fun encryptingDataSource(data: DataSource, cleartextSize: Long): DataSource {
+		return data.decorate(EncryptingDataSource(data, cryptor(), cleartextSize))
+	}
+
+	fun ciphertextSize(cleartextSize: Long): Long {
+		return EncryptingDataSource.ciphertextSize(cryptor(), cleartextSize)
+	}
+
+	companion object {
+
+		private const val MAX_PREFETCHED_DIR_IDS = 32
+
+		private val LRU_CACHING_CLOUD_TYPES = setOf(CloudType.DROPBOX, CloudType.GOOGLE_DRIVE, CloudType.ONEDRIVE, CloudType.PCLOUD)
 	}
 }
@@ -24,17 +24,14 @@ import org.cryptomator.domain.usecases.ProgressAware
 import org.cryptomator.domain.usecases.UploadFileReplacingProgressAware
 import org.cryptomator.domain.usecases.cloud.ByteArrayDataSource.Companion.from
 import org.cryptomator.domain.usecases.cloud.DataSource
-import org.cryptomator.domain.usecases.cloud.FileBasedDataSource.Companion.from
-import org.cryptomator.domain.usecases.cloud.Progress
 import org.cryptomator.domain.usecases.cloud.UploadState
 import java.io.ByteArrayOutputStream
-import java.io.File
-import java.io.FileOutputStream
 import java.io.IOException
 import java.nio.ByteBuffer
 import java.nio.channels.Channels
 import java.nio.charset.StandardCharsets
-import java.util.UUID
+import java.util.concurrent.Callable
+import java.util.function.Consumer
 import java.util.function.Supplier
 import java.util.regex.Pattern
 import timber.log.Timber
@@ -45,9 +42,11 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 		cryptor: Supplier<Cryptor>,
 		cloudContentRepository: CloudContentRepository<Cloud, CloudNode, CloudFolder, CloudFile>,
 		storageLocation: CloudFolder,
-		dirIdCache: DirIdCache
+		dirIdCache: DirIdCache,
+		chunkCache: DecryptedChunkCache = DecryptedChunkCache.DISABLED,
+		persistentDirIdCache: PersistentDirIdCache = PersistentDirIdCache.DISABLED
 	) : super(
-		context, cryptor, cloudContentRepository, storageLocation, dirIdCache, CryptoConstants.DEFAULT_MAX_FILE_NAME
+		context, cryptor, cloudContentRepository, storageLocation, dirIdCache, CryptoConstants.DEFAULT_MAX_FILE_NAME, chunkCache, persistentDirIdCache
 	)
 
 	constructor(
@@ -56,9 +55,11 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 		cloudContentRepository: CloudContentRepository<Cloud, CloudNode, CloudFolder, CloudFile>,
 		storageLocation: CloudFolder,
 		dirIdCache: DirIdCache,
-		shorteningThreshold: Int
+		shorteningThreshold: Int,
+		chunkCache: DecryptedChunkCache = DecryptedChunkCache.DISABLED,
+		persistentDirIdCache: PersistentDirIdCache = PersistentDirIdCache.DISABLED
 	) : super(
-		context, cryptor, cloudContentRepository, storageLocation, dirIdCache, shorteningThreshold
+		context, cryptor, cloudContentRepository, storageLocation, dirIdCache, shorteningThreshold, chunkCache, persistentDirIdCache
 	)
 
 	@Throws(BackendException::class)
@@ -71,13 +72,17 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 
 	@Throws(BackendException::class)
 	override fun encryptName(cryptoParent: CryptoFolder, name: String): String {
-		var ciphertextName: String = cryptor() //
+		val dirId = getOrCreateCachingAwareDirIdInfo(cryptoParent).id
+		val ciphertextName = nameCache.get(cryptor(), dirId, "", name) ?: (cryptor() //
 			.fileNameCryptor() //
-			.encryptFilename(BaseEncoding.base64Url(), name, getOrCreateCachingAwareDirIdInfo(cryptoParent).id.toByteArray(StandardCharsets.UTF_8)) + CLOUD_NODE_EXT
-		if (ciphertextName.length > shorteningThreshold) {
-			ciphertextName = deflate(cryptoParent, ciphertextName)
+			.encryptFilename(BaseEncoding.base64Url(), name, dirId.toByteArray(StandardCharsets.UTF_8)) + CLOUD_NODE_EXT).also {
+			nameCache.put(cryptor(), dirId, "", name, it)
+		}
+		return if (ciphertextName.length > shorteningThreshold) {
+			deflate(cryptoParent, ciphertextName)
+		} else {
+			ciphertextName
 		}
-		return ciphertextName
 	}
 
 	@Throws(BackendException::class)
@@ -86,6 +91,9 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 		val hash = MessageDigestSupplier.SHA1.get().digest(longFilenameBytes)
 		val shortFileName = BaseEncoding.base64Url().encode(hash) + LONG_NODE_FILE_EXT
 		var dirFolder = cloudContentRepository.folder(getOrCreateCachingAwareDirIdInfo(cryptoParent).cloudFolder, shortFileName)
+		if (nameCache.isNameFileWritten(cryptor(), dirFolder.path)) {
+			return shortFileName
+		}
 
 		// if folder already exists in case of renaming
 		if (!cloudContentRepository.exists(dirFolder)) {
@@ -95,33 +103,17 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 		val data = longFileName.toByteArray(StandardCharsets.UTF_8)
 		val cloudFile = cloudContentRepository.file(dirFolder, LONG_NODE_FILE_CONTENT_NAME + LONG_NODE_FILE_EXT, data.size.toLong())
 		cloudContentRepository.write(cloudFile, from(data), ProgressAware.NO_OP_PROGRESS_AWARE_UPLOAD, true, data.size.toLong())
+		nameCache.nameFileWritten(cryptor(), dirFolder.path)
 		return shortFileName
 	}
 
 	@Throws(BackendException::class)
-	private fun inflate(cloudNode: CloudNode): String {
-		val metadataFile = metadataFile(cloudNode)
+	private fun inflate(nameFile: CloudFile): String {
 		val out = ByteArrayOutputStream()
-		cloudContentRepository.read(metadataFile, null, out, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
+		cloudContentRepository.read(nameFile, null, out, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
 		return String(out.toByteArray(), StandardCharsets.UTF_8)
 	}
 
-	@Throws(BackendException::class)
-	private fun metadataFile(cloudNode: CloudNode): CloudFile {
-		val cloudFolder = when (cloudNode) {
-			is CloudFile -> {
-				cloudNode.parent
-			}
-			is CloudFolder -> {
-				cloudNode
-			}
-			else -> {
-				throw IllegalStateException("Should be file or folder")
-			}
-		}
-		return cloudContentRepository.file(cloudFolder, LONG_NODE_FILE_CONTENT_NAME + LONG_NODE_FILE_EXT)
-	}
-
 	override fun decryptName(dirId: String, encryptedName: String): String? {
 		return extractEncryptedName(encryptedName)?.let {
 			return cryptor().fileNameCryptor().decryptFilename(BaseEncoding.base64Url(), it, dirId.toByteArray(StandardCharsets.UTF_8))
@@ -130,6 +122,15 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 
 	@Throws(BackendException::class)
 	override fun list(cryptoFolder: CryptoFolder): List<CryptoNode> {
+		return list(cryptoFolder) {}
+	}
+
+	/**
+	 * Decrypts the pages of the underlying listing as they arrive, so the first nodes of a huge folder are available before all nodes are
+	 * listed.
+	 */
+	@Throws(BackendException::class)
+	override fun list(cryptoFolder: CryptoFolder, onPage: Consumer<List<CryptoNode>>): List<CryptoNode> {
 		dirIdCache.evictSubFoldersOf(cryptoFolder)
 
 		val dirIdInfo = getCachingAwareDirIdInfo(cryptoFolder)
@@ -147,8 +148,15 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 		val dirId = dirIdInfo.id
 		val lvl2Dir = dirIdInfo.cloudFolder
 
-		return try {
-			cloudContentRepository.list(lvl2Dir)
+		val cleartextNodes = ArrayList<CryptoNode>()
+		try {
+			cloudContentRepository.listInPages(lvl2Dir) { page ->
+				val cleartextPage = ciphertextToCleartextNodes(cryptoFolder, dirId, page)
+				cleartextNodes.addAll(cleartextPage)
+				if (cleartextPage.isNotEmpty()) {
+					onPage.accept(cleartextPage)
+				}
+			}
 		} catch (e: NoSuchCloudFileException) {
 			when {
 				cryptoFolder is RootCryptoFolder -> {
@@ -164,35 +172,73 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 				}
 				else -> return emptyList()
 			}
-		}.map { node ->
-			ciphertextToCleartextNode(cryptoFolder, dirId, node)
-		}.toList().filterNotNull()
+		}
+		return cleartextNodes
 	}
 
 	@Throws(BackendException::class)
-	private fun ciphertextToCleartextNode(cryptoFolder: CryptoFolder, dirId: String, cloudNode: CloudNode): CryptoNode? {
-		var ciphertextName = cloudNode.name
+	private fun ciphertextToCleartextNodes(cryptoFolder: CryptoFolder, dirId: String, cloudNodes: List<CloudNode>): List<CryptoNode> {
+		// resolve the names of shortened nodes with concurrent requests while the names of regular nodes are decrypted on all cores
+		val longNodeIndices = cloudNodes.indices.filter { isLongNode(cloudNodes[it]) }
+		val longNodes = ParallelMapping.startBlocking(longNodeIndices) { longNodeToCleartextNode(cryptoFolder, dirId, cloudNodes[it]) }
+		val cleartextNames = ParallelMapping.start(cloudNodes) { node ->
+			if (isLongNode(node)) null else decryptListedName(dirId, node, ciphertextNameOf(node))
+		}
+		val longNodesByIndex = try {
+			longNodeIndices.zip(longNodes.await()).toMap()
+		} catch (e: Exception) {
+			cleartextNames.cancel()
+			throw e
+		}
+		val names = cleartextNames.await()
+		return cloudNodes.indices.mapNotNull { index ->
+			if (isLongNode(cloudNodes[index])) {
+				longNodesByIndex[index]
+			} else {
+				names[index]?.let { cloudNodeFromName(cloudNodes[index], cryptoFolder, it, null, null) }
+			}
+		}
+	}
+
+	private fun isLongNode(cloudNode: CloudNode): Boolean {
+		return cloudNode.name.endsWith(LONG_NODE_FILE_EXT)
+	}
+
+	private fun ciphertextNameOf(cloudNode: CloudNode): String {
+		return if (cloudNode.name.endsWith(CLOUD_NODE_EXT)) {
+			nameWithoutExtension(cloudNode.name)
+		} else {
+			cloudNode.name
+		}
+	}
+
+	@Throws(BackendException::class)
+	private fun longNodeToCleartextNode(cryptoFolder: CryptoFolder, dirId: String, cloudNode: CloudNode): CryptoNode? {
+		var nameFile: CloudFile? = null
 		var longNameFolderDirFile: CloudFile? = null
 		var longNameFile: CloudFile? = null
 
-		if (ciphertextName.endsWith(CLOUD_NODE_EXT)) {
-			ciphertextName = nameWithoutExtension(ciphertextName)
-		} else if (ciphertextName.endsWith(LONG_NODE_FILE_EXT)) {
-			ciphertextName = (longNodeCiphertextName(cloudNode) ?: return null)
-			for (node in cloudContentRepository.list((cloudNode as CloudFolder))) {
-				when (node.name) {
-					LONG_NODE_FILE_CONTENT_CONTENTS + CLOUD_NODE_EXT -> longNameFile = node as CloudFile
-					CLOUD_FOLDER_DIR_FILE_PRE + CLOUD_NODE_EXT -> longNameFolderDirFile = node as CloudFile
-				}
+		// the listing already contains the name file, so reading it doesn't require another request to resolve it
+		for (node in cloudContentRepository.list((cloudNode as CloudFolder))) {
+			when (node.name) {
+				LONG_NODE_FILE_CONTENT_NAME + LONG_NODE_FILE_EXT -> nameFile = node as CloudFile
+				LONG_NODE_FILE_CONTENT_CONTENTS + CLOUD_NODE_EXT -> longNameFile = node as CloudFile
+				CLOUD_FOLDER_DIR_FILE_PRE + CLOUD_NODE_EXT -> longNameFolderDirFile = node as CloudFile
 			}
 		}
+		val ciphertextName = longNodeCiphertextName(cloudNode, nameFile) ?: return null
+		return decryptListedName(dirId, cloudNode, ciphertextName)?.let {
+			cloudNodeFromName(cloudNode, cryptoFolder, it, longNameFile, longNameFolderDirFile)
+		}
+	}
+
+	private fun decryptListedName(dirId: String, cloudNode: CloudNode, ciphertextName: String): String? {
 		return try {
-			val cleartextName = decryptName(dirId, ciphertextName)
-			if (cleartextName == null) {
-				Timber.tag("CryptoFs").w("Failed to parse cipher text name of: %s", cloudNode.path)
-				return null
+			decryptName(dirId, ciphertextName).also {
+				if (it == null) {
+					Timber.tag("CryptoFs").w("Failed to parse cipher text name of: %s", cloudNode.path)
+				}
 			}
-			cloudNodeFromName(cloudNode, cryptoFolder, cleartextName, longNameFile, longNameFolderDirFile)
 		} catch (e: AuthenticationFailedException) {
 			Timber.tag("CryptoFs").w(e, "File/Folder name authentication failed: %s", cloudNode.path)
 			null
@@ -240,9 +286,13 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 		return null
 	}
 
-	private fun longNodeCiphertextName(cloudNode: CloudNode): String? {
+	private fun longNodeCiphertextName(cloudNode: CloudNode, nameFile: CloudFile?): String? {
+		if (nameFile == null) {
+			Timber.tag("CryptoFs").e("Missing %s%s for cloud node: %s", LONG_NODE_FILE_CONTENT_NAME, LONG_NODE_FILE_EXT, cloudNode.path)
+			return null
+		}
 		return try {
-			val ciphertextName = inflate(cloudNode)
+			val ciphertextName = inflate(nameFile)
 			nameWithoutExtension(ciphertextName)
 		} catch (e: NoSuchCloudFileException) {
 			Timber.tag("CryptoFs").e("Missing %s%s for cloud node: %s", LONG_NODE_FILE_CONTENT_NAME, LONG_NODE_FILE_EXT, cloudNode.path)
@@ -301,32 +351,56 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 		}
 	}
 
+	/**
+	 * Creates the folder sending independent requests concurrently: whether the folder already exists is checked while the directory of a
+	 * new directory ID is created, the backup of the directory ID is uploaded in the background afterwards. A new directory ID is only
+	 * cached once the folder has been created successfully.
+	 */
 	@Throws(BackendException::class)
 	override fun create(folder: CryptoFolder): CryptoFolder {
 		requireNotNull(folder.dirFile)
-		var shortName = false
-		if (folder.dirFile.parent.name.endsWith(LONG_NODE_FILE_EXT)) {
-			assertCryptoLongDirFileAlreadyExists(folder)
-		} else {
-			assertCryptoFolderAlreadyExists(folder)
-			shortName = true
+		val parent = folder.parent ?: throw ParentFolderIsNullException(folder.name)
+		val shortName = !folder.dirFile.parent.name.endsWith(LONG_NODE_FILE_EXT)
+		val cachedDirIdInfo = dirIdCache[folder]
+		val dirIdInfo = cachedDirIdInfo ?: createDirIdInfoFor(newDirId())
+
+		// the directory of a new directory ID can't exist yet, so it's safe to create it before knowing whether the folder exists
+		val lvl2DirCreation = if (cachedDirIdInfo == null) createFolderInBackground(dirIdInfo.cloudFolder) else null
+		val existingNodes = listOfNotNull(folder.dirFile, if (shortName) file(parent, folder.name).cloudFile else null)
+		if (ParallelMapping.startBlocking(existingNodes) { cloudContentRepository.exists(it) }.await().any { it == true }) {
+			lvl2DirCreation?.let { discardNewDirectory(dirIdInfo, it) }
+			throw CloudNodeAlreadyExistsException(folder.name)
 		}
-		val dirIdInfo = getOrCreateCachingAwareDirIdInfo(folder)
-		val createdCloudFolder = cloudContentRepository.create(dirIdInfo.cloudFolder)
-		var dirFolder = folder.dirFile.parent
+
+		val createdCloudFolder = lvl2DirCreation ?: createFolderInBackground(dirIdInfo.cloudFolder)
 		var dirFile = folder.dirFile
 		if (shortName) {
-			dirFolder = cloudContentRepository.create(dirFolder)
+			val dirFolder = cloudContentRepository.create(folder.dirFile.parent)
 			dirFile = cloudContentRepository.file(dirFolder, folder.dirFile.name)
 		}
+		// the dir file must not reference a directory which failed to be created
+		val lvl2Dir = requireNotNull(createdCloudFolder.await()[0])
 		val dirId = dirIdInfo.id.toByteArray(StandardCharsets.UTF_8)
 		val createdDirFile = cloudContentRepository.write(dirFile, from(dirId), ProgressAware.NO_OP_PROGRESS_AWARE_UPLOAD, false, dirId.size.toLong())
 		val result = folder(folder, createdDirFile)
-		addFolderToCache(result, dirIdInfo.withCloudFolder(createdCloudFolder))
-		silentlyUploadBackupDirIdFile(dirId, createdCloudFolder)
+		addFolderToCache(result, dirIdInfo.withCloudFolder(lvl2Dir))
+		CloudRequestExecutor.submit(Callable { silentlyUploadBackupDirIdFile(dirId, lvl2Dir) })
 		return result
 	}
 
+	private fun createFolderInBackground(folder: CloudFolder): ParallelMapping<CloudFolder> {
+		return ParallelMapping.startRequest { cloudContentRepository.create(folder) }
+	}
+
+	private fun discardNewDirectory(dirIdInfo: DirIdInfo, lvl2DirCreation: ParallelMapping<CloudFolder>) {
+		try {
+			lvl2DirCreation.await()
+			CloudRequestExecutor.submit(Callable { cloudContentRepository.delete(dirIdInfo.cloudFolder) })
+		} catch (e: BackendException) {
+			Timber.tag("CryptoFs").w(e, "Failed to create directory of an already existing folder")
+		}
+	}
+
 	private fun silentlyUploadBackupDirIdFile(dirId: ByteArray, dirFolder: CloudFolder) {
 		val data = ByteArrayOutputStream()
 
@@ -432,15 +506,7 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 	override fun delete(node: CloudNode) {
 		if (node is CryptoFolder) {
 			requireNotNull(node.dirFile)
-			val cryptoSubfolders = deepCollectSubfolders(node)
-			for (cryptoSubfolder in cryptoSubfolders) {
-				getCachingAwareDirIdInfo(cryptoSubfolder)?.let {
-					cloudContentRepository.delete(it.cloudFolder)
-				} ?: Timber.tag("CryptoFs").w("Dir file doesn't exists of a sub folder while deleting the parent, continue anyway")
-			}
-			getCachingAwareDirIdInfo(node)?.let {
-				cloudContentRepository.delete(it.cloudFolder)
-			} ?: Timber.tag("CryptoFs").w("Dir file doesn't exists while deleting the folder, continue anyway")
+			deleteDirectories(node)
 			cloudContentRepository.delete(node.dirFile.parent)
 			evictFromCache(node)
 		} else if (node is CryptoFile) {
@@ -466,50 +532,19 @@ open class CryptoImplVaultFormat7 : CryptoImplDecorator {
 		val dirFolder = cloudContentRepository.folder(cryptoFile.cloudFile.parent, cryptoFile.cloudFile.name)
 		val cloudFile = cloudContentRepository.file(dirFolder, LONG_NODE_FILE_CONTENT_CONTENTS + CLOUD_NODE_EXT, data.size(context))
 		assertCryptoLongDirFileAlreadyExists(dirFolder)
-		try {
-			data.open(context)?.use { stream ->
-				val encryptedTmpFile = File.createTempFile(UUID.randomUUID().toString(), ".crypto", internalCache)
-				try {
-					Channels.newChannel(FileOutputStream(encryptedTmpFile)).use { writableByteChannel ->
-						EncryptingWritableByteChannel(writableByteChannel, cryptor()).use { encryptingWritableByteChannel ->
-							cloudFile.size?.let { size ->
-								progressAware.onProgress(Progress.started(UploadState.encryption(cloudFile)))
-								val buff = ByteBuffer.allocate(cryptor().fileContentCryptor().cleartextChunkSize())
-								val ciphertextSize = cryptor().fileContentCryptor().ciphertextSize(size) + cryptor().fileHeaderCryptor().headerSize()
-								var read: Int
-								var encrypted: Long = 0
-								while (stream.read(buff.array()).also { read = it } > 0) {
-									buff.limit(read)
-									val written = encryptingWritableByteChannel.write(buff)
-									buff.flip()
-									encrypted += written.toLong()
-									progressAware.onProgress(Progress.progress(UploadState.encryption(cloudFile)).between(0).and(ciphertextSize).withValue(encrypted))
-								}
-								encryptingWritableByteChannel.close()
-								data.modifiedDate(context).ifPresent { encryptedTmpFile.setLastModified(it.time) }
-								progressAware.onProgress(Progress.completed(UploadState.encryption(cloudFile)))
-								val targetFile = targetFile(cryptoFile, cloudFile, replace)
-								return file(
-									cryptoFile,  //
-									cloudContentRepository.write( //
-										targetFile,  //
-										data.decorate(from(encryptedTmpFile)),
-										UploadFileReplacingProgressAware(cryptoFile, progressAware),  //
-										replace,  //
-										encryptedTmpFile.length()
-									),  //
-									cryptoFile.size
-								)
-							} ?: throw FatalBackendException("CloudFile size shouldn't be null")
-						}
-					}
-				} finally {
-					encryptedTmpFile.delete()
-				}
-			} ?: throw FatalBackendException("InputStream shouldn't be null")
-		} catch (e: IOException) {
-			throw FatalBackendException(e)
-		}
+		val size = cloudFile.size ?: throw FatalBackendException("CloudFile size shouldn't be null")
+		val targetFile = targetFile(cryptoFile, cloudFile, replace)
+		return file(
+			cryptoFile,  //
+			cloudContentRepository.write( //
+				targetFile,  //
+				encryptingDataSource(data, size), //
+				UploadFileReplacingProgressAware(cryptoFile, progressAware),  //
+				replace,  //
+				ciphertextSize(size)
+			),  //
+			cryptoFile.size
+		)
 	}
 
 	@Throws(BackendException::class)
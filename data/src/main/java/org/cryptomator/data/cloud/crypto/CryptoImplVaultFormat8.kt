@@ -15,7 +15,9 @@ class CryptoImplVaultFormat8 internal constructor(
 	cloudContentRepository: CloudContentRepository<Cloud, CloudNode, CloudFolder, CloudFile>,
 	storageLocation: CloudFolder,
 	dirIdCache: DirIdCache,
-	shorteningThreshold: Int
+	shorteningThreshold: Int,
+	chunkCache: DecryptedChunkCache,
+	persistentDirIdCache: PersistentDirIdCache
 ) : CryptoImplVaultFormat7(
-	context, cryptor, cloudContentRepository, storageLocation, dirIdCache, shorteningThreshold
+	context, cryptor, cloudContentRepository, storageLocation, dirIdCache, shorteningThreshold, chunkCache, persistentDirIdCache
 )
@@ -35,10 +35,13 @@ internal class CryptoImplVaultFormatPre7(
 	cryptor: Supplier<Cryptor>,
 	cloudContentRepository: CloudContentRepository<Cloud, CloudNode, CloudFolder, CloudFile>,
 	storageLocation: CloudFolder,
-	dirIdCache: DirIdCache
+	dirIdCache: DirIdCache,
+	chunkCache: DecryptedChunkCache = DecryptedChunkCache.DISABLED,
+	persistentDirIdCache: PersistentDirIdCache = PersistentDirIdCache.DISABLED,
+	private val longNameCache: PersistentLongNameCache = PersistentLongNameCache.DISABLED
 ) :
 	CryptoImplDecorator(
-		context, cryptor, cloudContentRepository, storageLocation, dirIdCache, SHORTENING_THRESHOLD
+		context, cryptor, cloudContentRepository, storageLocation, dirIdCache, SHORTENING_THRESHOLD, chunkCache, persistentDirIdCache
 	) {
 
 	@Throws(BackendException::class)
@@ -68,11 +71,15 @@ internal class CryptoImplVaultFormatPre7(
 
 	@Throws(BackendException::class)
 	private fun encryptName(cryptoParent: CryptoFolder, name: String, prefix: String): String {
-		var ciphertextName = prefix + cryptor().fileNameCryptor().encryptFilename(BaseEncoding.base32(), name, getOrCreateCachingAwareDirIdInfo(cryptoParent).id.toByteArray(StandardCharsets.UTF_8))
-		if (ciphertextName.length > shorteningThreshold) {
-			ciphertextName = deflate(ciphertextName)
+		val dirId = getOrCreateCachingAwareDirIdInfo(cryptoParent).id
+		val ciphertextName = nameCache.get(cryptor(), dirId, prefix, name) ?: (prefix + cryptor().fileNameCryptor().encryptFilename(BaseEncoding.base32(), name, dirId.toByteArray(StandardCharsets.UTF_8))).also {
+			nameCache.put(cryptor(), dirId, prefix, name, it)
+		}
+		return if (ciphertextName.length > shorteningThreshold) {
+			deflate(ciphertextName)
+		} else {
+			ciphertextName
 		}
-		return ciphertextName
 	}
 
 	@Throws(BackendException::class)
@@ -81,12 +88,17 @@ internal class CryptoImplVaultFormatPre7(
 		val hash = MessageDigestSupplier.SHA1.get().digest(longFilenameBytes)
 		val shortFileName = BASE32.encodeAsString(hash) + LONG_NAME_FILE_EXT
 		val metadataFile = metadataFile(shortFileName)
+		if (nameCache.isNameFileWritten(cryptor(), metadataFile.path)) {
+			return shortFileName
+		}
 		val data = longFileName.toByteArray(StandardCharsets.UTF_8)
 		try {
 			cloudContentRepository.create(metadataFile.parent)
 		} catch (e: AlreadyExistException) {
 		}
 		cloudContentRepository.write(metadataFile, from(data), ProgressAware.NO_OP_PROGRESS_AWARE_UPLOAD, true, data.size.toLong())
+		nameCache.nameFileWritten(cryptor(), metadataFile.path)
+		longNameCache.put(shortFileName, longFileName)
 		return shortFileName
 	}
 
@@ -98,6 +110,37 @@ internal class CryptoImplVaultFormatPre7(
 		return String(out.toByteArray(), StandardCharsets.UTF_8)
 	}
 
+	/**
+	 * @return the long names of the shortened nodes, taken from the database if persisted before and read from their metadata files
+	 * concurrently otherwise. Short names whose metadata file can't be read are missing in the result.
+	 */
+	@Throws(BackendException::class)
+	private fun inflateAll(shortFileNames: List<String>): Map<String, String> {
+		if (shortFileNames.isEmpty()) {
+			return emptyMap()
+		}
+		val persisted = longNameCache.getAll(shortFileNames)
+		val missing = shortFileNames.filter { it !in persisted }
+		val inflated = missing //
+			.zip(ParallelMapping.startBlocking(missing) { inflateOrNull(it) }.await()) //
+			.mapNotNull { (shortFileName, longFileName) -> longFileName?.let { shortFileName to it } } //
+			.toMap()
+		longNameCache.putAll(inflated)
+		return persisted + inflated
+	}
+
+	private fun inflateOrNull(shortFileName: String): String? {
+		return try {
+			inflate(shortFileName)
+		} catch (e: NoSuchCloudFileException) {
+			Timber.tag("CryptoFs").e("Missing mFile: %s", shortFileName)
+			null
+		} catch (e: BackendException) {
+			Timber.tag("CryptoFs").e(e, "Failed to read mFile: %s", shortFileName)
+			null
+		}
+	}
+
 	@Throws(BackendException::class)
 	private fun inflatePermanently(cloudFile: CloudFile, longFileName: String): CloudFile {
 		Timber.tag("CryptoFs").i("inflatePermanently: %s -> %s", cloudFile.name, longFileName)
@@ -123,32 +166,26 @@ internal class CryptoImplVaultFormatPre7(
 		val dirIdInfo = getDirIdInfo(cryptoFolder) ?: throw NoDirFileException(cryptoFolder.name, cryptoFolder.dirFile?.path)
 		val dirId = dirIdInfo.id
 		val lvl2Dir = dirIdInfo.cloudFolder
-		return cloudContentRepository
-			.list(lvl2Dir)
-			.filterIsInstance<CloudFile>()
-			.map { node ->
-				ciphertextToCleartextNode(cryptoFolder, dirId, node)
-			}
-			.toList()
-			.filterNotNull()
+		val cloudFiles = cloudContentRepository.list(lvl2Dir).filterIsInstance<CloudFile>()
+		val longFileNames = inflateAll(cloudFiles.map { it.name }.filter { it.endsWith(LONG_NAME_FILE_EXT) })
+		return cloudFiles.mapNotNull { node ->
+			ciphertextToCleartextNode(cryptoFolder, dirId, node, longFileNames)
+		}
 	}
 
 	@Throws(BackendException::class)
-	private fun ciphertextToCleartextNode(cryptoFolder: CryptoFolder, dirId: String, cloudNode: CloudFile): CryptoNode? {
+	private fun ciphertextToCleartextNode(cryptoFolder: CryptoFolder, dirId: String, cloudNode: CloudFile, longFileNames: Map<String, String>): CryptoNode? {
 		var cloudFile = cloudNode
 		var ciphertextName = cloudFile.name
 		if (ciphertextName.endsWith(LONG_NAME_FILE_EXT)) {
-			try {
-				ciphertextName = inflate(ciphertextName)
-				if (ciphertextName.length <= shorteningThreshold) {
+			ciphertextName = longFileNames[ciphertextName] ?: return null
+			if (ciphertextName.length <= shorteningThreshold) {
+				try {
 					cloudFile = inflatePermanently(cloudFile, ciphertextName)
+				} catch (e: BackendException) {
+					Timber.tag("CryptoFs").e(e, "Failed to inflate mFile: %s", cloudFile.name)
+					return null
 				}
-			} catch (e: NoSuchCloudFileException) {
-				Timber.tag("CryptoFs").e("Missing mFile: %s", ciphertextName)
-				return null
-			} catch (e: BackendException) {
-				Timber.tag("CryptoFs").e(e, "Failed to read mFile: %s", ciphertextName)
-				return null
 			}
 		}
 		val cleartextName: String? = try {
@@ -235,15 +272,7 @@ internal class CryptoImplVaultFormatPre7(
 	override fun delete(node: CloudNode) {
 		if (node is CryptoFolder) {
 			requireNotNull(node.dirFile)
-			val cryptoSubfolders = deepCollectSubfolders(node)
-			for (cryptoSubfolder in cryptoSubfolders) {
-				getCachingAwareDirIdInfo(cryptoSubfolder)?.let {
-					cloudContentRepository.delete(it.cloudFolder)
-				} ?: Timber.tag("CryptoFs").w("Dir file doesn't exists of a sub folder while deleting the parent, continue anyway")
-			}
-			getCachingAwareDirIdInfo(node)?.let {
-				cloudContentRepository.delete(it.cloudFolder)
-			} ?: Timber.tag("CryptoFs").w("Dir file doesn't exists while deleting the folder, continue anyway")
+			deleteDirectories(node)
 			cloudContentRepository.delete(node.dirFile)
 			evictFromCache(node)
 		} else if (node is CryptoFile) {
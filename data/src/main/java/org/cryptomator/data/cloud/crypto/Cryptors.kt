@@ -22,6 +22,11 @@ abstract class Cryptors internal constructor() {
 
 	abstract fun replace(old: Vault, updated: Vault, cryptor: Cryptor)
 
+	/**
+	 * @return the cache of decrypted chunks of all vaults unlocked in this instance
+	 */
+	abstract fun chunkCache(): DecryptedChunkCache
+
 	class Delegating : Cryptors() {
 
 		private val fallback = Default()
@@ -39,6 +44,7 @@ abstract class Cryptors internal constructor() {
 		fun removeDelegate() {
 			delegate?.let {
 				fallback.putAll(it.cryptors)
+				it.chunkCache().clear()
 			}.also { delegate = null }
 		}
 
@@ -71,6 +77,11 @@ abstract class Cryptors internal constructor() {
 			return delegate().replace(old, updated, cryptor)
 		}
 
+		@Synchronized
+		override fun chunkCache(): DecryptedChunkCache {
+			return delegate().chunkCache()
+		}
+
 		@Synchronized
 		private fun delegate(): Cryptors {
 			return delegate ?: fallback
@@ -81,6 +92,8 @@ abstract class Cryptors internal constructor() {
 
 		val cryptors: ConcurrentMap<Vault, Cryptor> = ConcurrentHashMap()
 
+		private val chunkCache = DecryptedChunkCache.withDefaultSize()
+
 		private var onChangeListener = Runnable {}
 
 		override fun isEmpty(): Boolean {
@@ -100,6 +113,7 @@ abstract class Cryptors internal constructor() {
 		override fun remove(vault: Vault): Optional<Cryptor> {
 			val result = Optional.fromNullable(cryptors.remove(vault))
 			if (result.isPresent) {
+				chunkCache.evict(result.get())
 				onChangeListener.run()
 			}
 			return result
@@ -119,6 +133,10 @@ abstract class Cryptors internal constructor() {
 			cryptors[updated] = cryptor
 		}
 
+		override fun chunkCache(): DecryptedChunkCache {
+			return chunkCache
+		}
+
 		fun setOnChangeListener(onChangeListener: Runnable) {
 			this.onChangeListener = onChangeListener
 		}
@@ -129,6 +147,7 @@ abstract class Cryptors internal constructor() {
 		}
 
 		fun destroyAll() {
+			chunkCache.clear()
 			while (!isEmpty()) {
 				val cryptorIterator = cryptors.values.iterator()
 				while (cryptorIterator.hasNext()) {
@@ -0,0 +1,143 @@
+package org.cryptomator.data.cloud.crypto
+
+import android.content.ComponentCallbacks2
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.domain.CloudFile
+import java.util.Arrays
+import java.util.Date
+
+/**
+ * In-memory LRU cache of decrypted file content chunks bounded to `maxBytes` of cleartext.
+ *
+ * Chunks are keyed by the [Cryptor] which decrypted them, the ciphertext file (path, size and modification date) and the chunk number.
+ * Evicted chunks are wiped. Cleartext never leaves memory, all chunks of a vault are evicted as soon as its cryptor is removed from [Cryptors].
+ * Under memory pressure the cache is halved or cleared, see [MemoryTrimmable].
+ */
+class DecryptedChunkCache(private val maxBytes: Long) : MemoryTrimmable {
+
+	private val chunks = LinkedHashMap<ChunkKey, ByteArray>(16, 0.75f, true)
+
+	private var cachedBytes: Long = 0
+
+	/**
+	 * @return `true` if a file with `cleartextSize` bytes should be cached entirely, i.e. it doesn't displace most of the cache
+	 */
+	fun accepts(cleartextSize: Long): Boolean {
+		return cleartextSize in 1..maxBytes / 4
+	}
+
+	/**
+	 * @return a copy of the cached cleartext of the chunk or `null`
+	 */
+	@Synchronized
+	fun get(file: FileKey, chunkNumber: Long): ByteArray? {
+		return chunks[ChunkKey(file, chunkNumber)]?.copyOf()
+	}
+
+	@Synchronized
+	fun put(file: FileKey, chunkNumber: Long, cleartext: ByteArray) {
+		if (cleartext.size > maxBytes) {
+			return
+		}
+		chunks.put(ChunkKey(file, chunkNumber), cleartext)?.let { replaced ->
+			cachedBytes -= replaced.size
+			wipe(replaced)
+		}
+		cachedBytes += cleartext.size
+		trimTo(maxBytes)
+	}
+
+	/**
+	 * Evicts all chunks of the ciphertext file at `path`, e.g. because it is overwritten or deleted.
+	 */
+	@Synchronized
+	fun evict(path: String) {
+		evictIf { it.file.path == path }
+	}
+
+	@Synchronized
+	fun evict(cryptor: Cryptor) {
+		evictIf { it.file.cryptor === cryptor }
+	}
+
+	@Synchronized
+	fun clear() {
+		evictIf { true }
+	}
+
+	@Synchronized
+	override fun trimMemory(level: Int) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+			trimTo(0)
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			trimTo(cachedBytes / 2)
+		}
+	}
+
+	private fun trimTo(bytes: Long) {
+		val iterator = chunks.values.iterator()
+		while (cachedBytes > bytes && iterator.hasNext()) {
+			val eldest = iterator.next()
+			iterator.remove()
+			cachedBytes -= eldest.size
+			wipe(eldest)
+		}
+	}
+
+	private fun evictIf(predicate: (ChunkKey) -> Boolean) {
+		val iterator = chunks.entries.iterator()
+		while (iterator.hasNext()) {
+			val entry = iterator.next()
+			if (predicate(entry.key)) {
+				iterator.remove()
+				cachedBytes -= entry.value.size
+				wipe(entry.value)
+			}
+		}
+	}
+
+	private fun wipe(cleartext: ByteArray) {
+		Arrays.fill(cleartext, 0.toByte())
+	}
+
+	class FileKey private constructor(val cryptor: Cryptor, val path: String, private val size: Long?, private val modified: Date?) {
+
+		override fun equals(other: Any?): Boolean {
+			if (other !is FileKey) {
+				return false
+			}
+			return cryptor === other.cryptor && path == other.path && size == other.size && modified == other.modified
+		}
+
+		override fun hashCode(): Int {
+			return 31 * path.hashCode() + System.identityHashCode(cryptor)
+		}
+
+		companion object {
+
+			/**
+			 * @return the key of the file or `null` if neither its size nor its modification date are known, so a changed file couldn't be
+			 * told apart from the cached one
+			 */
+			fun of(cryptor: Cryptor, ciphertextFile: CloudFile): FileKey? {
+				if (ciphertextFile.size == null && ciphertextFile.modified == null) {
+					return null
+				}
+				return FileKey(cryptor, ciphertextFile.path, ciphertextFile.size, ciphertextFile.modified)
+			}
+		}
+	}
+
+	private data class ChunkKey(val file: FileKey, val chunkNumber: Long)
+
+	companion object {
+
+		@JvmField
+		val DISABLED = DecryptedChunkCache(0)
+
+		@JvmStatic
+		fun withDefaultSize(): DecryptedChunkCache {
+			return DecryptedChunkCache(minOf(32L shl 20, Runtime.getRuntime().maxMemory() / 16))
+		}
+	}
+}
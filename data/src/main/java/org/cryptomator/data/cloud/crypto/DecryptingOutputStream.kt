@@ -0,0 +1,155 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.cryptolib.api.FileHeader
+import org.cryptomator.util.BufferPool
+import java.io.IOException
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.util.concurrent.TimeUnit
+import kotlin.math.min
+import timber.log.Timber
+
+/**
+ * Decrypts ciphertext while it is written to this stream and passes the cleartext on to the delegate.
+ *
+ * The header is decrypted as soon as it is complete, afterwards each complete ciphertext chunk is authenticated and decrypted on the
+ * [CryptoExecutor] while the following chunks are written. The cleartext is passed on to the delegate in chunk order.
+ * The last (possibly partial) chunk is decrypted on [close]. The delegate is flushed but not closed.
+ *
+ * If an already decrypted `header` is passed, the written ciphertext has to start with the chunk numbered `chunkNumber` instead of the header.
+ * `onCleartextChunk` is called with the number and cleartext of each chunk before it is passed on to the delegate, the cleartext is only
+ * valid during the call since it is decrypted into a leased buffer which is wiped afterwards.
+ */
+internal class DecryptingOutputStream(
+	private val delegate: OutputStream,
+	private val cryptor: Cryptor,
+	private val authenticate: Boolean,
+	private var header: FileHeader? = null,
+	private var chunkNumber: Long = 0,
+	private val onCleartextChunk: ((Long, ByteBuffer) -> Unit)? = null
+) : OutputStream() {
+
+	private val ciphertextChunkSize = cryptor.fileContentCryptor().ciphertextChunkSize()
+	private val headerBuffer = ByteBuffer.allocate(cryptor.fileHeaderCryptor().headerSize())
+	private val pipeline = OrderedChunkPipeline()
+	private val startedAt = System.nanoTime()
+
+	private var ciphertextChunk = BufferPool.lease(ciphertextChunkSize)
+	private var cleartextChunkNumber = chunkNumber
+	private var cleartextBytes: Long = 0
+	private var closed = false
+
+	@Throws(IOException::class)
+	override fun write(b: Int) {
+		write(byteArrayOf(b.toByte()), 0, 1)
+	}
+
+	@Throws(IOException::class)
+	override fun write(b: ByteArray, off: Int, len: Int) {
+		if (closed) {
+			throw IOException("Stream closed")
+		}
+		var offset = off
+		var remaining = len
+		while (remaining > 0) {
+			val target = if (header == null) headerBuffer else ciphertextChunk
+			val count = min(remaining, target.remaining())
+			target.put(b, offset, count)
+			offset += count
+			remaining -= count
+			if (!target.hasRemaining()) {
+				if (header == null) {
+					decryptHeader()
+				} else {
+					decryptChunk()
+				}
+			}
+		}
+	}
+
+	private fun decryptHeader() {
+		headerBuffer.flip()
+		header = cryptor.fileHeaderCryptor().decryptHeader(headerBuffer)
+	}
+
+	@Throws(IOException::class)
+	private fun decryptChunk() {
+		if (pipeline.isFull()) {
+			writeCleartext(pipeline.take())
+		}
+		ciphertextChunk.flip()
+		val number = chunkNumber++
+		val fileHeader = header
+		pipeline.submit(ciphertextChunk) { decryptChunk(it, number, fileHeader) }
+		ciphertextChunk = BufferPool.lease(ciphertextChunkSize)
+	}
+
+	private fun decryptChunk(ciphertextChunk: ByteBuffer, number: Long, fileHeader: FileHeader?): ByteBuffer {
+		// the cleartext buffer is as large as the ciphertext chunk because some ciphers need room for the tag when decrypting
+		val cleartextChunk = BufferPool.lease(ciphertextChunkSize)
+		try {
+			cryptor.fileContentCryptor().decryptChunk(ciphertextChunk, cleartextChunk, number, fileHeader, authenticate)
+		} catch (e: RuntimeException) {
+			BufferPool.release(cleartextChunk)
+			throw e
+		}
+		cleartextChunk.flip()
+		return cleartextChunk
+	}
+
+	@Throws(IOException::class)
+	private fun writeCleartext(cleartextChunk: ByteBuffer) {
+		try {
+			onCleartextChunk?.invoke(cleartextChunkNumber++, cleartextChunk.asReadOnlyBuffer())
+			cleartextBytes += cleartextChunk.remaining()
+			delegate.write(cleartextChunk.array(), cleartextChunk.arrayOffset() + cleartextChunk.position(), cleartextChunk.remaining())
+		} finally {
+			BufferPool.release(cleartextChunk)
+		}
+	}
+
+	@Throws(IOException::class)
+	private fun drainPipeline() {
+		while (!pipeline.isEmpty()) {
+			writeCleartext(pipeline.take())
+		}
+	}
+
+	@Throws(IOException::class)
+	override fun flush() {
+		drainPipeline()
+		delegate.flush()
+	}
+
+	@Throws(IOException::class)
+	override fun close() {
+		if (closed) {
+			return
+		}
+		closed = true
+		try {
+			if (header == null) {
+				throw IOException("Unexpected end of ciphertext, incomplete file header")
+			}
+			if (ciphertextChunk.position() > 0) {
+				decryptChunk()
+			}
+			drainPipeline()
+			delegate.flush()
+			logThroughput()
+		} finally {
+			pipeline.cancel()
+			BufferPool.release(ciphertextChunk)
+		}
+	}
+
+	private fun logThroughput() {
+		if (cleartextBytes == 0L) {
+			return
+		}
+		val millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt).coerceAtLeast(1)
+		val kibPerSecond = cleartextBytes * 1000 / 1024 / millis
+		Timber.tag("CryptoFs").d("Decrypted %d bytes in %d ms (%d KiB/s) using %d threads", cleartextBytes, millis, kibPerSecond, CryptoExecutor.PARALLELISM)
+	}
+}
@@ -0,0 +1,106 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.cryptolib.api.FileHeader
+import org.cryptomator.domain.exception.BackendException
+import org.cryptomator.domain.usecases.ProgressAware
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.ClosedChannelException
+import java.nio.channels.NonWritableChannelException
+import java.nio.channels.SeekableByteChannel
+import kotlin.math.min
+
+/**
+ * Read-only channel providing random access to the cleartext of a [CryptoFile].
+ *
+ * Each read fetches only the header (once) and the ciphertext chunks containing the requested range.
+ * The chunks decrypted by the last fetch are kept so small consecutive reads don't cause a request each.
+ */
+internal class DecryptingSeekableByteChannel(private val cryptoImpl: CryptoImplDecorator, private val cryptoFile: CryptoFile) : SeekableByteChannel {
+
+	private var header: FileHeader? = null
+	private var position: Long = 0
+	private var open = true
+
+	private var buffered = ByteArray(0)
+	private var bufferedStart: Long = 0
+
+	@Throws(IOException::class)
+	override fun read(dst: ByteBuffer): Int {
+		if (!open) {
+			throw ClosedChannelException()
+		}
+		val size = cryptoFile.size
+		if (size != null && position >= size) {
+			return -1
+		}
+		if (!dst.hasRemaining()) {
+			return 0
+		}
+		if (position < bufferedStart || position >= bufferedStart + buffered.size) {
+			fetch(dst.remaining())
+			if (position >= bufferedStart + buffered.size) {
+				return -1
+			}
+		}
+		val offsetInBuffer = (position - bufferedStart).toInt()
+		val count = min(dst.remaining(), buffered.size - offsetInBuffer)
+		dst.put(buffered, offsetInBuffer, count)
+		position += count
+		return count
+	}
+
+	@Throws(IOException::class)
+	private fun fetch(requested: Int) {
+		val cleartextChunkSize = cryptoImpl.cryptor().fileContentCryptor().cleartextChunkSize()
+		val start = position / cleartextChunkSize * cleartextChunkSize
+		val chunkCount = (position - start + requested + cleartextChunkSize - 1) / cleartextChunkSize
+		val out = ByteArrayOutputStream()
+		try {
+			val fileHeader = header ?: cryptoImpl.readHeader(cryptoFile).also { header = it }
+			cryptoImpl.read(cryptoFile, fileHeader, start, chunkCount * cleartextChunkSize, out, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
+		} catch (e: BackendException) {
+			throw IOException(e)
+		}
+		buffered = out.toByteArray()
+		bufferedStart = start
+	}
+
+	override fun write(src: ByteBuffer): Int {
+		throw NonWritableChannelException()
+	}
+
+	@Throws(IOException::class)
+	override fun position(): Long {
+		return position
+	}
+
+	@Throws(IOException::class)
+	override fun position(newPosition: Long): SeekableByteChannel {
+		require(newPosition >= 0) { "Negative position" }
+		if (!open) {
+			throw ClosedChannelException()
+		}
+		position = newPosition
+		return this
+	}
+
+	@Throws(IOException::class)
+	override fun size(): Long {
+		return cryptoFile.size ?: throw IOException(String.format("Unknown cleartext size of %s", cryptoFile.path))
+	}
+
+	override fun truncate(size: Long): SeekableByteChannel {
+		throw NonWritableChannelException()
+	}
+
+	override fun isOpen(): Boolean {
+		return open
+	}
+
+	override fun close() {
+		open = false
+		buffered = ByteArray(0)
+	}
+}
@@ -1,74 +1,130 @@
 package org.cryptomator.data.cloud.crypto
 
-import android.util.LruCache
+import android.content.ComponentCallbacks2
 import org.cryptomator.data.cloud.crypto.DirIdCache.DirIdInfo
 
-internal class DirIdCacheFormat7 : DirIdCache {
+/**
+ * Directory IDs of vault format 7 and 8 folders, indexed by a trie of their cleartext paths.
+ *
+ * Evicting the subfolders of a folder (which happens on each listing) only visits the evicted subtree instead of the whole cache.
+ * The least recently used entries are evicted when more than `maxEntries` are cached or memory is trimmed.
+ */
+internal class DirIdCacheFormat7(private val maxEntries: Int = defaultMaxEntries()) : DirIdCache, MemoryTrimmable {
 
-	private val cache = LruCache<DirIdCacheKey, DirIdInfo>(MAX_SIZE)
+	private val root = PathNode(null, "", "")
 
+	// cached nodes by path in access order, the least recently used node comes first
+	private val entries = LinkedHashMap<String, PathNode>(16, 0.75f, true)
+
+	@Synchronized
 	override fun get(folder: CryptoFolder): DirIdInfo? {
-		return cache[DirIdCacheKey.toKey(folder)]
+		return entries[folder.path]?.dirIdInfo
 	}
 
+	@Synchronized
 	override fun put(folder: CryptoFolder, dirIdInfo: DirIdInfo): DirIdInfo {
-		val key = DirIdCacheKey.toKey(folder)
-		cache.put(key, dirIdInfo)
+		val node = node(folder.path, true)!!
+		node.dirIdInfo = dirIdInfo
+		entries[folder.path] = node
+		trimTo(maxEntries)
 		return dirIdInfo
 	}
 
+	@Synchronized
 	override fun evict(folder: CryptoFolder) {
-		val key = DirIdCacheKey.toKey(folder)
-		cache.remove(key)
+		entries.remove(folder.path)?.let {
+			it.dirIdInfo = null
+			prune(it)
+		}
 	}
 
+	@Synchronized
 	override fun evictSubFoldersOf(cryptoFolder: CryptoFolder) {
-		val cacheSnapshot = cache.snapshot()
-		cacheSnapshot.forEach { (key) ->
-			if (key.path?.startsWith(cryptoFolder.path + "/") == true) {
-				cache.remove(key)
-			}
+		val node = node(cryptoFolder.path, false) ?: return
+		val pending = ArrayDeque(node.children.values)
+		node.children.clear()
+		while (pending.isNotEmpty()) {
+			val next = pending.removeLast()
+			entries.remove(next.path)
+			pending.addAll(next.children.values)
 		}
+		prune(node)
 	}
 
-	private class DirIdCacheKey private constructor(path: String) {
+	@Synchronized
+	override fun trimMemory(level: Int) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+			trimTo(0)
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			trimTo(entries.size / 2)
+		}
+	}
 
-		val path: String?
+	@Synchronized
+	fun size(): Int {
+		return entries.size
+	}
 
-		override fun equals(other: Any?): Boolean {
-			if (other === this) {
-				return true
-			}
-			return if (other == null || javaClass != other.javaClass) {
-				false
-			} else internalEquals(other as DirIdCacheKey)
+	private fun trimTo(size: Int) {
+		val iterator = entries.values.iterator()
+		while (entries.size > size && iterator.hasNext()) {
+			val eldest = iterator.next()
+			iterator.remove()
+			eldest.dirIdInfo = null
+			prune(eldest)
 		}
+	}
 
-		private fun internalEquals(o: DirIdCacheKey): Boolean {
-			return if (path == null) o.path == null else path == o.path
+	private fun node(path: String, create: Boolean): PathNode? {
+		var node = root
+		var start = 1 // paths of subfolders start with a separator, the root path is empty
+		while (start <= path.length) {
+			val end = path.indexOf('/', start).let { if (it == -1) path.length else it }
+			val name = path.substring(start, end)
+			node = node.children[name] ?: if (create) {
+				PathNode(node, name, path.substring(0, end)).also { node.children[name] = it }
+			} else {
+				return null
+			}
+			start = end + 1
 		}
+		return node
+	}
 
-		override fun hashCode(): Int {
-			val prime = 31
-			var hash = 1940604225
-			hash = hash * prime + (path?.hashCode() ?: 0)
-			return hash
+	/**
+	 * Removes the node and its ancestors from the trie as long as they neither cache a directory ID nor have children.
+	 */
+	private fun prune(node: PathNode) {
+		var current = node
+		while (current.dirIdInfo == null && current.children.isEmpty()) {
+			val parent = current.parent ?: return
+			if (parent.children[current.name] === current) {
+				parent.children.remove(current.name)
+			}
+			current = parent
 		}
+	}
 
-		companion object {
+	private class PathNode(val parent: PathNode?, val name: String, val path: String) {
 
-			fun toKey(folder: CryptoFolder): DirIdCacheKey {
-				return DirIdCacheKey(folder.path)
-			}
-		}
+		val children = HashMap<String, PathNode>()
 
-		init {
-			this.path = path
-		}
+		var dirIdInfo: DirIdInfo? = null
 	}
 
 	companion object {
 
-		private const val MAX_SIZE = 1024
+		private const val MIN_ENTRIES = 1024
+		private const val MAX_ENTRIES = 64 * 1024
+
+		// rough size of a cached entry including its DirIdInfo, cloud folder and path
+		private const val ESTIMATED_ENTRY_SIZE = 1024L
+
+		/**
+		 * @return the number of entries fitting in 1/64 of the heap, but at least [MIN_ENTRIES]
+		 */
+		fun defaultMaxEntries(): Int {
+			return (Runtime.getRuntime().maxMemory() / 64 / ESTIMATED_ENTRY_SIZE).coerceIn(MIN_ENTRIES.toLong(), MAX_ENTRIES.toLong()).toInt()
+		}
 	}
 }
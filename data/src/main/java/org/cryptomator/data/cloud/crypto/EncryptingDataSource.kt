@@ -0,0 +1,63 @@
+package org.cryptomator.data.cloud.crypto
+
+import android.content.Context
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.domain.usecases.cloud.DataSource
+import org.cryptomator.util.Optional
+import java.io.IOException
+import java.io.InputStream
+import java.io.NotSerializableException
+import java.io.ObjectInputStream
+import java.io.ObjectOutputStream
+import java.util.Date
+
+/**
+ * Provides the ciphertext of the `cleartext` data source, encrypting it while it is read by the backend.
+ *
+ * Data sources are serializable, but this one only exists while its upload runs and holds the cryptor of the vault, so serializing it
+ * fails instead of writing the cryptor or restoring an instance without one.
+ */
+internal class EncryptingDataSource(private val cleartext: DataSource, private val cryptor: Cryptor, private val cleartextSize: Long) : DataSource {
+
+	override fun size(context: Context): Long {
+		return ciphertextSize(cryptor, cleartextSize)
+	}
+
+	@Throws(IOException::class)
+	override fun open(context: Context): InputStream {
+		val stream = cleartext.open(context) ?: throw IllegalStateException("InputStream shouldn't be null")
+		return EncryptingInputStream(stream, cryptor, cleartextSize)
+	}
+
+	override fun decorate(delegate: DataSource): DataSource {
+		return delegate
+	}
+
+	@Throws(IOException::class)
+	override fun close() {
+		// Do nothing, the cleartext data source is closed by its owner
+	}
+
+	override fun modifiedDate(context: Context): Optional<Date> {
+		return cleartext.modifiedDate(context)
+	}
+
+	@Suppress("UNUSED_PARAMETER")
+	@Throws(IOException::class)
+	private fun writeObject(out: ObjectOutputStream) {
+		throw NotSerializableException(EncryptingDataSource::class.java.name)
+	}
+
+	@Suppress("UNUSED_PARAMETER")
+	@Throws(IOException::class)
+	private fun readObject(input: ObjectInputStream) {
+		throw NotSerializableException(EncryptingDataSource::class.java.name)
+	}
+
+	companion object {
+
+		fun ciphertextSize(cryptor: Cryptor, cleartextSize: Long): Long {
+			return cryptor.fileContentCryptor().ciphertextSize(cleartextSize) + cryptor.fileHeaderCryptor().headerSize()
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.util.BufferPool
+import java.io.IOException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import kotlin.math.min
+
+/**
+ * Provides the ciphertext of the cleartext stream, encrypting the following chunks in parallel while the current one is consumed.
+ *
+ * Each chunk is encrypted independently using its chunk number as AAD, so the chunks are encrypted on the [CryptoExecutor]
+ * and put back in order by an [OrderedChunkPipeline].
+ *
+ * Fails if the cleartext doesn't have the announced `cleartextSize` because the ciphertext size promised to the backend would be wrong otherwise.
+ */
+internal class EncryptingInputStream(private val cleartext: InputStream, private val cryptor: Cryptor, private val cleartextSize: Long) : InputStream() {
+
+	private val header = cryptor.fileHeaderCryptor().create()
+	private val cleartextChunkSize = cryptor.fileContentCryptor().cleartextChunkSize()
+	private val ciphertextChunkSize = cryptor.fileContentCryptor().ciphertextChunkSize()
+	private val pipeline = OrderedChunkPipeline()
+
+	private var ciphertext: ByteBuffer = cryptor.fileHeaderCryptor().encryptHeader(header)
+	private var chunkNumber: Long = 0
+	private var cleartextRead: Long = 0
+	private var eof = false
+
+	@Throws(IOException::class)
+	override fun read(): Int {
+		if (!ensureCiphertextAvailable()) {
+			return -1
+		}
+		return ciphertext.get().toInt() and 0xFF
+	}
+
+	@Throws(IOException::class)
+	override fun read(b: ByteArray, off: Int, len: Int): Int {
+		if (len == 0) {
+			return 0
+		}
+		if (!ensureCiphertextAvailable()) {
+			return -1
+		}
+		val count = min(len, ciphertext.remaining())
+		ciphertext.get(b, off, count)
+		return count
+	}
+
+	override fun available(): Int {
+		return ciphertext.remaining()
+	}
+
+	@Throws(IOException::class)
+	private fun ensureCiphertextAvailable(): Boolean {
+		while (!ciphertext.hasRemaining()) {
+			fillPipeline()
+			if (pipeline.isEmpty()) {
+				return false
+			}
+			BufferPool.release(ciphertext)
+			ciphertext = EMPTY
+			ciphertext = pipeline.take()
+		}
+		return true
+	}
+
+	@Throws(IOException::class)
+	private fun fillPipeline() {
+		while (!eof && !pipeline.isFull()) {
+			val cleartextChunk = readCleartextChunk()
+			if (cleartextChunk.hasRemaining()) {
+				val number = chunkNumber++
+				pipeline.submit(cleartextChunk) { encryptChunk(it, number) }
+			} else {
+				BufferPool.release(cleartextChunk)
+			}
+		}
+	}
+
+	private fun encryptChunk(cleartextChunk: ByteBuffer, number: Long): ByteBuffer {
+		val ciphertextChunk = BufferPool.lease(ciphertextChunkSize)
+		try {
+			cryptor.fileContentCryptor().encryptChunk(cleartextChunk, ciphertextChunk, number, header)
+		} catch (e: RuntimeException) {
+			BufferPool.release(ciphertextChunk)
+			throw e
+		}
+		ciphertextChunk.flip()
+		return ciphertextChunk
+	}
+
+	@Throws(IOException::class)
+	private fun readCleartextChunk(): ByteBuffer {
+		val cleartextChunk = BufferPool.lease(cleartextChunkSize)
+		try {
+			while (cleartextChunk.hasRemaining()) {
+				val read = cleartext.read(cleartextChunk.array(), cleartextChunk.position(), cleartextChunk.remaining())
+				if (read == -1) {
+					eof = true
+					break
+				}
+				cleartextChunk.position(cleartextChunk.position() + read)
+			}
+			cleartextChunk.flip()
+			cleartextRead += cleartextChunk.remaining()
+			if (eof && cleartextRead != cleartextSize) {
+				throw IOException(String.format("Cleartext size changed during upload, expected %d bytes but got %d", cleartextSize, cleartextRead))
+			}
+			return cleartextChunk
+		} catch (e: IOException) {
+			BufferPool.release(cleartextChunk)
+			throw e
+		}
+	}
+
+	@Throws(IOException::class)
+	override fun close() {
+		pipeline.cancel()
+		BufferPool.release(ciphertext)
+		ciphertext = EMPTY
+		cleartext.close()
+	}
+
+	companion object {
+
+		private val EMPTY = ByteBuffer.allocate(0)
+	}
+}
@@ -0,0 +1,126 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.domain.CloudFile
+import org.cryptomator.domain.FolderStatistics
+
+/**
+ * The contents of listed folders of a vault keyed by their directory IDs, so the statistics of a folder can be summed up from the contents
+ * of its subfolders without listing them again, and the totals summed up this way.
+ *
+ * The direct contents of a folder stay valid until the folder itself changes. Its total and the totals of its ancestors are dropped as soon
+ * as the contents of the folder change or are evicted, so a total is only known as long as the contents of the whole subtree are cached.
+ * Subfolders are stored by name and dir file instead of their cleartext paths, which change whenever an ancestor is moved, so they are
+ * always located below the current path of their parent.
+ */
+internal class FolderStatisticsCache(private val maxEntries: Int = DEFAULT_MAX_ENTRIES) {
+
+	// contents in access order, the least recently used directory comes first
+	private val entries = LinkedHashMap<String, Contents>(16, 0.75f, true)
+
+	// statistics of the whole subtrees of directories with cached contents
+	private val totals = HashMap<String, FolderStatistics>()
+
+	// parent directories of the directories with cached totals, to drop the totals of the ancestors of a changed directory
+	private val parents = HashMap<String, String>()
+
+	// incremented whenever totals are dropped, so totals summed up meanwhile aren't cached
+	private var generation = 0L
+
+	@Synchronized
+	operator fun get(dirId: String): Contents? {
+		return entries[dirId]
+	}
+
+	@Synchronized
+	fun put(dirId: String, contents: Contents) {
+		if (entries.put(dirId, contents) != null) {
+			dropTotals(dirId)
+		}
+		val iterator = entries.keys.iterator()
+		while (entries.size > maxEntries && iterator.hasNext()) {
+			val eldest = iterator.next()
+			iterator.remove()
+			dropTotals(eldest)
+			parents.remove(eldest)
+		}
+	}
+
+	@Synchronized
+	fun invalidate(dirId: String) {
+		entries.remove(dirId)
+		dropTotals(dirId)
+		parents.remove(dirId)
+	}
+
+	@Synchronized
+	fun total(dirId: String): FolderStatistics? {
+		return totals[dirId]
+	}
+
+	/**
+	 * @return the current generation to pass to [putTotal] once the totals are summed up
+	 */
+	@Synchronized
+	fun generation(): Long {
+		return generation
+	}
+
+	/**
+	 * Caches the total of the directory located in `parentDirId` unless a directory has changed since `generation` or the contents of the directory
+	 * aren't cached anymore.
+	 */
+	@Synchronized
+	fun putTotal(dirId: String, parentDirId: String?, total: FolderStatistics, generation: Long) {
+		if (generation != this.generation || dirId !in entries) {
+			return
+		}
+		totals[dirId] = total
+		parentDirId?.let { parents[dirId] = it }
+	}
+
+	@Synchronized
+	fun size(): Int {
+		return entries.size
+	}
+
+	private fun dropTotals(dirId: String) {
+		generation++
+		// moved directories may leave outdated parents behind, which must not send this into a loop
+		val visited = HashSet<String>()
+		var next: String? = dirId
+		while (next != null && visited.add(next)) {
+			totals.remove(next)
+			next = parents[next]
+		}
+	}
+
+	/**
+	 * The direct contents of a folder, i.e. the statistics of its files and its subfolders.
+	 */
+	class Contents(val statistics: FolderStatistics, private val subfolders: List<Subfolder>) {
+
+		/**
+		 * @return the subfolders located below the current path of `parent`
+		 */
+		fun subfoldersOf(parent: CryptoFolder): List<CryptoFolder> {
+			return subfolders.map { CryptoFolder(parent, it.name, parent.path + "/" + it.name, it.dirFile) }
+		}
+
+		companion object {
+
+			fun of(nodes: List<CryptoNode>): Contents {
+				val files = nodes.filterIsInstance<CryptoFile>()
+				val subfolders = nodes.filterIsInstance<CryptoFolder>().map { Subfolder(it.name, it.dirFile) }
+				return Contents(FolderStatistics(files.sumOf { it.size ?: 0 }, files.size.toLong(), subfolders.size.toLong()), subfolders)
+			}
+		}
+	}
+
+	// the dir file of a subfolder is located in the directory of its parent, so it stays valid when the parent is moved
+	class Subfolder(val name: String, val dirFile: CloudFile?)
+
+	companion object {
+
+		private const val DEFAULT_MAX_ENTRIES = 10_000
+	}
+}
@@ -0,0 +1,48 @@
+package org.cryptomator.data.cloud.crypto
+
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import java.util.Collections
+import java.util.WeakHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * In-memory cache which releases entries when the system asks the app to trim its memory, see [ComponentCallbacks2.onTrimMemory].
+ */
+interface MemoryTrimmable {
+
+	fun trimMemory(level: Int)
+
+	/**
+	 * Forwards the memory callbacks of the application to all registered caches, which are only weakly referenced.
+	 */
+	object Registry : ComponentCallbacks2 {
+
+		private val trimmables = Collections.newSetFromMap(WeakHashMap<MemoryTrimmable, Boolean>())
+		private val registered = AtomicBoolean()
+
+		fun register(context: Context, trimmable: MemoryTrimmable) {
+			if (registered.compareAndSet(false, true)) {
+				context.applicationContext.registerComponentCallbacks(this)
+			}
+			synchronized(trimmables) {
+				trimmables.add(trimmable)
+			}
+		}
+
+		override fun onTrimMemory(level: Int) {
+			synchronized(trimmables) {
+				trimmables.toList()
+			}.forEach { it.trimMemory(level) }
+		}
+
+		override fun onLowMemory() {
+			onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+		}
+
+		override fun onConfigurationChanged(newConfig: Configuration) {
+			// empty
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package org.cryptomator.data.cloud.crypto
+
+import com.google.common.util.concurrent.Uninterruptibles
+import org.cryptomator.util.BufferPool
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.nio.ByteBuffer
+import java.util.ArrayDeque
+import java.util.concurrent.Callable
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Processes chunks on the [CryptoExecutor] and returns the results in submission order.
+ *
+ * At most `maxInFlight` chunks are processed or waiting to be taken at the same time, which bounds the memory used to reorder results.
+ *
+ * The pipeline takes over the lease of each submitted input buffer and releases it once the chunk has been processed or, if the chunk is
+ * cancelled before it was processed, on [cancel]. Results are leased buffers as well, taken results have to be released by the caller
+ * while the results of cancelled chunks are released by the pipeline. Either way inputs and results, which might be cleartext, are wiped.
+ */
+internal class OrderedChunkPipeline(private val maxInFlight: Int = DEFAULT_MAX_IN_FLIGHT) {
+
+	private val inFlight = ArrayDeque<Chunk>(maxInFlight)
+
+	fun isFull(): Boolean {
+		return inFlight.size >= maxInFlight
+	}
+
+	fun isEmpty(): Boolean {
+		return inFlight.isEmpty()
+	}
+
+	/**
+	 * Processes the leased `input` buffer by `task` on the [CryptoExecutor].
+	 */
+	fun submit(input: ByteBuffer, task: (ByteBuffer) -> ByteBuffer) {
+		check(!isFull()) { "Pipeline is full" }
+		val chunk = Chunk(input)
+		chunk.future = CryptoExecutor.submit(Callable { chunk.process(task) })
+		inFlight.add(chunk)
+	}
+
+	/**
+	 * Waits for the oldest submitted chunk.
+	 *
+	 * Runtime exceptions thrown by the task (e.g. authentication failures) are rethrown as is, all others are wrapped into an [IOException].
+	 */
+	@Throws(IOException::class)
+	fun take(): ByteBuffer {
+		val next = inFlight.poll() ?: throw IllegalStateException("Pipeline is empty")
+		try {
+			return next.future.get()
+		} catch (e: InterruptedException) {
+			cancel()
+			Thread.currentThread().interrupt()
+			throw InterruptedIOException("Interrupted while waiting for chunk")
+		} catch (e: ExecutionException) {
+			cancel()
+			when (val cause = e.cause) {
+				is RuntimeException -> throw cause
+				is Error -> throw cause
+				is IOException -> throw cause
+				else -> throw IOException(cause)
+			}
+		}
+	}
+
+	fun cancel() {
+		while (inFlight.isNotEmpty()) {
+			inFlight.poll()?.cancel()
+		}
+	}
+
+	private class Chunk(private val input: ByteBuffer) {
+
+		private val state = AtomicInteger(PENDING)
+
+		lateinit var future: Future<ByteBuffer>
+
+		fun process(task: (ByteBuffer) -> ByteBuffer): ByteBuffer {
+			if (!state.compareAndSet(PENDING, PROCESSING)) {
+				throw CancellationException()
+			}
+			val result = try {
+				task(input)
+			} finally {
+				BufferPool.release(input)
+			}
+			if (!state.compareAndSet(PROCESSING, PROCESSED)) {
+				BufferPool.release(result)
+				throw CancellationException()
+			}
+			return result
+		}
+
+		/**
+		 * Releases the input of a chunk which hasn't been processed yet or the result of a processed one. A chunk which is being processed
+		 * releases both itself when done.
+		 */
+		fun cancel() {
+			when {
+				state.compareAndSet(PENDING, CANCELLED) -> {
+					future.cancel(false)
+					BufferPool.release(input)
+				}
+				state.compareAndSet(PROCESSING, CANCELLED) -> {
+					// released by process()
+				}
+				else -> try {
+					BufferPool.release(Uninterruptibles.getUninterruptibly(future))
+				} catch (e: ExecutionException) {
+					// failed chunks have no result
+				}
+			}
+		}
+	}
+
+	companion object {
+
+		private val DEFAULT_MAX_IN_FLIGHT = 2 * CryptoExecutor.PARALLELISM
+
+		private const val PENDING = 0
+		private const val PROCESSING = 1
+		private const val PROCESSED = 2
+		private const val CANCELLED = 3
+	}
+}
@@ -0,0 +1,105 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.domain.exception.BackendException
+import org.cryptomator.domain.exception.FatalBackendException
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Maps the elements of a list in parallel, either in batches on the [CryptoExecutor] (e.g. to decrypt the names of a huge folder listing on
+ * all cores) or one by one on the [CloudRequestExecutor] (e.g. to resolve the names of shortened nodes with concurrent requests).
+ *
+ * Each task writes only the results of its own indices, so [await] returns the results in the order of the elements, independent of the
+ * order in which the tasks complete. Between starting and [await] the calling thread is free to do other work.
+ */
+internal class ParallelMapping<R> private constructor(private val results: Array<Any?>, private val tasks: List<Future<*>>) {
+
+	/**
+	 * Waits until all elements are mapped.
+	 *
+	 * Backend exceptions, runtime exceptions and errors thrown by `transform` are rethrown as is, all others are wrapped into a
+	 * [FatalBackendException].
+	 */
+	@Suppress("UNCHECKED_CAST")
+	@Throws(BackendException::class)
+	fun await(): List<R?> {
+		try {
+			tasks.forEach { it.get() }
+		} catch (e: InterruptedException) {
+			cancel()
+			Thread.currentThread().interrupt()
+			throw FatalBackendException("Interrupted while mapping in parallel", e)
+		} catch (e: ExecutionException) {
+			cancel()
+			when (val cause = e.cause) {
+				is BackendException -> throw cause
+				is RuntimeException -> throw cause
+				is Error -> throw cause
+				else -> throw FatalBackendException(cause)
+			}
+		}
+		return results.asList() as List<R?>
+	}
+
+	fun cancel() {
+		tasks.forEach { it.cancel(true) }
+	}
+
+	companion object {
+
+		const val PARALLEL_THRESHOLD = 64
+
+		private const val MIN_BATCH_SIZE = 32
+		private const val MAX_BATCH_SIZE = 256
+
+		/**
+		 * Maps the elements in batches on the [CryptoExecutor], lists smaller than [PARALLEL_THRESHOLD] are mapped on the calling thread.
+		 */
+		fun <T, R> start(elements: List<T>, transform: (T) -> R?): ParallelMapping<R> {
+			val results = arrayOfNulls<Any?>(elements.size)
+			if (elements.size < PARALLEL_THRESHOLD || CryptoExecutor.PARALLELISM == 1) {
+				elements.forEachIndexed { index, element -> results[index] = transform(element) }
+				return ParallelMapping(results, emptyList())
+			}
+			// about four batches per core to even out batches which take longer, e.g. because of scheduling
+			val batchSize = min(MAX_BATCH_SIZE, max(MIN_BATCH_SIZE, elements.size / (4 * CryptoExecutor.PARALLELISM) + 1))
+			val batches = (elements.indices step batchSize).map { from ->
+				CryptoExecutor.submit(Callable {
+					for (index in from until min(from + batchSize, elements.size)) {
+						results[index] = transform(elements[index])
+					}
+				})
+			}
+			return ParallelMapping(results, batches)
+		}
+
+		/**
+		 * Maps each element on the [CloudRequestExecutor], for transformations blocking on cloud requests. A single element is mapped on
+		 * the calling thread.
+		 */
+		fun <T, R> startBlocking(elements: List<T>, transform: (T) -> R?): ParallelMapping<R> {
+			val results = arrayOfNulls<Any?>(elements.size)
+			if (elements.size == 1) {
+				results[0] = transform(elements[0])
+				return ParallelMapping(results, emptyList())
+			}
+			val tasks = elements.indices.map { index ->
+				CloudRequestExecutor.submit(Callable {
+					results[index] = transform(elements[index])
+				})
+			}
+			return ParallelMapping(results, tasks)
+		}
+
+		/**
+		 * Sends a single request on the [CloudRequestExecutor], so the calling thread can send other requests in the meantime.
+		 */
+		fun <R> startRequest(request: () -> R?): ParallelMapping<R> {
+			val results = arrayOfNulls<Any?>(1)
+			return ParallelMapping(results, listOf(CloudRequestExecutor.submit(Callable { results[0] = request() })))
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package org.cryptomator.data.cloud.crypto
+
+import android.database.sqlite.SQLiteConstraintException
+import com.google.common.io.BaseEncoding
+import org.cryptomator.cryptolib.api.AuthenticationFailedException
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.data.db.Database
+import org.cryptomator.data.db.entities.DirIdCacheEntity
+import org.cryptomator.data.db.entities.DirIdCacheEntityDao
+import org.cryptomator.domain.executor.DaemonExecutors
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.Supplier
+import timber.log.Timber
+
+/**
+ * Directory IDs of a vault persisted in the database, so navigating into a folder after unlocking the vault again (or after the process
+ * was killed) doesn't download the dir files along the path.
+ *
+ * Entries are keyed by a keyed hash of the cleartext path and the directory IDs are encrypted and authenticated bound to that path, both
+ * using the name keys of the vault's masterkey. Without the masterkey the database reveals neither the folder structure nor the IDs.
+ *
+ * Entries are validated lazily: an entry is dropped as soon as the modification date of its dir file is known and differs from the one
+ * recorded when it was stored. Entries which can't be validated this way are returned as not [PersistedDirId.validated] and must be
+ * verified before anything is written to their directories.
+ *
+ * Stores are applied in the background, so listing a folder doesn't wait for the database. Once a vault has `maxEntries` entries, the
+ * least recently used tenth of them is evicted.
+ */
+class PersistentDirIdCache @JvmOverloads internal constructor(
+	private val database: Database?, //
+	private val vaultId: Long?, //
+	private val cryptor: Supplier<Cryptor>, //
+	private val maxEntries: Int = MAX_ENTRIES_PER_VAULT, //
+	private val updates: Executor = UPDATES
+) {
+
+	private val enabled = database != null && vaultId != null
+
+	// serializes the changes of the entries of the vault
+	private val lock = vaultId?.let { LOCKS.computeIfAbsent(it) { Any() } } ?: Any()
+
+	// incremented by each eviction, so stores of directory IDs loaded before an eviction aren't applied afterwards
+	private val evictions = AtomicLong()
+
+	fun get(folder: CryptoFolder): PersistedDirId? {
+		if (!enabled || RootCryptoFolder.isRoot(folder)) {
+			return null
+		}
+		val entity = find(pathHash(folder.path)) ?: return null
+		val dirFileModified = folder.dirFile?.modified?.time
+		if (dirFileModified != null && entity.dirFileModified != null && dirFileModified != entity.dirFileModified) {
+			update { evictSubtree(entity.pathHash) }
+			return null
+		}
+		return try {
+			val dirId = cryptor.get().fileNameCryptor().decryptFilename(BaseEncoding.base64Url(), entity.encryptedDirId, associatedData(folder.path))
+			val lastUsed = entity.lastUsed
+			if (lastUsed == null || System.currentTimeMillis() - lastUsed > USAGE_RESOLUTION_MILLIS) {
+				update { touch(entity.pathHash) }
+			}
+			PersistedDirId(dirId, dirFileModified != null && entity.dirFileModified != null)
+		} catch (e: AuthenticationFailedException) {
+			Timber.tag("CryptoFs").w("Dropping unauthentic persisted directory ID")
+			update { find(entity.pathHash)?.let { database!!.delete(it) } }
+			null
+		}
+	}
+
+	fun put(folder: CryptoFolder, dirId: String) {
+		if (!enabled || RootCryptoFolder.isRoot(folder)) {
+			return
+		}
+		val pathHash = pathHash(folder.path)
+		val parentPathHash = folder.parent?.let { pathHash(it.path) }
+		val encryptedDirId = cryptor.get().fileNameCryptor().encryptFilename(BaseEncoding.base64Url(), dirId, associatedData(folder.path))
+		val dirFileModified = folder.dirFile?.modified?.time
+		val evictionsBefore = evictions.get()
+		update {
+			if (evictions.get() != evictionsBefore) {
+				return@update
+			}
+			try {
+				val entity = find(pathHash)
+				if (entity == null) {
+					trimIfFull()
+					database!!.create(DirIdCacheEntity(null, vaultId, pathHash, parentPathHash, encryptedDirId, dirFileModified, System.currentTimeMillis()))
+				} else {
+					entity.parentPathHash = parentPathHash
+					entity.encryptedDirId = encryptedDirId
+					entity.dirFileModified = dirFileModified
+					entity.lastUsed = System.currentTimeMillis()
+					database!!.store(entity)
+				}
+			} catch (e: SQLiteConstraintException) {
+				Timber.tag("CryptoFs").w(e, "Failed to persist directory ID")
+			}
+		}
+	}
+
+	/**
+	 * Evicts the entries of the folder and all its subfolders, e.g. because it was moved or deleted. Unlike stores, evictions are applied
+	 * right away, so the evicted entries can't be read afterwards.
+	 */
+	fun evict(folder: CryptoFolder) {
+		if (!enabled) {
+			return
+		}
+		evictions.incrementAndGet()
+		synchronized(lock) {
+			database!!.runInTx {
+				if (RootCryptoFolder.isRoot(folder)) {
+					entities().forEach { database.delete(it) }
+				} else {
+					evictSubtree(pathHash(folder.path))
+				}
+			}
+		}
+	}
+
+	private fun update(update: () -> Unit) {
+		updates.execute {
+			try {
+				synchronized(lock) { update() }
+			} catch (e: RuntimeException) {
+				Timber.tag("CryptoFs").e(e, "Failed to update persisted directory IDs")
+			}
+		}
+	}
+
+	private fun touch(pathHash: String) {
+		find(pathHash)?.let {
+			it.lastUsed = System.currentTimeMillis()
+			database!!.store(it)
+		}
+	}
+
+	private fun evictSubtree(pathHash: String) {
+		val pending = ArrayDeque(listOf(pathHash))
+		while (pending.isNotEmpty()) {
+			val next = pending.removeFirst()
+			database!!.queryBuilder(DirIdCacheEntity::class.java) //
+				.where(DirIdCacheEntityDao.Properties.VaultId.eq(vaultId), DirIdCacheEntityDao.Properties.ParentPathHash.eq(next)) //
+				.list() //
+				.forEach { pending.add(it.pathHash) }
+			find(next)?.let { database.delete(it) }
+		}
+	}
+
+	/**
+	 * Evicts the least recently used entries (and their subtrees, which can't be evicted once their parent is gone) if the vault has
+	 * `maxEntries` entries.
+	 */
+	private fun trimIfFull() {
+		val count = database!!.queryBuilder(DirIdCacheEntity::class.java).where(DirIdCacheEntityDao.Properties.VaultId.eq(vaultId)).count()
+		if (count < maxEntries) {
+			return
+		}
+		val trimmedEntries = (maxEntries / 10).coerceAtLeast(1)
+		Timber.tag("CryptoFs").i("Evicting %d least recently used of %d persisted directory IDs of vault", trimmedEntries, count)
+		database.runInTx {
+			database.queryBuilder(DirIdCacheEntity::class.java) //
+				.where(DirIdCacheEntityDao.Properties.VaultId.eq(vaultId)) //
+				.orderAsc(DirIdCacheEntityDao.Properties.LastUsed) //
+				.limit(trimmedEntries) //
+				.list() //
+				.forEach { evictSubtree(it.pathHash) }
+		}
+	}
+
+	private fun find(pathHash: String): DirIdCacheEntity? {
+		return database!!.queryBuilder(DirIdCacheEntity::class.java) //
+			.where(DirIdCacheEntityDao.Properties.VaultId.eq(vaultId), DirIdCacheEntityDao.Properties.PathHash.eq(pathHash)) //
+			.unique()
+	}
+
+	private fun entities(): List<DirIdCacheEntity> {
+		return database!!.queryBuilder(DirIdCacheEntity::class.java).where(DirIdCacheEntityDao.Properties.VaultId.eq(vaultId)).list()
+	}
+
+	private fun pathHash(path: String): String {
+		return cryptor.get().fileNameCryptor().hashDirectoryId(DOMAIN + path)
+	}
+
+	private fun associatedData(path: String): ByteArray {
+		return (DOMAIN + path).toByteArray(StandardCharsets.UTF_8)
+	}
+
+	class PersistedDirId(val id: String, val validated: Boolean)
+
+	companion object {
+
+		// separates the hashes and associated data from the ones of directory IDs, which never contain a colon
+		private const val DOMAIN = "dirIdCache:"
+		private const val MAX_ENTRIES_PER_VAULT = 10_000
+
+		// the usage of an entry is recorded at most once a day, so reading entries doesn't write to the database each time
+		private val USAGE_RESOLUTION_MILLIS = TimeUnit.DAYS.toMillis(1)
+
+		private val LOCKS = ConcurrentHashMap<Long, Any>()
+
+		private val UPDATES = DaemonExecutors.singleThread("persistent_dir_id_cache")
+
+		@JvmField
+		val DISABLED = PersistentDirIdCache(null, null, { throw IllegalStateException("Persistent dir id cache disabled") })
+	}
+}
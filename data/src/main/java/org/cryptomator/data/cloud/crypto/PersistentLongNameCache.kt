@@ -0,0 +1,108 @@
+package org.cryptomator.data.cloud.crypto
+
+import android.database.sqlite.SQLiteConstraintException
+import org.apache.commons.codec.binary.Base32
+import org.apache.commons.codec.binary.BaseNCodec
+import org.cryptomator.cryptolib.common.MessageDigestSupplier
+import org.cryptomator.data.db.Database
+import org.cryptomator.data.db.entities.LongNameCacheEntity
+import org.cryptomator.data.db.entities.LongNameCacheEntityDao
+import java.nio.charset.StandardCharsets
+import timber.log.Timber
+
+/**
+ * Long ciphertext names of the shortened nodes of a vault in format 6 or older persisted in the database, so listing a folder after
+ * unlocking the vault again doesn't download the metadata file of each shortened node.
+ *
+ * The long names are ciphertext names which are stored unencrypted in the metadata files of the cloud anyway, so they are persisted as is.
+ * The short name of a node is derived from its long name, thus entries are verified against their short name when read and can't become
+ * stale. The entries of a vault are cleared once adding long names would exceed `maxEntries` of them.
+ */
+class PersistentLongNameCache @JvmOverloads internal constructor(
+	private val database: Database?, //
+	private val vaultId: Long?, //
+	private val maxEntries: Int = MAX_ENTRIES_PER_VAULT
+) {
+
+	private val enabled = database != null && vaultId != null
+
+	/**
+	 * @return the persisted long names of the given short names, short names without a valid persisted long name are missing in the result
+	 */
+	fun getAll(shortNames: Collection<String>): Map<String, String> {
+		if (!enabled || shortNames.isEmpty()) {
+			return emptyMap()
+		}
+		synchronized(LOCK) {
+			return shortNames.distinct().chunked(MAX_NAMES_PER_QUERY).flatMap { chunk ->
+				database!!.queryBuilder(LongNameCacheEntity::class.java) //
+					.where(LongNameCacheEntityDao.Properties.VaultId.eq(vaultId), LongNameCacheEntityDao.Properties.ShortName.`in`(chunk)) //
+					.list()
+			}.filter { entity ->
+				(shortName(entity.longName) == entity.shortName).also { valid ->
+					if (!valid) {
+						Timber.tag("CryptoFs").w("Dropping invalid persisted long name")
+						database!!.delete(entity)
+					}
+				}
+			}.associate { it.shortName to it.longName }
+		}
+	}
+
+	fun put(shortName: String, longName: String) {
+		putAll(mapOf(shortName to longName))
+	}
+
+	fun putAll(longNames: Map<String, String>) {
+		if (!enabled || longNames.isEmpty()) {
+			return
+		}
+		synchronized(LOCK) {
+			try {
+				database!!.runInTx {
+					trimIfFull(longNames.size)
+					val persisted = getAll(longNames.keys)
+					longNames //
+						.filter { (shortName, _) -> shortName !in persisted } //
+						.forEach { (shortName, longName) -> database.create(LongNameCacheEntity(null, vaultId, shortName, longName)) }
+				}
+			} catch (e: SQLiteConstraintException) {
+				Timber.tag("CryptoFs").w(e, "Failed to persist long names")
+			}
+		}
+	}
+
+	private fun trimIfFull(added: Int) {
+		val count = database!!.queryBuilder(LongNameCacheEntity::class.java).where(LongNameCacheEntityDao.Properties.VaultId.eq(vaultId)).count()
+		if (count + added > maxEntries) {
+			Timber.tag("CryptoFs").i("Clearing %d persisted long names of vault", count)
+			database.queryBuilder(LongNameCacheEntity::class.java) //
+				.where(LongNameCacheEntityDao.Properties.VaultId.eq(vaultId)) //
+				.list() //
+				.forEach { database.delete(it) }
+		}
+	}
+
+	companion object {
+
+		private const val LONG_NAME_FILE_EXT = ".lng"
+		private const val MAX_ENTRIES_PER_VAULT = 50_000
+
+		// stays below SQLite's default limit of 999 host parameters per statement
+		private const val MAX_NAMES_PER_QUERY = 500
+
+		private val BASE32: BaseNCodec = Base32()
+
+		private val LOCK = Any()
+
+		@JvmField
+		val DISABLED = PersistentLongNameCache(null, null)
+
+		/**
+		 * @return the name of the metadata file holding `longName` in vault format 6 or older
+		 */
+		fun shortName(longName: String): String {
+			return BASE32.encodeAsString(MessageDigestSupplier.SHA1.get().digest(longName.toByteArray(StandardCharsets.UTF_8))) + LONG_NAME_FILE_EXT
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.cryptomator.data.cloud.crypto
+
+/**
+ * Folders resolved from cleartext paths, so resolving the same path again (e.g. the target folder of the auto photo upload) doesn't
+ * require any requests.
+ *
+ * A resolved folder is only valid as long as the directory IDs of its ancestors it was resolved with are still cached in the [DirIdCache].
+ * Evicting them, e.g. because an ancestor is listed again to pick up remote changes, requires resolving the path again. The entries of a
+ * folder and its subfolders are invalidated as soon as the folder is moved or deleted.
+ */
+internal class ResolvedPathCache(private val maxEntries: Int = DEFAULT_MAX_ENTRIES) {
+
+	// resolved paths in access order, the least recently used path comes first
+	private val entries = LinkedHashMap<String, ResolvedPath>(16, 0.75f, true)
+
+	// incremented by each invalidation, so paths resolved concurrently to an invalidation aren't cached
+	private var generation = 0L
+
+	@Synchronized
+	operator fun get(path: String): ResolvedPath? {
+		return entries[path]
+	}
+
+	@Synchronized
+	fun generation(): Long {
+		return generation
+	}
+
+	/**
+	 * Caches the resolved path unless the cache was invalidated since `generation` was retrieved.
+	 */
+	@Synchronized
+	fun put(resolvedPath: ResolvedPath, generation: Long) {
+		if (this.generation != generation) {
+			return
+		}
+		entries[resolvedPath.folder.path] = resolvedPath
+		val iterator = entries.keys.iterator()
+		while (entries.size > maxEntries && iterator.hasNext()) {
+			iterator.next()
+			iterator.remove()
+		}
+	}
+
+	@Synchronized
+	fun invalidate(folder: CryptoFolder) {
+		generation++
+		if (RootCryptoFolder.isRoot(folder)) {
+			entries.clear()
+		} else {
+			val subfolderPrefix = folder.path + "/"
+			entries.keys.removeIf { it == folder.path || it.startsWith(subfolderPrefix) }
+		}
+	}
+
+	@Synchronized
+	fun size(): Int {
+		return entries.size
+	}
+
+	class ResolvedPath(val folder: CryptoFolder, dirIdCache: DirIdCache) {
+
+		// the ancestors of the resolved folder below the root and the directory IDs the path was resolved with
+		private val ancestors = generateSequence(folder.parent) { it.parent } //
+			.filterNot { RootCryptoFolder.isRoot(it) } //
+			.map { it to dirIdCache[it]?.id } //
+			.toList()
+
+		/**
+		 * @return if the directory IDs of all ancestors are still cached and unchanged, so the resolved folder can be used as is
+		 */
+		fun isCurrent(dirIdCache: DirIdCache): Boolean {
+			return ancestors.all { (ancestor, dirId) -> dirId != null && dirIdCache[ancestor]?.id == dirId }
+		}
+	}
+
+	companion object {
+
+		private const val DEFAULT_MAX_ENTRIES = 256
+	}
+}
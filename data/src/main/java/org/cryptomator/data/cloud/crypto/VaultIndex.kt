@@ -0,0 +1,303 @@
+package org.cryptomator.data.cloud.crypto
+
+import com.google.common.io.BaseEncoding
+import org.cryptomator.cryptolib.api.AuthenticationFailedException
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.data.db.Database
+import org.cryptomator.data.db.entities.VaultIndexEntity
+import org.cryptomator.data.db.entities.VaultIndexEntityDao
+import org.cryptomator.domain.executor.DaemonExecutors
+import java.nio.charset.StandardCharsets
+import java.util.Date
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.function.Supplier
+import timber.log.Timber
+
+/**
+ * Index of the cleartext names, sizes and modification dates of the nodes of a vault persisted in the database, so the contents of a
+ * folder listed before can be shown without contacting the cloud and the vault can be searched locally. The directory IDs are persisted
+ * by the [PersistentDirIdCache].
+ *
+ * The index is maintained incrementally: each listing replaces the indexed contents of the listed folder and each change made through the
+ * vault updates the affected entries. Changes made by other clients are picked up the next time the affected folder is listed.
+ *
+ * Like the [PersistentDirIdCache], entries are keyed by a keyed hash of the cleartext path and the nodes are encrypted and authenticated
+ * bound to that hash, both using the name keys of the vault's masterkey.
+ *
+ * Once a vault has more than `maxEntries` entries, the contents of the folders indexed first are dropped until a tenth of the entries is
+ * free again. These folders show up as not listed until they are listed again.
+ */
+class VaultIndex @JvmOverloads internal constructor(
+	private val database: Database?, //
+	private val vaultId: Long?, //
+	private val cryptor: Supplier<Cryptor>, //
+	private val maxEntries: Int = MAX_ENTRIES_PER_VAULT, //
+	private val updates: Executor = UPDATES
+) {
+
+	private val enabled = database != null && vaultId != null
+
+	// serializes the changes of the entries of the vault
+	private val lock = vaultId?.let { LOCKS.computeIfAbsent(it) { Any() } } ?: Any()
+
+	/**
+	 * @return the indexed contents of the folder or `null` if the folder hasn't been listed completely yet
+	 */
+	fun list(folder: CryptoFolder): List<IndexedNode>? {
+		if (!enabled) {
+			return null
+		}
+		synchronized(lock) {
+			val pathHash = pathHash(folder.path)
+			if (find(pathHash)?.listed != true) {
+				return null
+			}
+			return children(pathHash).mapNotNull { decrypt(it) }
+		}
+	}
+
+	/**
+	 * @return all indexed nodes of the vault
+	 */
+	fun all(): List<IndexedNode> {
+		if (!enabled) {
+			return emptyList()
+		}
+		synchronized(lock) {
+			return entities().mapNotNull { decrypt(it) }
+		}
+	}
+
+	/**
+	 * Replaces the indexed contents of the folder with the listed `nodes`. Indexed subtrees of nodes which don't exist anymore are dropped.
+	 */
+	fun listed(folder: CryptoFolder, nodes: List<IndexedNode>) {
+		update { replaceChildren(folder, nodes) }
+	}
+
+	/**
+	 * Adds or updates the node, e.g. because it was created, written or moved there.
+	 */
+	fun added(node: IndexedNode) {
+		update { addOrUpdate(node) }
+	}
+
+	/**
+	 * Drops the entries of the node and, if it is a folder, all its subfolders, e.g. because it was moved or deleted.
+	 */
+	fun removed(node: CryptoNode) {
+		update { remove(node) }
+	}
+
+	/**
+	 * Applies the update in the background. Updates are applied one after another in the order they were made, so e.g. a listing can't
+	 * resurrect a node deleted afterwards.
+	 */
+	private fun update(update: () -> Unit) {
+		if (!enabled) {
+			return
+		}
+		updates.execute {
+			try {
+				update()
+			} catch (e: RuntimeException) {
+				Timber.tag("CryptoFs").e(e, "Failed to update vault index")
+			}
+		}
+	}
+
+	private fun replaceChildren(folder: CryptoFolder, nodes: List<IndexedNode>) {
+		val pathHash = pathHash(folder.path)
+		val encryptedNodes = nodes.associate { pathHash(it.path) to encrypt(it) }
+		synchronized(lock) {
+			database!!.runInTx {
+				trimIfFull(nodes.size)
+				val indexedChildren = children(pathHash).associateBy { it.pathHash }
+				indexedChildren.values //
+					.filter { it.pathHash !in encryptedNodes } //
+					.forEach { evictSubtree(it.pathHash) }
+				nodes.forEach { node ->
+					val childPathHash = pathHash(node.path)
+					val indexedChild = indexedChildren[childPathHash]
+					if (indexedChild?.listed == true && !node.folder) {
+						// a listed folder has been replaced by a file with the same name
+						children(childPathHash).forEach { evictSubtree(it.pathHash) }
+					}
+					store(indexedChild, childPathHash, pathHash, encryptedNodes.getValue(childPathHash), node.folder && indexedChild?.listed == true)
+				}
+				val indexedFolder = find(pathHash)
+				store(indexedFolder, pathHash, folder.parent?.let { pathHash(it.path) }, indexedFolder?.encryptedNode, true)
+			}
+		}
+	}
+
+	private fun addOrUpdate(node: IndexedNode) {
+		val pathHash = pathHash(node.path)
+		val parentPathHash = pathHash(parentPath(node.path))
+		val encryptedNode = encrypt(node)
+		synchronized(lock) {
+			val indexed = find(pathHash)
+			store(indexed, pathHash, parentPathHash, encryptedNode, node.folder && indexed?.listed == true)
+		}
+	}
+
+	private fun remove(node: CryptoNode) {
+		synchronized(lock) {
+			if (node is CryptoFolder && RootCryptoFolder.isRoot(node)) {
+				clear()
+			} else {
+				database!!.runInTx { evictSubtree(pathHash(node.path)) }
+			}
+		}
+	}
+
+	private fun store(entity: VaultIndexEntity?, pathHash: String, parentPathHash: String?, encryptedNode: String?, listed: Boolean) {
+		if (entity == null) {
+			database!!.create(VaultIndexEntity(null, vaultId, pathHash, parentPathHash, encryptedNode, listed))
+		} else if (entity.parentPathHash != parentPathHash || entity.encryptedNode != encryptedNode || entity.listed != listed) {
+			entity.parentPathHash = parentPathHash
+			entity.encryptedNode = encryptedNode
+			entity.listed = listed
+			database!!.store(entity)
+		}
+	}
+
+	private fun evictSubtree(pathHash: String) {
+		val pending = ArrayDeque(listOf(pathHash))
+		while (pending.isNotEmpty()) {
+			val next = pending.removeFirst()
+			children(next).forEach { pending.add(it.pathHash) }
+			find(next)?.let { database!!.delete(it) }
+		}
+	}
+
+	/**
+	 * Drops the contents of the folders indexed first if adding `added` entries exceeds `maxEntries`, until a tenth of the entries is free.
+	 */
+	private fun trimIfFull(added: Int) {
+		val count = database!!.queryBuilder(VaultIndexEntity::class.java).where(VaultIndexEntityDao.Properties.VaultId.eq(vaultId)).count()
+		if (count + added <= maxEntries) {
+			return
+		}
+		val excess = count + added - maxEntries + maxEntries / 10
+		var dropped = 0L
+		while (dropped < excess) {
+			val oldestListedFolders = database.queryBuilder(VaultIndexEntity::class.java) //
+				.where(VaultIndexEntityDao.Properties.VaultId.eq(vaultId), VaultIndexEntityDao.Properties.Listed.eq(true)) //
+				.orderAsc(VaultIndexEntityDao.Properties.Id) //
+				.limit(TRIM_BATCH_SIZE) //
+				.list()
+			if (oldestListedFolders.isEmpty()) {
+				break
+			}
+			for (folder in oldestListedFolders) {
+				if (dropped >= excess) {
+					break
+				}
+				dropped += dropContents(folder)
+			}
+		}
+		Timber.tag("CryptoFs").i("Dropped %d of %d indexed nodes of vault", dropped, count)
+	}
+
+	/**
+	 * Drops the indexed contents of the folder, so it shows up as not listed. Subfolders with indexed contents of their own are kept, their
+	 * contents are dropped separately.
+	 *
+	 * @return the number of dropped entries
+	 */
+	private fun dropContents(folder: VaultIndexEntity): Int {
+		val dropped = children(folder.pathHash) //
+			.filter { children(it.pathHash).isEmpty() } //
+			.onEach { database!!.delete(it) } //
+			.size
+		folder.listed = false
+		database!!.store(folder)
+		return dropped
+	}
+
+	private fun clear() {
+		database!!.runInTx { entities().forEach { database.delete(it) } }
+	}
+
+	private fun find(pathHash: String): VaultIndexEntity? {
+		return database!!.queryBuilder(VaultIndexEntity::class.java) //
+			.where(VaultIndexEntityDao.Properties.VaultId.eq(vaultId), VaultIndexEntityDao.Properties.PathHash.eq(pathHash)) //
+			.unique()
+	}
+
+	private fun children(pathHash: String): List<VaultIndexEntity> {
+		return database!!.queryBuilder(VaultIndexEntity::class.java) //
+			.where(VaultIndexEntityDao.Properties.VaultId.eq(vaultId), VaultIndexEntityDao.Properties.ParentPathHash.eq(pathHash)) //
+			.list()
+	}
+
+	private fun entities(): List<VaultIndexEntity> {
+		return database!!.queryBuilder(VaultIndexEntity::class.java).where(VaultIndexEntityDao.Properties.VaultId.eq(vaultId)).list()
+	}
+
+	private fun encrypt(node: IndexedNode): String {
+		val serialized = listOf( //
+			if (node.folder) TYPE_FOLDER else TYPE_FILE, //
+			node.size?.toString() ?: "", //
+			node.modified?.time?.toString() ?: "", //
+			node.ciphertextPath, //
+			node.path
+		).joinToString(SEPARATOR)
+		return cryptor.get().fileNameCryptor().encryptFilename(BaseEncoding.base64Url(), serialized, associatedData(pathHash(node.path)))
+	}
+
+	private fun decrypt(entity: VaultIndexEntity): IndexedNode? {
+		val encryptedNode = entity.encryptedNode ?: return null
+		return try {
+			val fields = cryptor.get().fileNameCryptor().decryptFilename(BaseEncoding.base64Url(), encryptedNode, associatedData(entity.pathHash)).split(SEPARATOR, limit = 5)
+			IndexedNode(fields[4], fields[0] == TYPE_FOLDER, fields[1].toLongOrNull(), fields[2].toLongOrNull()?.let { Date(it) }, fields[3])
+		} catch (e: AuthenticationFailedException) {
+			Timber.tag("CryptoFs").w("Ignoring unauthentic indexed node")
+			null
+		}
+	}
+
+	private fun pathHash(path: String): String {
+		return cryptor.get().fileNameCryptor().hashDirectoryId(DOMAIN + path)
+	}
+
+	private fun associatedData(pathHash: String): ByteArray {
+		return (DOMAIN + pathHash).toByteArray(StandardCharsets.UTF_8)
+	}
+
+	private fun parentPath(path: String): String {
+		return path.substring(0, path.lastIndexOf('/').coerceAtLeast(0))
+	}
+
+	/**
+	 * A node of the vault as last seen.
+	 *
+	 * @param ciphertextPath the path of the node in the underlying cloud relative to the directory of its parent folder, i.e. the path of the
+	 * [CryptoFile.cloudFile] or the [CryptoFolder.dirFile]
+	 */
+	class IndexedNode(val path: String, val folder: Boolean, val size: Long?, val modified: Date?, val ciphertextPath: String) {
+
+		val name: String
+			get() = path.substring(path.lastIndexOf('/') + 1)
+	}
+
+	companion object {
+
+		// separates the hashes and associated data from the ones of the persisted directory IDs and directory IDs
+		private const val DOMAIN = "vaultIndex:"
+		private const val SEPARATOR = "\n"
+		private const val TYPE_FILE = "F"
+		private const val TYPE_FOLDER = "D"
+		private const val MAX_ENTRIES_PER_VAULT = 100_000
+		private const val TRIM_BATCH_SIZE = 100
+
+		private val LOCKS = ConcurrentHashMap<Long, Any>()
+
+		private val UPDATES = DaemonExecutors.singleThread("vault_index")
+
+		@JvmField
+		val DISABLED = VaultIndex(null, null, { throw IllegalStateException("Vault index disabled") })
+	}
+}
@@ -93,6 +93,18 @@ class LocalStorageAccessFrameworkContentRepository(context: Context, mimeTypes:
 		}
 	}
 
+	@Throws(BackendException::class)
+	override fun read(file: LocalStorageAccessFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		try {
+			if (file.documentId == null) {
+				throw NoSuchCloudFileException(file.name)
+			}
+			localStorageAccessFramework.read(file, offset, length, data, progressAware)
+		} catch (e: IOException) {
+			throw FatalBackendException(e)
+		}
+	}
+
 	@Throws(BackendException::class)
 	override fun delete(node: LocalStorageAccessNode) {
 		localStorageAccessFramework.delete(node)
@@ -5,6 +5,7 @@ import android.content.Context
 import android.content.UriPermission
 import android.net.Uri
 import android.os.Build
+import android.os.ParcelFileDescriptor
 import android.provider.DocumentsContract
 import androidx.documentfile.provider.DocumentFile
 import org.cryptomator.data.cloud.local.LocalStorageAccessFrameworkNodeFactory.file
@@ -29,6 +30,7 @@ import org.cryptomator.domain.usecases.cloud.Progress
 import org.cryptomator.domain.usecases.cloud.UploadState
 import org.cryptomator.util.file.MimeType
 import org.cryptomator.util.file.MimeTypes
+import java.io.FileInputStream
 import java.io.FileNotFoundException
 import java.io.FileOutputStream
 import java.io.IOException
@@ -368,6 +370,38 @@ internal class LocalStorageAccessFrameworkImpl(private val context: Context, pri
 		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
 	}
 
+	@Throws(IOException::class)
+	fun read(file: LocalStorageAccessFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		progressAware.onProgress(Progress.started(DownloadState.download(file)))
+		contentResolver().openFileDescriptor(file.uri, "r")?.let { fileDescriptor ->
+			ParcelFileDescriptor.AutoCloseInputStream(fileDescriptor).use { inputStream ->
+				seek(inputStream, offset)
+				object : TransferredBytesAwareOutputStream(data) {
+					override fun bytesTransferred(transferred: Long) {
+						progressAware.onProgress(
+							Progress.progress(DownloadState.download(file)) //
+								.between(0) //
+								.and(length) //
+								.withValue(transferred)
+						)
+					}
+				}.use { out -> CopyStream.copyStreamToStream(inputStream, out, length) }
+			}
+		} ?: throw FatalBackendException("FileDescriptor shouldn't be null")
+		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
+	}
+
+	/**
+	 * Many documents providers return pipes, which can't be positioned. The bytes before `offset` are skipped then.
+	 */
+	private fun seek(inputStream: FileInputStream, offset: Long) {
+		try {
+			inputStream.channel.position(offset)
+		} catch (e: IOException) {
+			CopyStream.skip(inputStream, offset)
+		}
+	}
+
 	@Throws(NoSuchCloudFileException::class)
 	fun delete(node: LocalStorageAccessNode) {
 		requireNotNull(node.uri)
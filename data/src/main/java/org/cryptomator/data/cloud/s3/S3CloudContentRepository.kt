@@ -154,6 +154,15 @@ internal class S3CloudContentRepository(private val cloud: S3Cloud, client: Mini
 			}
 		}
 
+		@Throws(BackendException::class)
+		override fun read(file: S3File, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+			try {
+				cloud.read(file, offset, length, data, progressAware)
+			} catch (e: IOException) {
+				throw FatalBackendException(e)
+			}
+		}
+
 		@Throws(BackendException::class)
 		override fun delete(node: S3Node) {
 			try {
@@ -283,6 +283,29 @@ internal class S3Impl(private val cloud: S3Cloud, private val client: MinioClien
 		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
 	}
 
+	@Throws(IOException::class, BackendException::class)
+	fun read(file: S3File, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		progressAware.onProgress(Progress.started(DownloadState.download(file)))
+		val getObjectArgs = GetObjectArgs.builder().bucket(cloud.s3Bucket()).`object`(file.key).offset(offset).length(length).build()
+		try {
+			client.getObject(getObjectArgs).use { response ->
+				object : TransferredBytesAwareOutputStream(data) {
+					override fun bytesTransferred(transferred: Long) {
+						progressAware.onProgress( //
+							Progress.progress(DownloadState.download(file)) //
+								.between(0) //
+								.and(length) //
+								.withValue(transferred)
+						)
+					}
+				}.use { out -> CopyStream.copyStreamToStream(response, out) }
+			}
+		} catch (e: ErrorResponseException) {
+			throw handleApiError(e, file.path)
+		}
+		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
+	}
+
 	@Throws(IOException::class, BackendException::class)
 	fun delete(node: S3Node) = if (node is S3Folder) {
 		deleteFolder(node)
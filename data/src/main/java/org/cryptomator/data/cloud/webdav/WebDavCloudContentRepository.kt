@@ -29,6 +29,7 @@ import java.io.IOException
 import java.io.OutputStream
 import java.net.SocketTimeoutException
 import java.net.UnknownHostException
+import java.util.function.Consumer
 import javax.inject.Singleton
 import javax.net.ssl.SSLHandshakeException
 
@@ -125,8 +126,13 @@ internal class WebDavCloudContentRepository(private val cloud: WebDavCloud, conn
 
 		@Throws(BackendException::class)
 		override fun list(folder: WebDavFolder): List<WebDavNode> {
+			return listInPages(folder) {}
+		}
+
+		@Throws(BackendException::class)
+		override fun listInPages(folder: WebDavFolder, onPage: Consumer<List<WebDavNode>>): List<WebDavNode> {
 			return try {
-				webDavImpl.list(folder)
+				webDavImpl.list(folder, onPage)
 			} catch (e: BackendException) {
 				if (ExceptionUtil.contains(e, NotFoundException::class.java)) {
 					throw NoSuchCloudFileException()
@@ -204,6 +210,27 @@ internal class WebDavCloudContentRepository(private val cloud: WebDavCloud, conn
 			}
 		}
 
+		@Throws(BackendException::class)
+		override fun read(file: WebDavFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+			try {
+				webDavImpl.read(file, offset, length, data, progressAware)
+			} catch (e: BackendException) {
+				when {
+					ExceptionUtil.contains(e, NotFoundException::class.java) -> {
+						throw NoSuchCloudFileException(file.name)
+					}
+					else -> {
+						throw e
+					}
+				}
+			} catch (e: IOException) {
+				if (ExceptionUtil.contains(e, NotFoundException::class.java)) {
+					throw NoSuchCloudFileException(file.name)
+				}
+				throw FatalBackendException(e)
+			}
+		}
+
 		@Throws(BackendException::class)
 		override fun delete(node: WebDavNode) {
 			try {
@@ -24,6 +24,7 @@ import org.cryptomator.domain.usecases.cloud.UploadState
 import java.io.IOException
 import java.io.OutputStream
 import java.util.Date
+import java.util.function.Consumer
 import okhttp3.HttpUrl.Companion.toHttpUrlOrNull
 
 internal class WebDavImpl(private val cloud: WebDavCloud, private val connectionHandler: ConnectionHandlerHandlerImpl, private val context: Context) {
@@ -64,8 +65,8 @@ internal class WebDavImpl(private val cloud: WebDavCloud, private val connection
 	}
 
 	@Throws(BackendException::class)
-	fun list(folder: WebDavFolder): List<WebDavNode> {
-		return connectionHandler.dirList(absoluteUriFrom(folder.path), folder)
+	fun list(folder: WebDavFolder, onPage: Consumer<List<WebDavNode>>): List<WebDavNode> {
+		return connectionHandler.dirList(absoluteUriFrom(folder.path), folder, onPage)
 	}
 
 	@Throws(BackendException::class)
@@ -168,6 +169,24 @@ internal class WebDavImpl(private val cloud: WebDavCloud, private val connection
 		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
 	}
 
+	@Throws(BackendException::class, IOException::class)
+	fun read(file: CloudFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		progressAware.onProgress(Progress.started(DownloadState.download(file)))
+		connectionHandler.readFile(absoluteUriFrom(file.path), offset, length).use { inputStream ->
+			object : TransferredBytesAwareOutputStream(data) {
+				override fun bytesTransferred(transferred: Long) {
+					progressAware.onProgress( //
+						Progress.progress(DownloadState.download(file)) //
+							.between(0) //
+							.and(length) //
+							.withValue(transferred)
+					)
+				}
+			}.use { out -> CopyStream.copyStreamToStream(inputStream, out, length) }
+		}
+		progressAware.onProgress(Progress.completed(DownloadState.download(file)))
+	}
+
 	@Throws(BackendException::class)
 	fun delete(node: CloudNode) {
 		connectionHandler.delete(absoluteUriFrom(node.path))
@@ -6,6 +6,7 @@ import org.cryptomator.domain.CloudFolder
 import org.cryptomator.domain.exception.BackendException
 import java.io.InputStream
 import java.util.Date
+import java.util.function.Consumer
 import javax.inject.Inject
 
 class ConnectionHandlerHandlerImpl @Inject internal constructor(httpClient: WebDavCompatibleHttpClient) {
@@ -13,8 +14,8 @@ class ConnectionHandlerHandlerImpl @Inject internal constructor(httpClient: WebD
 	private val webDavClient: WebDavClient = WebDavClient(httpClient)
 
 	@Throws(BackendException::class)
-	fun dirList(url: String, listedFolder: WebDavFolder): List<WebDavNode> {
-		return webDavClient.dirList(url, listedFolder)
+	fun dirList(url: String, listedFolder: WebDavFolder, onPage: Consumer<List<WebDavNode>>): List<WebDavNode> {
+		return webDavClient.dirList(url, listedFolder, onPage)
 	}
 
 	@Throws(BackendException::class)
@@ -47,6 +48,11 @@ class ConnectionHandlerHandlerImpl @Inject internal constructor(httpClient: WebD
 		return webDavClient.readFile(url)
 	}
 
+	@Throws(BackendException::class)
+	fun readFile(url: String, offset: Long, length: Long): InputStream {
+		return webDavClient.readFile(url, offset, length)
+	}
+
 	@Throws(BackendException::class)
 	fun checkAuthenticationAndServerCompatibility(url: String) {
 		webDavClient.checkAuthenticationAndServerCompatibility(url)
@@ -6,14 +6,16 @@ import org.cryptomator.data.cloud.webdav.WebDavNode
 import java.io.UnsupportedEncodingException
 import java.net.URLDecoder
 import java.util.Date
-import java.util.regex.Pattern
 
 internal class PropfindEntryData {
 
 	var path: String? = null
 		private set
 
-	lateinit var pathSegments: Array<String>
+	// the number of segments of the path, not counting a trailing slash
+	private var depth = 0
+
+	private var name = ""
 
 	private var isFile = true
 
@@ -22,9 +24,9 @@ internal class PropfindEntryData {
 	var size: Long? = null
 
 	private fun extractPath(pathOrUri: String): String {
-		val matcher = URI_PATTERN.matcher(pathOrUri)
-		return if (matcher.matches()) {
-			urlDecode(matcher.group(1))
+		val uriPathStart = uriPathStart(pathOrUri)
+		return if (uriPathStart >= 0) {
+			urlDecode(pathOrUri.substring(uriPathStart))
 		} else if (!pathOrUri.startsWith("/")) {
 			urlDecode("/$pathOrUri")
 		} else {
@@ -32,20 +34,56 @@ internal class PropfindEntryData {
 		}
 	}
 
+	/**
+	 * @return the start of the path following the slash after the host if `pathOrUri` is an absolute URI like `https://host/path`, the end
+	 * of `pathOrUri` if it is an absolute URI without a path like `https://host`, `-1` otherwise
+	 */
+	private fun uriPathStart(pathOrUri: String): Int {
+		val schemeEnd = pathOrUri.indexOf("://")
+		if (schemeEnd <= 0) {
+			return -1
+		}
+		for (i in 0 until schemeEnd) {
+			if (pathOrUri[i] !in 'a'..'z') {
+				return -1
+			}
+		}
+		val hostStart = schemeEnd + 3
+		val hostEnd = pathOrUri.indexOf('/', hostStart).let { if (it < 0) pathOrUri.length else it }
+		return if (hostEnd > hostStart) (hostEnd + 1).coerceAtMost(pathOrUri.length) else -1
+	}
+
 	fun setLastModified(lastModified: Date?) {
 		this.lastModified = lastModified
 	}
 
 	fun setPath(pathOrUri: String) {
 		path = extractPath(pathOrUri).also {
-			var pathSegs = it.split("/")
-			if (pathSegs.last() == "") {
-				pathSegs = pathSegs.subList(0, pathSegs.size - 1)
+			val end = if (it.endsWith('/')) it.length - 1 else it.length
+			depth = if (end < it.length || it.isEmpty()) 0 else 1
+			for (char in it) {
+				if (char == '/') {
+					depth++
+				}
 			}
-			pathSegments = pathSegs.toTypedArray()
+			name = it.substring(it.lastIndexOf('/', end - 1) + 1, end)
 		}
 	}
 
+	/**
+	 * @return if both paths consist of the same segments, ignoring leading and trailing slashes
+	 */
+	fun hasSamePathAs(other: PropfindEntryData): Boolean {
+		val path = path ?: return false
+		val otherPath = other.path ?: return false
+		val start = path.indexOfFirst { it != '/' }.coerceAtLeast(0)
+		val end = path.indexOfLast { it != '/' } + 1
+		val otherStart = otherPath.indexOfFirst { it != '/' }.coerceAtLeast(0)
+		val otherEnd = otherPath.indexOfLast { it != '/' } + 1
+		val length = (end - start).coerceAtLeast(0)
+		return length == (otherEnd - otherStart).coerceAtLeast(0) && path.regionMatches(start, otherPath, otherStart, length)
+	}
+
 	fun toCloudNode(parent: WebDavFolder): WebDavNode {
 		return if (isFile) {
 			WebDavFile(parent, getName(), size, lastModified)
@@ -55,6 +93,10 @@ internal class PropfindEntryData {
 	}
 
 	private fun urlDecode(value: String): String {
+		if (value.indexOf('%') < 0 && value.indexOf('+') < 0) {
+			// nothing to decode, spares the copy made by the decoder
+			return value
+		}
 		return try {
 			URLDecoder.decode(value, "UTF-8")
 		} catch (e: UnsupportedEncodingException) {
@@ -63,19 +105,14 @@ internal class PropfindEntryData {
 	}
 
 	fun getDepth(): Int {
-		return pathSegments.size
+		return depth
 	}
 
 	private fun getName(): String {
-		return pathSegments[pathSegments.size - 1]
+		return name
 	}
 
 	fun setFile(boolean: Boolean) {
 		isFile = boolean
 	}
-
-	companion object {
-
-		private val URI_PATTERN = Pattern.compile("^[a-z]+://[^/]+/(.*)$")
-	}
 }
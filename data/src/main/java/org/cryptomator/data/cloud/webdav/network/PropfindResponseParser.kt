@@ -1,30 +1,132 @@
 package org.cryptomator.data.cloud.webdav.network
 
 import org.cryptomator.data.cloud.webdav.WebDavFolder
+import org.cryptomator.data.cloud.webdav.WebDavNode
 import org.cryptomator.domain.exception.FatalBackendException
 import org.xmlpull.v1.XmlPullParser
 import org.xmlpull.v1.XmlPullParserException
 import org.xmlpull.v1.XmlPullParserFactory
 import java.io.IOException
 import java.io.InputStream
+import java.time.Instant
+import java.time.format.DateTimeFormatterBuilder
+import java.time.format.DateTimeParseException
+import java.time.format.SignStyle
+import java.time.format.TextStyle
+import java.time.temporal.ChronoField
 import java.util.Date
+import java.util.Locale
 import timber.log.Timber
 
-internal class PropfindResponseParser(private val requestedFolder: WebDavFolder) {
+/**
+ * Parses the multistatus response of a PROPFIND request.
+ *
+ * Responses of huge folders contain tens of thousands of entries, so the parser avoids allocations per element where possible: tag names
+ * and status lines are compared in place, dates are parsed using a shared formatter and properties of `propstat` elements without a 200
+ * status aren't parsed at all.
+ */
+internal class PropfindResponseParser @JvmOverloads constructor(
+	private val requestedFolder: WebDavFolder,
+	requestedUrl: String? = null,
+	private val xmlPullParser: XmlPullParser = newPullParser()
+) {
 
-	private var xmlPullParser: XmlPullParser
+	// the entry of the requested URL, to identify the entry of the requested folder by its href
+	private val requestedEntry = requestedUrl?.let { PropfindEntryData().apply { setPath(it) } }
+
+	// the most recently parsed date, entries listed together often share their modification date
+	private var lastDateText: String? = null
+	private var lastDate: Date? = null
+
+	// the depth of the requested folder's entry, null until the entry is identified
+	private var requestedDepth: Int? = null
+
+	// entries pulled before the requested folder's entry is identified, all of the same depth
+	private val undecided = ArrayDeque<PropfindEntryData>()
+
+	// entries known to be contained in the requested folder which aren't pulled yet
+	private val children = ArrayDeque<PropfindEntryData>()
+
+	private var endOfResponse = false
 
 	@Throws(XmlPullParserException::class, IOException::class)
 	fun parse(responseBody: InputStream?): List<PropfindEntryData> {
 		val entryData: MutableList<PropfindEntryData> = ArrayList()
+		begin(responseBody)
+		while (true) {
+			entryData.add(nextEntry() ?: break)
+		}
+		return entryData
+	}
+
+	@Throws(XmlPullParserException::class)
+	fun begin(responseBody: InputStream?) {
 		xmlPullParser.setInput(responseBody, "UTF-8")
+	}
+
+	/**
+	 * Pulls the next node contained in the requested folder from the response of a PROPFIND request with depth 1, as soon as its
+	 * `response` element is complete. [begin] has to be called first.
+	 *
+	 * The entry of the requested folder itself is identified by its href. If the server responds with hrefs which don't match the requested
+	 * URL, the entry is identified by being less deep than the others, which requires buffering entries only until an entry of another
+	 * depth is pulled.
+	 *
+	 * @return the next node or `null` if the response contains no more nodes
+	 */
+	@Throws(XmlPullParserException::class, IOException::class)
+	fun nextNode(): WebDavNode? {
+		while (children.isEmpty() && !endOfResponse) {
+			val entry = nextEntry()
+			if (entry == null) {
+				endOfResponse = true
+				// like the remaining entries, the requested folder's entry comes first if it couldn't be identified
+				undecided.removeFirstOrNull()
+				children.addAll(undecided)
+			} else {
+				accept(entry)
+			}
+		}
+		return children.removeFirstOrNull()?.toCloudNode(requestedFolder)
+	}
+
+	private fun accept(entry: PropfindEntryData) {
+		val undecidedDepth = undecided.firstOrNull()?.getDepth()
+		when {
+			requestedDepth != null -> {
+				children.add(entry)
+			}
+			requestedEntry != null && entry.hasSamePathAs(requestedEntry) -> {
+				requestedDepth = entry.getDepth()
+				children.addAll(undecided)
+			}
+			undecidedDepth == null || undecidedDepth == entry.getDepth() -> {
+				undecided.add(entry)
+				return
+			}
+			entry.getDepth() < undecidedDepth -> {
+				requestedDepth = entry.getDepth()
+				children.addAll(undecided)
+			}
+			else -> {
+				requestedDepth = undecidedDepth
+				undecided.removeFirst()
+				children.addAll(undecided)
+				children.add(entry)
+			}
+		}
+		undecided.clear()
+	}
+
+	@Throws(XmlPullParserException::class, IOException::class)
+	private fun nextEntry(): PropfindEntryData? {
 		while (skipToStartOf(TAG_RESPONSE)) {
 			val entry = parseResponse()
 			if (entry != null) {
-				entryData.add(entry)
+				return entry
 			}
 		}
-		return entryData
+		return null
 	}
 
 	@Throws(XmlPullParserException::class, IOException::class)
@@ -62,34 +164,57 @@ internal class PropfindResponseParser(private val requestedFolder: WebDavFolder)
 
 	@Throws(IOException::class, XmlPullParserException::class)
 	private fun parsePropstatWith200Status(): PropfindEntryData? {
-		val result = PropfindEntryData()
 		var statusOk = false
+		var collection = false
+		// the status follows the properties, so their values are parsed once the status is known to be 200
+		var lastModifiedText: String? = null
+		var contentLengthText: String? = null
 		while (nextTagUntilEndOf(TAG_PROPSTAT)) {
 			when {
 				tagIs(TAG_STATUS) -> {
-					val text = textInCurrentTag().trim { it <= ' ' }
-					val statusSegments = text.split(" ".toRegex()).toTypedArray()
-					val code = if (statusSegments.isNotEmpty()) statusSegments[1] else ""
-					statusOk = STATUS_OK == code
+					statusOk = isStatusOk(textInCurrentTag())
 				}
 				tagIs(TAG_COLLECTION) -> {
-					result.setFile(false)
+					collection = true
 				}
 				tagIs(TAG_LAST_MODIFIED) -> {
-					result.setLastModified(parseDate(textInCurrentTag()))
+					lastModifiedText = textInCurrentTag()
 				}
 				tagIs(TAG_CONTENT_LENGTH) -> {
-					result.size = parseLong(textInCurrentTag())
+					contentLengthText = textInCurrentTag()
 				}
 			}
 		}
-		return if (statusOk) {
-			result
-		} else {
-			null
+		if (!statusOk) {
+			return null
+		}
+		return PropfindEntryData().apply {
+			setFile(!collection)
+			setLastModified(lastModifiedText?.let { parseDate(it) })
+			size = contentLengthText?.let { parseLong(it) }
 		}
 	}
 
+	/**
+	 * @return if the code of the status line, e.g. `HTTP/1.1 200 OK`, is 200
+	 */
+	private fun isStatusOk(statusLine: String): Boolean {
+		var start = 0
+		while (start < statusLine.length && statusLine[start] <= ' ') {
+			start++
+		}
+		var end = statusLine.length
+		while (end > start && statusLine[end - 1] <= ' ') {
+			end--
+		}
+		val codeStart = statusLine.indexOf(' ', start) + 1
+		val codeEnd = codeStart + STATUS_OK.length
+		if (codeStart == 0 || codeEnd > end) {
+			return false
+		}
+		return statusLine.regionMatches(codeStart, STATUS_OK, 0, STATUS_OK.length) && (codeEnd == end || statusLine[codeEnd] == ' ')
+	}
+
 	@Throws(XmlPullParserException::class, IOException::class)
 	private fun nextTagUntilEndOf(tag: String): Boolean {
 		do {
@@ -104,7 +229,10 @@ internal class PropfindResponseParser(private val requestedFolder: WebDavFolder)
 	}
 
 	private fun tagIs(tag: String): Boolean {
-		return tag.equals(localName(), ignoreCase = true)
+		// namespace processing is disabled, so the local name follows the namespace prefix of the raw name
+		val rawName = xmlPullParser.name
+		val localNameStart = rawName.indexOf(':') + 1
+		return rawName.length - localNameStart == tag.length && rawName.regionMatches(localNameStart, tag, 0, tag.length, ignoreCase = true)
 	}
 
 	@Throws(XmlPullParserException::class)
@@ -114,13 +242,7 @@ internal class PropfindResponseParser(private val requestedFolder: WebDavFolder)
 
 	@Throws(XmlPullParserException::class)
 	private fun endOf(tag: String): Boolean {
-		return xmlPullParser.eventType == XmlPullParser.END_TAG && tag.equals(localName(), ignoreCase = true)
-	}
-
-	private fun localName(): String {
-		val rawName = xmlPullParser.name
-		val namespaceAndLocalName = rawName.split(":".toRegex(), 2).toTypedArray()
-		return namespaceAndLocalName[namespaceAndLocalName.size - 1]
+		return xmlPullParser.eventType == XmlPullParser.END_TAG && tagIs(tag)
 	}
 
 	@Throws(XmlPullParserException::class)
@@ -131,16 +253,22 @@ internal class PropfindResponseParser(private val requestedFolder: WebDavFolder)
 	@Throws(IOException::class, XmlPullParserException::class)
 	private fun textInCurrentTag(): String {
 		check(startOfATag()) { "textInCurrentTag may only be called at start of a tag" }
-		val result = StringBuilder()
+		// the text of a tag is usually a single text event, which is returned without copying it
+		var text: String? = null
+		var builder: StringBuilder? = null
 		var ident = 0
 		do {
 			when (xmlPullParser.next()) {
-				XmlPullParser.TEXT -> result.append(xmlPullParser.text)
+				XmlPullParser.TEXT -> if (text == null) {
+					text = xmlPullParser.text
+				} else {
+					builder = (builder ?: StringBuilder(text)).append(xmlPullParser.text)
+				}
 				XmlPullParser.START_TAG -> ident++
 				XmlPullParser.END_TAG -> ident--
 			}
 		} while (!endOfDocument() && ident >= 0)
-		return result.toString()
+		return builder?.toString() ?: text ?: ""
 	}
 
 	private fun defaultIfNull(value: PropfindEntryData?, defaultValue: PropfindEntryData?): PropfindEntryData? {
@@ -148,6 +276,23 @@ internal class PropfindResponseParser(private val requestedFolder: WebDavFolder)
 	}
 
 	private fun parseDate(text: String): Date? {
+		if (text != lastDateText) {
+			lastDateText = text
+			lastDate = try {
+				Date.from(HTTP_DATE_FORMATTER.parse(text.trim(), Instant::from))
+			} catch (e: DateTimeParseException) {
+				parseDateLeniently(text)
+			}
+		}
+		// dates are mutable, so each entry gets its own instance
+		return lastDate?.let { Date(it.time) }
+	}
+
+	/**
+	 * Falls back to the lenient parsing of [Date] for dates which aren't formatted as RFC 1123 dates.
+	 */
+	@Suppress("DEPRECATION")
+	private fun parseDateLeniently(text: String): Date? {
 		return try {
 			Date(text)
 		} catch (e: IllegalArgumentException) {
@@ -173,13 +318,38 @@ internal class PropfindResponseParser(private val requestedFolder: WebDavFolder)
 		private const val TAG_PROPSTAT = "propstat"
 		private const val TAG_STATUS = "status"
 		private const val STATUS_OK = "200"
-	}
 
-	init {
-		try {
-			xmlPullParser = XmlPullParserFactory.newInstance().newPullParser()
-		} catch (e: XmlPullParserException) {
-			throw FatalBackendException(e)
+		// like DateTimeFormatter.RFC_1123_DATE_TIME, but accepting single digit hours as sent by some servers
+		private val HTTP_DATE_FORMATTER = DateTimeFormatterBuilder() //
+			.parseCaseInsensitive() //
+			.parseLenient() //
+			.optionalStart() //
+			.appendText(ChronoField.DAY_OF_WEEK, TextStyle.SHORT) //
+			.appendLiteral(", ") //
+			.optionalEnd() //
+			.appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE) //
+			.appendLiteral(' ') //
+			.appendText(ChronoField.MONTH_OF_YEAR, TextStyle.SHORT) //
+			.appendLiteral(' ') //
+			.appendValue(ChronoField.YEAR, 4) //
+			.appendLiteral(' ') //
+			.appendValue(ChronoField.HOUR_OF_DAY, 1, 2, SignStyle.NOT_NEGATIVE) //
+			.appendLiteral(':') //
+			.appendValue(ChronoField.MINUTE_OF_HOUR, 2) //
+			.optionalStart() //
+			.appendLiteral(':') //
+			.appendValue(ChronoField.SECOND_OF_MINUTE, 2) //
+			.optionalEnd() //
+			.appendLiteral(' ') //
+			.appendOffset("+HHMM", "GMT") //
+			.toFormatter(Locale.US)
+
+		private fun newPullParser(): XmlPullParser {
+			return try {
+				XmlPullParserFactory.newInstance().newPullParser()
+			} catch (e: XmlPullParserException) {
+				throw FatalBackendException(e)
+			}
 		}
 	}
 }
@@ -2,6 +2,7 @@ package org.cryptomator.data.cloud.webdav.network
 
 import org.cryptomator.data.cloud.webdav.WebDavFolder
 import org.cryptomator.data.cloud.webdav.WebDavNode
+import org.cryptomator.data.util.CopyStream
 import org.cryptomator.domain.CloudFolder
 import org.cryptomator.domain.exception.AlreadyExistException
 import org.cryptomator.domain.exception.BackendException
@@ -19,6 +20,7 @@ import java.io.InputStream
 import java.net.HttpURLConnection
 import java.util.Collections
 import java.util.Date
+import java.util.function.Consumer
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import okhttp3.Request
 import okhttp3.RequestBody.Companion.toRequestBody
@@ -28,13 +30,34 @@ internal class WebDavClient(private val httpClient: WebDavCompatibleHttpClient)
 
 	private val ASCENDING_BY_DEPTH = Comparator { o1: PropfindEntryData, o2: PropfindEntryData -> o1.getDepth() - o2.getDepth() }
 
+	/**
+	 * Lists the folder, handing the nodes to `onPage` in pages of up to [PAGE_SIZE] nodes while the response is parsed, so the first nodes of
+	 * a huge folder are available before the complete response is received.
+	 */
 	@Throws(BackendException::class)
-	fun dirList(url: String, listedFolder: WebDavFolder): List<WebDavNode> {
+	fun dirList(url: String, listedFolder: WebDavFolder, onPage: Consumer<List<WebDavNode>>): List<WebDavNode> {
 		try {
 			executePropfindRequest(url, PropfindDepth.ONE).use { response ->
 				checkPropfindExecutionSucceeded(response.code)
-				val nodes = getEntriesFromResponse(listedFolder, response)
-				return processDirList(nodes, listedFolder)
+				val nodes = ArrayList<WebDavNode>()
+				response.body?.use { responseBody ->
+					val parser = PropfindResponseParser(listedFolder, url)
+					parser.begin(responseBody.byteStream())
+					var page = ArrayList<WebDavNode>()
+					while (true) {
+						page.add(parser.nextNode() ?: break)
+						if (page.size == PAGE_SIZE) {
+							nodes.addAll(page)
+							onPage.accept(page)
+							page = ArrayList()
+						}
+					}
+					if (page.isNotEmpty()) {
+						nodes.addAll(page)
+						onPage.accept(page)
+					}
+				}
+				return nodes
 			}
 		} catch (e: IOException) {
 			throw FatalBackendException(e)
@@ -125,19 +148,60 @@ internal class WebDavClient(private val httpClient: WebDavCompatibleHttpClient)
 		val builder = Request.Builder() //
 			.get() //
 			.url(url)
+		return readFile(builder, 0)
+	}
+
+	/**
+	 * Requests only the given range of the file. If the server ignores the range request, the returned stream is positioned at `offset` nevertheless.
+	 * If the server can't satisfy the range, the stream is empty if the range starts at or after the end of the file and the whole file is
+	 * requested and skipped to `offset` otherwise, e.g. if the server doesn't support the requested kind of range. Empty ranges can't be
+	 * expressed in a Range header and must not be requested.
+	 */
+	@Throws(BackendException::class)
+	fun readFile(url: String, offset: Long, length: Long): InputStream {
+		require(length > 0) { "Empty range" }
+		val builder = Request.Builder() //
+			.get() //
+			.url(url) //
+			.header("Range", rangeHeaderValue(offset, length))
+		return readFile(builder, offset)
+	}
+
+	private fun rangeHeaderValue(offset: Long, length: Long): String {
+		return if (length > Long.MAX_VALUE - offset) {
+			"bytes=$offset-"
+		} else {
+			"bytes=$offset-${offset + length - 1}"
+		}
+	}
+
+	@Throws(BackendException::class)
+	private fun readFile(builder: Request.Builder, offset: Long): InputStream {
 		var response: Response? = null
 		var success = false
 		return try {
 			response = httpClient.execute(builder)
 			if (response.isSuccessful) {
+				val inputStream = response.body?.byteStream() ?: throw FatalBackendException("Response body is null")
+				if (offset > 0 && response.code != HttpURLConnection.HTTP_PARTIAL) {
+					CopyStream.skip(inputStream, offset)
+				}
 				success = true
-				response.body?.byteStream() ?: throw FatalBackendException("Response body is null")
+				inputStream
 			} else {
 				when (response.code) {
 					HttpURLConnection.HTTP_UNAUTHORIZED -> throw UnauthorizedException()
 					HttpURLConnection.HTTP_FORBIDDEN -> throw ForbiddenException()
 					HttpURLConnection.HTTP_NOT_FOUND -> throw NotFoundException()
-					416 -> ByteArrayInputStream(ByteArray(0))
+					HTTP_RANGE_NOT_SATISFIABLE -> {
+						if (response.request.header("Range") == null || rangeStartsAtOrAfterEnd(response, offset)) {
+							ByteArrayInputStream(ByteArray(0))
+						} else {
+							response.close()
+							response = null
+							readFile(builder.removeHeader("Range"), offset)
+						}
+					}
 					else -> throw FatalBackendException("Response code isn't between 200 and 300: " + response.code)
 				}
 			}
@@ -150,6 +214,18 @@ internal class WebDavClient(private val httpClient: WebDavCompatibleHttpClient)
 		}
 	}
 
+	/**
+	 * @return if the `Content-Range` header of the unsatisfiable range response states a length of the file not greater than `offset`
+	 */
+	private fun rangeStartsAtOrAfterEnd(response: Response, offset: Long): Boolean {
+		val contentRange = response.header("Content-Range") ?: return false
+		if (!contentRange.startsWith("bytes */")) {
+			return false
+		}
+		val length = contentRange.substring("bytes */".length).trim().toLongOrNull() ?: return false
+		return offset >= length
+	}
+
 	@Throws(BackendException::class)
 	fun writeFile(url: String, inputStream: InputStream, modifiedDate: Date) {
 		val builder = Request.Builder() //
@@ -248,14 +324,6 @@ internal class WebDavClient(private val httpClient: WebDavCompatibleHttpClient)
 		}
 	}
 
-	private fun processDirList(entryData: List<PropfindEntryData>, requestedFolder: WebDavFolder): List<WebDavNode> {
-		Collections.sort(entryData, ASCENDING_BY_DEPTH)
-		// after sorting the first entry is the parent
-		// because it's depth is 1 smaller than the depth
-		// ot the other entries, thus we skip the first entry
-		return entryData.subList(1, entryData.size).mapTo(ArrayList()) { it.toCloudNode(requestedFolder) }
-	}
-
 	private fun processGet(entryData: List<PropfindEntryData>, requestedFolder: WebDavFolder): WebDavNode? {
 		Collections.sort(entryData, ASCENDING_BY_DEPTH)
 		return if (entryData.isNotEmpty()) entryData[0].toCloudNode(requestedFolder) else null
@@ -266,4 +334,10 @@ internal class WebDavClient(private val httpClient: WebDavCompatibleHttpClient)
 		ONE("1"),  //
 		INFINITY("infinity");
 	}
+
+	companion object {
+
+		private const val PAGE_SIZE = 500
+		private const val HTTP_RANGE_NOT_SATISFIABLE = 416
+	}
 }
@@ -3,6 +3,7 @@ package org.cryptomator.data.db;
 import org.cryptomator.data.db.entities.DaoMaster;
 import org.cryptomator.data.db.entities.DaoSession;
 import org.cryptomator.data.db.entities.DatabaseEntity;
+import org.greenrobot.greendao.query.QueryBuilder;
 
 import java.util.List;
 
@@ -20,6 +21,11 @@ public class Database {
 		daoSession = daoMaster.newSession();
 	}
 
+	// used by tests to run against an in-memory database
+	Database(org.greenrobot.greendao.database.Database db) {
+		daoSession = new DaoMaster(db).newSession();
+	}
+
 	public <T extends DatabaseEntity> T load(Class<T> type, long id) {
 		return daoSession.load(type, id);
 	}
@@ -32,6 +38,10 @@ public class Database {
 		return daoSession.loadAll(type);
 	}
 
+	public <T extends DatabaseEntity> QueryBuilder<T> queryBuilder(Class<T> type) {
+		return daoSession.queryBuilder(type);
+	}
+
 	public <T extends DatabaseEntity> T create(T entity) {
 		long id = daoSession.insert(entity);
 		return load((Class<T>) entity.getClass(), id);
@@ -47,6 +57,10 @@ public class Database {
 		return load((Class<T>) entity.getClass(), id);
 	}
 
+	public void runInTx(Runnable runnable) {
+		daoSession.runInTx(runnable);
+	}
+
 	public void clearCache() {
 		daoSession.clear();
 	}
@@ -32,7 +32,10 @@ class DatabaseUpgrades {
 			Upgrade10To11 upgrade10To11, //
 			Upgrade11To12 upgrade11To12, //
 			Upgrade12To13 upgrade12To13, //
-			Upgrade13To14 upgrade13To14
+			Upgrade13To14 upgrade13To14, //
+			Upgrade14To15 upgrade14To15, //
+			Upgrade15To16 upgrade15To16, //
+			Upgrade16To17 upgrade16To17
 	) {
 
 		availableUpgrades = defineUpgrades( //
@@ -49,7 +52,10 @@ class DatabaseUpgrades {
 				upgrade10To11, //
 				upgrade11To12, //
 				upgrade12To13, //
-				upgrade13To14);
+				upgrade13To14, //
+				upgrade14To15, //
+				upgrade15To16, //
+				upgrade16To17);
 	}
 
 	private Map<Integer, List<DatabaseUpgrade>> defineUpgrades(DatabaseUpgrade... upgrades) {
@@ -38,8 +38,12 @@ class Sql {
 		return new SqlDeleteBuilder(table);
 	}
 
-	public static SqlUniqueIndexBuilder createUniqueIndex(String indexName) {
-		return new SqlUniqueIndexBuilder(indexName);
+	public static SqlIndexBuilder createUniqueIndex(String indexName) {
+		return new SqlIndexBuilder(indexName, true);
+	}
+
+	public static SqlIndexBuilder createIndex(String indexName) {
+		return new SqlIndexBuilder(indexName, false);
 	}
 
 	public static SqlDropIndexBuilder dropIndex(String index) {
@@ -204,22 +208,24 @@ class Sql {
 
 	}
 
-	public static class SqlUniqueIndexBuilder {
+	public static class SqlIndexBuilder {
 
 		private final String indexName;
+		private final boolean unique;
 		private final StringBuilder columns = new StringBuilder();
 		private String table;
 
-		private SqlUniqueIndexBuilder(String indexName) {
+		private SqlIndexBuilder(String indexName, boolean unique) {
 			this.indexName = indexName;
+			this.unique = unique;
 		}
 
-		public SqlUniqueIndexBuilder on(String table) {
+		public SqlIndexBuilder on(String table) {
 			this.table = table;
 			return this;
 		}
 
-		public SqlUniqueIndexBuilder asc(String column) {
+		public SqlIndexBuilder asc(String column) {
 			if (columns.length() > 0) {
 				columns.append(',');
 			}
@@ -229,7 +235,7 @@ class Sql {
 
 		public void executeOn(Database wrapped) {
 			SQLiteDatabase db = unwrap(wrapped);
-			db.execSQL(format("CREATE UNIQUE INDEX \"%s\" ON \"%s\" (%s)", indexName, table, columns));
+			db.execSQL(format("CREATE %sINDEX \"%s\" ON \"%s\" (%s)", unique ? "UNIQUE " : "", indexName, table, columns));
 		}
 	}
 
@@ -425,7 +431,8 @@ class Sql {
 		}
 
 		public enum ForeignKeyBehaviour {
-			ON_DELETE_SET_NULL("ON DELETE SET NULL");
+			ON_DELETE_SET_NULL("ON DELETE SET NULL"), //
+			ON_DELETE_CASCADE("ON DELETE CASCADE");
 
 			private final String text;
 
@@ -0,0 +1,48 @@
+package org.cryptomator.data.db
+
+import org.cryptomator.data.db.Sql.SqlCreateTableBuilder.ForeignKeyBehaviour
+import org.greenrobot.greendao.database.Database
+import javax.inject.Inject
+import javax.inject.Singleton
+
+@Singleton
+internal class Upgrade14To15 @Inject constructor() : DatabaseUpgrade(14, 15) {
+
+	override fun internalApplyTo(db: Database, origin: Int) {
+		db.beginTransaction()
+		try {
+			createDirIdCacheEntityTable(db)
+			db.setTransactionSuccessful()
+		} finally {
+			db.endTransaction()
+		}
+	}
+
+	private fun createDirIdCacheEntityTable(db: Database) {
+		Sql.createTable("DIR_ID_CACHE_ENTITY") //
+			.id() //
+			.requiredInt("VAULT_ID") //
+			.requiredText("PATH_HASH") //
+			.optionalText("PARENT_PATH_HASH") //
+			.requiredText("ENCRYPTED_DIR_ID") //
+			.optionalInt("DIR_FILE_MODIFIED") //
+			.optionalInt("LAST_USED") //
+			.foreignKey("VAULT_ID", "VAULT_ENTITY", ForeignKeyBehaviour.ON_DELETE_CASCADE) //
+			.executeOn(db)
+		Sql.createUniqueIndex("IDX_DIR_ID_CACHE_ENTITY_VAULT_ID_PATH_HASH") //
+			.on("DIR_ID_CACHE_ENTITY") //
+			.asc("VAULT_ID") //
+			.asc("PATH_HASH") //
+			.executeOn(db)
+		Sql.createIndex("IDX_DIR_ID_CACHE_ENTITY_VAULT_ID_PARENT_PATH_HASH") //
+			.on("DIR_ID_CACHE_ENTITY") //
+			.asc("VAULT_ID") //
+			.asc("PARENT_PATH_HASH") //
+			.executeOn(db)
+		Sql.createIndex("IDX_DIR_ID_CACHE_ENTITY_VAULT_ID_LAST_USED") //
+			.on("DIR_ID_CACHE_ENTITY") //
+			.asc("VAULT_ID") //
+			.asc("LAST_USED") //
+			.executeOn(db)
+	}
+}
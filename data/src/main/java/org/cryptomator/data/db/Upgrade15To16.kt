@@ -0,0 +1,42 @@
+package org.cryptomator.data.db
+
+import org.cryptomator.data.db.Sql.SqlCreateTableBuilder.ForeignKeyBehaviour
+import org.greenrobot.greendao.database.Database
+import javax.inject.Inject
+import javax.inject.Singleton
+
+@Singleton
+internal class Upgrade15To16 @Inject constructor() : DatabaseUpgrade(15, 16) {
+
+	override fun internalApplyTo(db: Database, origin: Int) {
+		db.beginTransaction()
+		try {
+			createVaultIndexEntityTable(db)
+			db.setTransactionSuccessful()
+		} finally {
+			db.endTransaction()
+		}
+	}
+
+	private fun createVaultIndexEntityTable(db: Database) {
+		Sql.createTable("VAULT_INDEX_ENTITY") //
+			.id() //
+			.requiredInt("VAULT_ID") //
+			.requiredText("PATH_HASH") //
+			.optionalText("PARENT_PATH_HASH") //
+			.optionalText("ENCRYPTED_NODE") //
+			.requiredBool("LISTED") //
+			.foreignKey("VAULT_ID", "VAULT_ENTITY", ForeignKeyBehaviour.ON_DELETE_CASCADE) //
+			.executeOn(db)
+		Sql.createUniqueIndex("IDX_VAULT_INDEX_ENTITY_VAULT_ID_PATH_HASH") //
+			.on("VAULT_INDEX_ENTITY") //
+			.asc("VAULT_ID") //
+			.asc("PATH_HASH") //
+			.executeOn(db)
+		Sql.createIndex("IDX_VAULT_INDEX_ENTITY_VAULT_ID_PARENT_PATH_HASH") //
+			.on("VAULT_INDEX_ENTITY") //
+			.asc("VAULT_ID") //
+			.asc("PARENT_PATH_HASH") //
+			.executeOn(db)
+	}
+}
@@ -0,0 +1,35 @@
+package org.cryptomator.data.db
+
+import org.cryptomator.data.db.Sql.SqlCreateTableBuilder.ForeignKeyBehaviour
+import org.greenrobot.greendao.database.Database
+import javax.inject.Inject
+import javax.inject.Singleton
+
+@Singleton
+internal class Upgrade16To17 @Inject constructor() : DatabaseUpgrade(16, 17) {
+
+	override fun internalApplyTo(db: Database, origin: Int) {
+		db.beginTransaction()
+		try {
+			createLongNameCacheEntityTable(db)
+			db.setTransactionSuccessful()
+		} finally {
+			db.endTransaction()
+		}
+	}
+
+	private fun createLongNameCacheEntityTable(db: Database) {
+		Sql.createTable("LONG_NAME_CACHE_ENTITY") //
+			.id() //
+			.requiredInt("VAULT_ID") //
+			.requiredText("SHORT_NAME") //
+			.requiredText("LONG_NAME") //
+			.foreignKey("VAULT_ID", "VAULT_ENTITY", ForeignKeyBehaviour.ON_DELETE_CASCADE) //
+			.executeOn(db)
+		Sql.createUniqueIndex("IDX_LONG_NAME_CACHE_ENTITY_VAULT_ID_SHORT_NAME") //
+			.on("LONG_NAME_CACHE_ENTITY") //
+			.asc("VAULT_ID") //
+			.asc("SHORT_NAME") //
+			.executeOn(db)
+	}
+}
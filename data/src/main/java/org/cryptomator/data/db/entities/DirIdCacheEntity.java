@@ -0,0 +1,101 @@
+package org.cryptomator.data.db.entities;
+
+import org.greenrobot.greendao.annotation.Entity;
+import org.greenrobot.greendao.annotation.Generated;
+import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
+import org.greenrobot.greendao.annotation.NotNull;
+
+@Entity(indexes = {@Index(value = "vaultId,pathHash", unique = true), @Index(value = "vaultId,parentPathHash"), @Index(value = "vaultId,lastUsed")})
+public class DirIdCacheEntity extends DatabaseEntity {
+
+	@Id
+	private Long id;
+
+	@NotNull
+	private Long vaultId;
+
+	@NotNull
+	private String pathHash;
+
+	private String parentPathHash;
+
+	@NotNull
+	private String encryptedDirId;
+
+	private Long dirFileModified;
+
+	private Long lastUsed;
+
+	@Generated(hash = 1748440263)
+	public DirIdCacheEntity(Long id, @NotNull Long vaultId, @NotNull String pathHash, String parentPathHash, @NotNull String encryptedDirId, Long dirFileModified, Long lastUsed) {
+		this.id = id;
+		this.vaultId = vaultId;
+		this.pathHash = pathHash;
+		this.parentPathHash = parentPathHash;
+		this.encryptedDirId = encryptedDirId;
+		this.dirFileModified = dirFileModified;
+		this.lastUsed = lastUsed;
+	}
+
+	@Generated(hash = 1135376706)
+	public DirIdCacheEntity() {
+	}
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getVaultId() {
+		return this.vaultId;
+	}
+
+	public void setVaultId(Long vaultId) {
+		this.vaultId = vaultId;
+	}
+
+	public String getPathHash() {
+		return this.pathHash;
+	}
+
+	public void setPathHash(String pathHash) {
+		this.pathHash = pathHash;
+	}
+
+	public String getParentPathHash() {
+		return this.parentPathHash;
+	}
+
+	public void setParentPathHash(String parentPathHash) {
+		this.parentPathHash = parentPathHash;
+	}
+
+	public String getEncryptedDirId() {
+		return this.encryptedDirId;
+	}
+
+	public void setEncryptedDirId(String encryptedDirId) {
+		this.encryptedDirId = encryptedDirId;
+	}
+
+	public Long getDirFileModified() {
+		return this.dirFileModified;
+	}
+
+	public void setDirFileModified(Long dirFileModified) {
+		this.dirFileModified = dirFileModified;
+	}
+
+	public Long getLastUsed() {
+		return this.lastUsed;
+	}
+
+	public void setLastUsed(Long lastUsed) {
+		this.lastUsed = lastUsed;
+	}
+}
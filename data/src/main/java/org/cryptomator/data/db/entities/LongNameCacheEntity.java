@@ -0,0 +1,68 @@
+package org.cryptomator.data.db.entities;
+
+import org.greenrobot.greendao.annotation.Entity;
+import org.greenrobot.greendao.annotation.Generated;
+import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
+import org.greenrobot.greendao.annotation.NotNull;
+
+@Entity(indexes = {@Index(value = "vaultId,shortName", unique = true)})
+public class LongNameCacheEntity extends DatabaseEntity {
+
+	@Id
+	private Long id;
+
+	@NotNull
+	private Long vaultId;
+
+	@NotNull
+	private String shortName;
+
+	@NotNull
+	private String longName;
+
+	@Generated(hash = 729458950)
+	public LongNameCacheEntity(Long id, @NotNull Long vaultId, @NotNull String shortName, @NotNull String longName) {
+		this.id = id;
+		this.vaultId = vaultId;
+		this.shortName = shortName;
+		this.longName = longName;
+	}
+
+	@Generated(hash = 1270141257)
+	public LongNameCacheEntity() {
+	}
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getVaultId() {
+		return this.vaultId;
+	}
+
+	public void setVaultId(Long vaultId) {
+		this.vaultId = vaultId;
+	}
+
+	public String getShortName() {
+		return this.shortName;
+	}
+
+	public void setShortName(String shortName) {
+		this.shortName = shortName;
+	}
+
+	public String getLongName() {
+		return this.longName;
+	}
+
+	public void setLongName(String longName) {
+		this.longName = longName;
+	}
+}
@@ -0,0 +1,90 @@
+package org.cryptomator.data.db.entities;
+
+import org.greenrobot.greendao.annotation.Entity;
+import org.greenrobot.greendao.annotation.Generated;
+import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
+import org.greenrobot.greendao.annotation.NotNull;
+
+@Entity(indexes = {@Index(value = "vaultId,pathHash", unique = true), @Index(value = "vaultId,parentPathHash")})
+public class VaultIndexEntity extends DatabaseEntity {
+
+	@Id
+	private Long id;
+
+	@NotNull
+	private Long vaultId;
+
+	@NotNull
+	private String pathHash;
+
+	private String parentPathHash;
+
+	private String encryptedNode;
+
+	@NotNull
+	private Boolean listed;
+
+	@Generated(hash = 59442122)
+	public VaultIndexEntity(Long id, @NotNull Long vaultId, @NotNull String pathHash, String parentPathHash, String encryptedNode, @NotNull Boolean listed) {
+		this.id = id;
+		this.vaultId = vaultId;
+		this.pathHash = pathHash;
+		this.parentPathHash = parentPathHash;
+		this.encryptedNode = encryptedNode;
+		this.listed = listed;
+	}
+
+	@Generated(hash = 159943725)
+	public VaultIndexEntity() {
+	}
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getVaultId() {
+		return this.vaultId;
+	}
+
+	public void setVaultId(Long vaultId) {
+		this.vaultId = vaultId;
+	}
+
+	public String getPathHash() {
+		return this.pathHash;
+	}
+
+	public void setPathHash(String pathHash) {
+		this.pathHash = pathHash;
+	}
+
+	public String getParentPathHash() {
+		return this.parentPathHash;
+	}
+
+	public void setParentPathHash(String parentPathHash) {
+		this.parentPathHash = parentPathHash;
+	}
+
+	public String getEncryptedNode() {
+		return this.encryptedNode;
+	}
+
+	public void setEncryptedNode(String encryptedNode) {
+		this.encryptedNode = encryptedNode;
+	}
+
+	public Boolean getListed() {
+		return this.listed;
+	}
+
+	public void setListed(Boolean listed) {
+		this.listed = listed;
+	}
+}
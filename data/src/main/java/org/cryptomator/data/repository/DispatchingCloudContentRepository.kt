@@ -8,6 +8,7 @@ import org.cryptomator.domain.Cloud
 import org.cryptomator.domain.CloudFile
 import org.cryptomator.domain.CloudFolder
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.domain.exception.BackendException
 import org.cryptomator.domain.exception.authentication.AuthenticationException
 import org.cryptomator.domain.repository.CloudContentRepository
@@ -18,6 +19,7 @@ import org.cryptomator.domain.usecases.cloud.UploadState
 import java.io.File
 import java.io.OutputStream
 import java.util.WeakHashMap
+import java.util.function.Consumer
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -107,6 +109,50 @@ class DispatchingCloudContentRepository @Inject constructor(
 		}
 	}
 
+	@Throws(BackendException::class)
+	override fun listInPages(folder: CloudFolder, onPage: Consumer<List<CloudNode>>): List<CloudNode> {
+		return try {
+			folder.cloud?.let { networkConnectionCheck.assertConnectionIsPresent(it) } ?: throw IllegalStateException("Parent's cloud shouldn't be null")
+			delegateFor(folder).listInPages(folder, onPage)
+		} catch (e: AuthenticationException) {
+			delegates.remove(folder.cloud)
+			throw e
+		}
+	}
+
+	@Throws(BackendException::class)
+	override fun cachedList(folder: CloudFolder): List<CloudNode>? {
+		return try {
+			// do not check for network connection
+			delegateFor(folder).cachedList(folder)
+		} catch (e: AuthenticationException) {
+			delegates.remove(folder.cloud)
+			throw e
+		}
+	}
+
+	@Throws(BackendException::class)
+	override fun statistics(folder: CloudFolder): FolderStatistics {
+		return try {
+			folder.cloud?.let { networkConnectionCheck.assertConnectionIsPresent(it) } ?: throw IllegalStateException("Parent's cloud shouldn't be null")
+			delegateFor(folder).statistics(folder)
+		} catch (e: AuthenticationException) {
+			delegates.remove(folder.cloud)
+			throw e
+		}
+	}
+
+	@Throws(BackendException::class)
+	override fun cachedStatistics(folder: CloudFolder): FolderStatistics? {
+		return try {
+			// do not check for network connection
+			delegateFor(folder).cachedStatistics(folder)
+		} catch (e: AuthenticationException) {
+			delegates.remove(folder.cloud)
+			throw e
+		}
+	}
+
 	@Throws(BackendException::class)
 	override fun create(folder: CloudFolder): CloudFolder {
 		return try {
@@ -164,6 +210,20 @@ class DispatchingCloudContentRepository @Inject constructor(
 		}
 	}
 
+	@Throws(BackendException::class)
+	override fun read(file: CloudFile, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		if (length == 0L) {
+			return
+		}
+		try {
+			file.cloud?.let { networkConnectionCheck.assertConnectionIsPresent(it) } ?: throw IllegalStateException("Parent's cloud shouldn't be null")
+			delegateFor(file).read(file, offset, length, data, progressAware)
+		} catch (e: AuthenticationException) {
+			delegates.remove(file.cloud)
+			throw e
+		}
+	}
+
 	@Throws(BackendException::class)
 	override fun delete(node: CloudNode) {
 		try {
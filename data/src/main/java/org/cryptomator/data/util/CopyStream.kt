@@ -1,18 +1,25 @@
 package org.cryptomator.data.util
 
 import org.cryptomator.domain.exception.FatalBackendException
+import org.cryptomator.util.BufferPool
 import java.io.ByteArrayOutputStream
 import java.io.Closeable
 import java.io.IOException
 import java.io.InputStream
 import java.io.OutputStream
+import kotlin.math.min
 
 object CopyStream {
 
 	private const val DEFAULT_COPY_BUFFER_SIZE = 16 shl 10 // 16 KiB
 
 	fun copyStreamToStream(inputStream: InputStream, out: OutputStream) {
-		copyStreamToStream(inputStream, out, ByteArray(DEFAULT_COPY_BUFFER_SIZE))
+		val copyBuffer = BufferPool.leaseArray(DEFAULT_COPY_BUFFER_SIZE)
+		try {
+			copyStreamToStream(inputStream, out, copyBuffer)
+		} finally {
+			BufferPool.release(copyBuffer)
+		}
 	}
 
 	private fun copyStreamToStream(inputStream: InputStream, out: OutputStream, copyBuffer: ByteArray) {
@@ -33,6 +40,55 @@ object CopyStream {
 		}
 	}
 
+	/**
+	 * Copies at most `length` bytes, e.g. to read a range from a server ignoring range requests.
+	 */
+	fun copyStreamToStream(inputStream: InputStream, out: OutputStream, length: Long) {
+		val copyBuffer = BufferPool.leaseArray(DEFAULT_COPY_BUFFER_SIZE)
+		try {
+			var remaining = length
+			while (remaining > 0) {
+				val count: Int = try {
+					inputStream.read(copyBuffer, 0, min(copyBuffer.size.toLong(), remaining).toInt())
+				} catch (ex: IOException) {
+					throw FatalBackendException(ex)
+				}
+				if (count == -1) {
+					break
+				}
+				try {
+					out.write(copyBuffer, 0, count)
+				} catch (ex: IOException) {
+					throw FatalBackendException(ex)
+				}
+				remaining -= count
+			}
+		} finally {
+			BufferPool.release(copyBuffer)
+		}
+	}
+
+	/**
+	 * Skips exactly `n` bytes unless the stream ends before.
+	 */
+	fun skip(inputStream: InputStream, n: Long) {
+		var remaining = n
+		try {
+			while (remaining > 0) {
+				val skipped = inputStream.skip(remaining)
+				if (skipped > 0) {
+					remaining -= skipped
+				} else if (inputStream.read() == -1) {
+					break
+				} else {
+					remaining--
+				}
+			}
+		} catch (ex: IOException) {
+			throw FatalBackendException(ex)
+		}
+	}
+
 	fun closeQuietly(closeable: Closeable?) {
 		if (closeable != null) {
 			try {
@@ -48,7 +104,7 @@ object CopyStream {
 	fun toByteArray(inputStream: InputStream): ByteArray {
 		val buffer = ByteArrayOutputStream()
 		var read: Int
-		val data = ByteArray(1024)
+		val data = BufferPool.leaseArray(DEFAULT_COPY_BUFFER_SIZE)
 		try {
 			while (inputStream.read(data, 0, data.size).also { read = it } != -1) {
 				buffer.write(data, 0, read)
@@ -56,6 +112,8 @@ object CopyStream {
 			buffer.flush()
 		} catch (e: IOException) {
 			throw FatalBackendException(e)
+		} finally {
+			BufferPool.release(data)
 		}
 		return buffer.toByteArray()
 	}
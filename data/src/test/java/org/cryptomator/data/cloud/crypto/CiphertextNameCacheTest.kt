@@ -0,0 +1,56 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.cryptolib.api.Cryptor
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+
+class CiphertextNameCacheTest {
+
+	private val cryptor: Cryptor = mock()
+
+	private val inTest = CiphertextNameCache(2)
+
+	@Test
+	fun testNamesAreKeyedByDirIdAndPrefix() {
+		inTest.put(cryptor, "dir1", "", "name", "ciphertext1")
+		inTest.put(cryptor, "dir1", "0", "name", "ciphertext2")
+
+		MatcherAssert.assertThat(inTest.get(cryptor, "dir1", "", "name"), CoreMatchers.`is`("ciphertext1"))
+		MatcherAssert.assertThat(inTest.get(cryptor, "dir1", "0", "name"), CoreMatchers.`is`("ciphertext2"))
+		MatcherAssert.assertThat(inTest.get(cryptor, "dir2", "", "name"), CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testLeastRecentlyUsedNameIsEvictedWhenFull() {
+		inTest.put(cryptor, "dir", "", "name1", "ciphertext1")
+		inTest.put(cryptor, "dir", "", "name2", "ciphertext2")
+		inTest.get(cryptor, "dir", "", "name1")
+
+		inTest.put(cryptor, "dir", "", "name3", "ciphertext3")
+
+		MatcherAssert.assertThat(inTest.get(cryptor, "dir", "", "name1"), CoreMatchers.`is`("ciphertext1"))
+		MatcherAssert.assertThat(inTest.get(cryptor, "dir", "", "name2"), CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testUsingAnotherCryptorClearsCache() {
+		inTest.put(cryptor, "dir", "", "name", "ciphertext")
+		inTest.nameFileWritten(cryptor, "/d/00/AA/short.c9s")
+
+		val otherCryptor: Cryptor = mock()
+
+		MatcherAssert.assertThat(inTest.get(otherCryptor, "dir", "", "name"), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.isNameFileWritten(otherCryptor, "/d/00/AA/short.c9s"), CoreMatchers.`is`(false))
+	}
+
+	@Test
+	fun testWrittenNameFilesAreForgotten() {
+		inTest.nameFileWritten(cryptor, "/d/00/AA/short.c9s")
+
+		inTest.forgetWrittenNameFiles()
+
+		MatcherAssert.assertThat(inTest.isNameFileWritten(cryptor, "/d/00/AA/short.c9s"), CoreMatchers.`is`(false))
+	}
+}
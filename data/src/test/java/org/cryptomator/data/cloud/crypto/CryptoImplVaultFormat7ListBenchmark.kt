@@ -0,0 +1,94 @@
+package org.cryptomator.data.cloud.crypto
+
+import android.content.Context
+import com.google.common.io.BaseEncoding
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.cryptolib.api.CryptorProvider
+import org.cryptomator.cryptolib.api.Masterkey
+import org.cryptomator.data.cloud.crypto.DirIdCache.DirIdInfo
+import org.cryptomator.domain.Cloud
+import org.cryptomator.domain.CloudFile
+import org.cryptomator.domain.CloudFolder
+import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.repository.CloudContentRepository
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable
+import org.mockito.kotlin.any
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+import java.nio.charset.StandardCharsets
+import java.security.SecureRandom
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+
+/**
+ * Compares listing a huge folder with parallel name decryption to decrypting the same names sequentially.
+ * The sequential baseline only decrypts the names without creating the nodes, so the measured speedup is a lower bound.
+ *
+ * Run with `CRYPTOMATOR_BENCHMARK=true ./gradlew :data:testApkstoreDebugUnitTest --tests *ListBenchmark`.
+ */
+@EnabledIfEnvironmentVariable(named = "CRYPTOMATOR_BENCHMARK", matches = "true")
+class CryptoImplVaultFormat7ListBenchmark {
+
+	private val context: Context = mock()
+	private val cloudContentRepository: CloudContentRepository<Cloud, CloudNode, CloudFolder, CloudFile> = mock()
+	private val dirIdCache: DirIdCache = mock()
+	private val cryptor: Cryptor = CryptorProvider.forScheme(CryptorProvider.Scheme.SIV_GCM).provide(Masterkey.generate(SecureRandom()), SecureRandom())
+
+	private lateinit var root: RootCryptoFolder
+	private lateinit var nodes: List<CloudNode>
+	private lateinit var inTest: CryptoImplVaultFormat7
+
+	@BeforeEach
+	fun setup() {
+		val rootFolder = RootTestFolder(mock())
+		val lvl2Dir = TestFolder(rootFolder, "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", "/d/00/AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA")
+		nodes = (0 until NODE_COUNT).map {
+			val ciphertextName = cryptor.fileNameCryptor().encryptFilename(BaseEncoding.base64Url(), "File $it.txt", ROOT_DIR_ID.toByteArray(StandardCharsets.UTF_8)) + ".c9r"
+			TestFile(lvl2Dir, ciphertextName, lvl2Dir.path + "/" + ciphertextName, 1024L, null)
+		}
+		root = RootCryptoFolder(mock())
+		whenever(dirIdCache[root]).thenReturn(DirIdInfo(ROOT_DIR_ID, lvl2Dir))
+		whenever<List<*>>(cloudContentRepository.list(lvl2Dir)).thenReturn(nodes)
+		// like the default implementation, the mocked repository hands over the stubbed listing as a single page
+		whenever(cloudContentRepository.listInPages(any(), any())).thenAnswer { invocation ->
+			cloudContentRepository.list(invocation.getArgument(0)).also { invocation.getArgument<Consumer<List<CloudNode>>>(1).accept(it) }
+		}
+		inTest = CryptoImplVaultFormat7(context, { cryptor }, cloudContentRepository, rootFolder, dirIdCache)
+	}
+
+	@Test
+	fun benchmarkListHugeFolder() {
+		val sequential = measure {
+			nodes.map { inTest.decryptName(ROOT_DIR_ID, inTest.nameWithoutExtension(it.name)) }.filterNotNull()
+		}
+		val parallel = measure {
+			inTest.list(root).map { it.name }
+		}
+
+		println(String.format("Decrypted %d names: sequential %d ms, parallel %d ms using %d threads", NODE_COUNT, sequential.millis, parallel.millis, CryptoExecutor.PARALLELISM))
+		MatcherAssert.assertThat(parallel.result, CoreMatchers.`is`(sequential.result))
+	}
+
+	private fun <T> measure(block: () -> T): Measurement<T> {
+		repeat(WARMUP_ITERATIONS) { block() }
+		var result: T? = null
+		val start = System.nanoTime()
+		repeat(ITERATIONS) { result = block() }
+		val millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) / ITERATIONS
+		return Measurement(result!!, millis)
+	}
+
+	private class Measurement<T>(val result: T, val millis: Long)
+
+	companion object {
+
+		private const val ROOT_DIR_ID = ""
+		private const val NODE_COUNT = 20_000
+		private const val WARMUP_ITERATIONS = 3
+		private const val ITERATIONS = 5
+	}
+}
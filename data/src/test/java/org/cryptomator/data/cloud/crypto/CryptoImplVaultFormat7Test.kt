@@ -32,6 +32,8 @@ import org.mockito.AdditionalMatchers
 import org.mockito.Mockito
 import org.mockito.invocation.InvocationOnMock
 import org.mockito.kotlin.any
+import org.mockito.kotlin.anyOrNull
+import org.mockito.kotlin.argumentCaptor
 import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.whenever
@@ -42,6 +44,8 @@ import java.io.InputStreamReader
 import java.io.OutputStream
 import java.nio.ByteBuffer
 import java.nio.charset.StandardCharsets
+import java.util.Date
+import java.util.function.Consumer
 import kotlin.io.path.createTempDirectory
 import kotlin.io.path.deleteExisting
 
@@ -95,6 +99,10 @@ class CryptoImplVaultFormat7Test {
 	@Throws(BackendException::class)
 	fun setup() {
 		whenever(context.cacheDir).thenReturn(tmpDir.toFile())
+		// like the default implementation, the mocked repository hands over the stubbed listing as a single page
+		whenever(cloudContentRepository.listInPages(any(), any())).thenAnswer { invocation ->
+			cloudContentRepository.list(invocation.getArgument(0)).also { invocation.getArgument<Consumer<List<CloudNode>>>(1).accept(it) }
+		}
 
 		rootFolder = RootTestFolder(cloud)
 		d = TestFolder(rootFolder, "d", "/d")
@@ -168,6 +176,23 @@ class CryptoImplVaultFormat7Test {
 		Matchers.contains(rootDirContent, cryptoFolder1)
 	}
 
+	@Test
+	@DisplayName("list(\"/\") with names decrypted in parallel")
+	@Throws(BackendException::class)
+	fun testListHugeRootKeepsOrder() {
+		val count = 10 * ParallelMapping.PARALLEL_THRESHOLD
+		val ciphertextNames = (0 until count).map { String.format("f%07d", it) }
+		val items = ciphertextNames.map { TestFile(aaFolder, "$it.c9r", "/d/00/AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA/$it.c9r", null, null) }
+		ciphertextNames.forEachIndexed { index, ciphertextName ->
+			whenever(fileNameCryptor.decryptFilename(BaseEncoding.base64Url(), ciphertextName, dirIdRoot.toByteArray())).thenReturn("File $index")
+		}
+		whenever<List<*>>(cloudContentRepository.list(aaFolder)).thenReturn(items)
+
+		val rootDirContent = inTest.list(root)
+
+		MatcherAssert.assertThat(rootDirContent.map { it.name }, CoreMatchers.`is`((0 until count).map { "File $it" }))
+	}
+
 	@Test
 	@DisplayName("list(\"/Directory 1/Directory 3x250\")")
 	@Throws(BackendException::class)
@@ -290,13 +315,15 @@ class CryptoImplVaultFormat7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileNameCryptor.encryptFilename(BaseEncoding.base64Url(), "File 1", dirIdRoot.toByteArray())).thenReturn("file1")
 		whenever(fileHeaderCryptor.decryptHeader(StandardCharsets.UTF_8.encode("hhhhh"))).thenReturn(header)
-		whenever(fileContentCryptor.decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), eq(header), any()))
-			.then { StandardCharsets.UTF_8.encode("geheim!!") }
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<ByteBuffer>(1).put(StandardCharsets.UTF_8.encode("geheim!!"))
+			null
+		}.whenever(fileContentCryptor).decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), any(), eq(header), any())
 		Mockito.doAnswer { invocation: InvocationOnMock ->
 			val out = invocation.getArgument<OutputStream>(2)
 			copyStreamToStream(ByteArrayInputStream(file1Content), out)
 			null
-		}.whenever(cloudContentRepository).read(eq(cryptoFile1.cloudFile), any(), any(), any())
+		}.whenever(cloudContentRepository).read(eq(cryptoFile1.cloudFile), anyOrNull(), any(), any())
 
 		val outputStream = ByteArrayOutputStream(1000)
 		inTest.read(cryptoFile1, outputStream, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
@@ -304,6 +331,120 @@ class CryptoImplVaultFormat7Test {
 		MatcherAssert.assertThat(outputStream.toString(), CoreMatchers.`is`("geheim!!geheim!!geheim!!geheim!!"))
 	}
 
+	@Test
+	@DisplayName("read(\"/File 1\", NO_PROGRESS_AWARE) twice with chunk cache")
+	@Throws(BackendException::class)
+	fun testRepeatedReadFromShortFileUsesChunkCache() {
+		val file1Content = "hhhhhTOPSECRET!TOPSECRET!TOPSECRET!TOPSECRET!".toByteArray()
+		val header = Mockito.mock(FileHeader::class.java)
+		val ciphertextFile = TestFile(cryptoFile1.cloudFile.parent as TestFolder, "file1.c9r", cryptoFile1.cloudFile.path, 45L, Date(1000))
+		val cachedFile = CryptoFile(root, "File 1", "/File 1", 32L, ciphertextFile)
+		val inTestWithChunkCache = CryptoImplVaultFormat7(context, { cryptor }, cloudContentRepository, rootFolder, dirIdCache, DecryptedChunkCache(1000))
+
+		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(8)
+		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
+		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
+		whenever(fileHeaderCryptor.decryptHeader(StandardCharsets.UTF_8.encode("hhhhh"))).thenReturn(header)
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<ByteBuffer>(1).put(StandardCharsets.UTF_8.encode("geheim!!"))
+			null
+		}.whenever(fileContentCryptor).decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), any(), eq(header), any())
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			val out = invocation.getArgument<OutputStream>(2)
+			copyStreamToStream(ByteArrayInputStream(file1Content), out)
+			null
+		}.whenever(cloudContentRepository).read(eq(ciphertextFile), anyOrNull(), any(), any())
+
+		val firstOutputStream = ByteArrayOutputStream(1000)
+		inTestWithChunkCache.read(cachedFile, firstOutputStream, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
+		val secondOutputStream = ByteArrayOutputStream(1000)
+		inTestWithChunkCache.read(cachedFile, secondOutputStream, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
+
+		MatcherAssert.assertThat(firstOutputStream.toString(), CoreMatchers.`is`("geheim!!geheim!!geheim!!geheim!!"))
+		MatcherAssert.assertThat(secondOutputStream.toString(), CoreMatchers.`is`("geheim!!geheim!!geheim!!geheim!!"))
+		Mockito.verify(cloudContentRepository, Mockito.times(1)).read(eq(ciphertextFile), anyOrNull(), any(), any())
+	}
+
+	@Test
+	@DisplayName("read(\"/File 1\", offset=10, length=9, NO_PROGRESS_AWARE)")
+	@Throws(BackendException::class)
+	fun testReadRangeFromShortFile() {
+		val file1Content = "hhhhhTOPSECRET!TOPSECRET!TOPSECRET!TOPSECRET!".toByteArray()
+		val header = Mockito.mock(FileHeader::class.java)
+
+		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(8)
+		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
+		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
+		whenever(fileHeaderCryptor.decryptHeader(StandardCharsets.UTF_8.encode("hhhhh"))).thenReturn(header)
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<ByteBuffer>(1).put(StandardCharsets.UTF_8.encode("geheim!1"))
+			null
+		}.whenever(fileContentCryptor).decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), eq(1L), eq(header), any())
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<ByteBuffer>(1).put(StandardCharsets.UTF_8.encode("geheim!2"))
+			null
+		}.whenever(fileContentCryptor).decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), eq(2L), eq(header), any())
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			val offset = invocation.getArgument<Long>(1).toInt()
+			val length = invocation.getArgument<Long>(2).toInt()
+			invocation.getArgument<OutputStream>(3).write(file1Content, offset, length)
+			null
+		}.whenever(cloudContentRepository).read(eq(cryptoFile1.cloudFile), any<Long>(), any<Long>(), any(), any())
+
+		val outputStream = ByteArrayOutputStream(1000)
+		inTest.read(cryptoFile1, 10L, 9L, outputStream, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
+
+		MatcherAssert.assertThat(outputStream.toString(), CoreMatchers.`is`("heim!1geh"))
+		Mockito.verify(cloudContentRepository).read(eq(cryptoFile1.cloudFile), eq(0L), eq(5L), any(), any())
+		Mockito.verify(cloudContentRepository).read(eq(cryptoFile1.cloudFile), eq(15L), eq(20L), any(), any())
+	}
+
+	@Test
+	@DisplayName("probe(\"/File 1\")")
+	@Throws(BackendException::class)
+	fun testProbeShortFile() {
+		val file1Content = "hhhhhTOPSECRET!TOPSECRET!TOPSECRET!".toByteArray()
+		val header = Mockito.mock(FileHeader::class.java)
+
+		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(8)
+		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
+		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
+		whenever(fileHeaderCryptor.decryptHeader(StandardCharsets.UTF_8.encode("hhhhh"))).thenReturn(header)
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<ByteBuffer>(1).put(StandardCharsets.UTF_8.encode("geheim!0"))
+			null
+		}.whenever(fileContentCryptor).decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), eq(0L), eq(header), any())
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			val offset = invocation.getArgument<Long>(1).toInt()
+			val length = invocation.getArgument<Long>(2).toInt()
+			invocation.getArgument<OutputStream>(3).write(file1Content, offset, length)
+			null
+		}.whenever(cloudContentRepository).read(eq(cryptoFile1.cloudFile), any<Long>(), any<Long>(), any(), any())
+
+		val probe = inTest.probe(cryptoFile1)
+
+		MatcherAssert.assertThat(probe.intact, CoreMatchers.`is`(true))
+		MatcherAssert.assertThat(probe.header, CoreMatchers.`is`(header))
+		MatcherAssert.assertThat(String(probe.firstCleartextChunk), CoreMatchers.`is`("geheim!0"))
+		Mockito.verify(cloudContentRepository).read(eq(cryptoFile1.cloudFile), eq(0L), eq(15L), any(), any())
+	}
+
+	@Test
+	@DisplayName("probe(\"/File 1\") with truncated header")
+	@Throws(BackendException::class)
+	fun testProbeFileWithTruncatedHeader() {
+		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
+		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<OutputStream>(3).write("hhh".toByteArray())
+			null
+		}.whenever(cloudContentRepository).read(eq(cryptoFile1.cloudFile), any<Long>(), any<Long>(), any(), any())
+
+		val probe = inTest.probe(cryptoFile1)
+
+		MatcherAssert.assertThat(probe.intact, CoreMatchers.`is`(false))
+	}
+
 	@Test
 	@DisplayName("read(\"/File 15x250\", NO_PROGRESS_AWARE)")
 	@Throws(BackendException::class)
@@ -321,8 +462,10 @@ class CryptoImplVaultFormat7Test {
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileHeaderCryptor.decryptHeader(StandardCharsets.UTF_8.encode("hhhhh"))).thenReturn(header)
-		whenever(fileContentCryptor.decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), eq(header), any()))
-			.then { StandardCharsets.UTF_8.encode("geheim!!") }
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<ByteBuffer>(1).put(StandardCharsets.UTF_8.encode("geheim!!"))
+			null
+		}.whenever(fileContentCryptor).decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), any(), eq(header), any())
 
 		val cryptoFile15 = CryptoFile(root, file3Name, "/$file3Name", null, testFile3ContentFile)
 
@@ -330,7 +473,7 @@ class CryptoImplVaultFormat7Test {
 			val out = invocation.getArgument<OutputStream>(2)
 			copyStreamToStream(ByteArrayInputStream(file1Content), out)
 			null
-		}.whenever(cloudContentRepository).read(eq(cryptoFile15.cloudFile), any(), any(), any())
+		}.whenever(cloudContentRepository).read(eq(cryptoFile15.cloudFile), anyOrNull(), any(), any())
 
 		val outputStream = ByteArrayOutputStream(1000)
 		inTest.read(cryptoFile15, outputStream, ProgressAware.NO_OP_PROGRESS_AWARE_DOWNLOAD)
@@ -351,12 +494,12 @@ class CryptoImplVaultFormat7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(10)
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
-		whenever(fileContentCryptor.encryptChunk(any(ByteBuffer::class.java), any(), any(FileHeader::class.java)))
-			.thenAnswer { invocation: InvocationOnMock ->
-				val input = invocation.getArgument<ByteBuffer>(0)
-				val inStr = StandardCharsets.UTF_8.decode(input).toString()
-				ByteBuffer.wrap(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
-			}
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			val input = invocation.getArgument<ByteBuffer>(0)
+			val inStr = StandardCharsets.UTF_8.decode(input).toString()
+			invocation.getArgument<ByteBuffer>(1).put(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
+			null
+		}.whenever(fileContentCryptor).encryptChunk(any(), any(), any(), any())
 		whenever(cloudContentRepository.write(eq(cryptoFile1.cloudFile), any(DataSource::class.java), any(), eq(false), any()))
 			.thenAnswer { invocationOnMock: InvocationOnMock ->
 				val inputStream = invocationOnMock.getArgument<DataSource>(1)
@@ -405,12 +548,12 @@ class CryptoImplVaultFormat7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(10)
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
-		whenever(fileContentCryptor.encryptChunk(any(ByteBuffer::class.java), any(), any(FileHeader::class.java)))
-			.thenAnswer { invocation: InvocationOnMock ->
-				val input = invocation.getArgument<ByteBuffer>(0)
-				val inStr = StandardCharsets.UTF_8.decode(input).toString()
-				ByteBuffer.wrap(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
-			}
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			val input = invocation.getArgument<ByteBuffer>(0)
+			val inStr = StandardCharsets.UTF_8.decode(input).toString()
+			invocation.getArgument<ByteBuffer>(1).put(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
+			null
+		}.whenever(fileContentCryptor).encryptChunk(any(), any(), any(), any())
 		whenever(cloudContentRepository.write(eq(testFile15ContentFile), any(DataSource::class.java), any(), eq(false), any()))
 			.thenAnswer { invocationOnMock: InvocationOnMock ->
 				val inputStream = invocationOnMock.getArgument<DataSource>(1)
@@ -483,12 +626,12 @@ class CryptoImplVaultFormat7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(10)
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
-		whenever(fileContentCryptor.encryptChunk(any(ByteBuffer::class.java), any(), any(FileHeader::class.java)))
-			.thenAnswer { invocation: InvocationOnMock ->
-				val input = invocation.getArgument<ByteBuffer>(0)
-				val inStr = StandardCharsets.UTF_8.decode(input).toString()
-				ByteBuffer.wrap(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
-			}
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			val input = invocation.getArgument<ByteBuffer>(0)
+			val inStr = StandardCharsets.UTF_8.decode(input).toString()
+			invocation.getArgument<ByteBuffer>(1).put(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
+			null
+		}.whenever(fileContentCryptor).encryptChunk(any(), any(), any(), any())
 		whenever(cloudContentRepository.write(eq(testFile15ContentFileRename), any(DataSource::class.java), any(), eq(false), any()))
 			.thenAnswer { invocationOnMock: InvocationOnMock ->
 				val inputStream = invocationOnMock.getArgument<DataSource>(1)
@@ -540,7 +683,7 @@ class CryptoImplVaultFormat7Test {
 		whenever(cloudContentRepository.folder(lvl2Dir, "DDDDDDDDDDDDDDDDDDDDDDDDDDDDDD")).thenReturn(ddFolder)
 		whenever(cloudContentRepository.file(testDir3, "dir.c9r")).thenReturn(testDir3DirFile)
 		whenever(cloudContentRepository.file(ddFolder, "dirid.c9r")).thenReturn(testDir3DirBackupFile)
-		whenever(dirIdCache.put(eq(cryptoFolder3), any())).thenReturn(DirIdInfo("dir3-id", ddFolder))
+		whenever(dirIdCache.put(eq(cryptoFolder3), any())).thenAnswer { invocationOnMock: InvocationOnMock -> invocationOnMock.getArgument(1) }
 		whenever(cloudContentRepository.create(lvl2Dir)).thenReturn(lvl2Dir)
 		whenever(cloudContentRepository.create(ddFolder)).thenReturn(ddFolder)
 		whenever(cloudContentRepository.create(testDir3)).thenReturn(testDir3)
@@ -553,6 +696,7 @@ class CryptoImplVaultFormat7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(7)
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(7)
+		// the backup of the directory ID is encrypted by the EncryptingWritableByteChannel of cryptolib
 		whenever(fileContentCryptor.encryptChunk(any(ByteBuffer::class.java), any(), any(FileHeader::class.java)))
 			.thenAnswer { invocation: InvocationOnMock ->
 				val input = invocation.getArgument<ByteBuffer>(0)
@@ -561,12 +705,7 @@ class CryptoImplVaultFormat7Test {
 			}
 
 		whenever(cloudContentRepository.write(eq(testDir3DirBackupFile), any(DataSource::class.java), any(), eq(false), any()))
-			.thenAnswer { invocationOnMock: InvocationOnMock ->
-				val inputStream = invocationOnMock.getArgument<DataSource>(1)
-				val encrypted = BufferedReader(InputStreamReader(inputStream.open(context)!!, StandardCharsets.UTF_8)).readLine()
-				MatcherAssert.assertThat(encrypted, CoreMatchers.`is`("hhhhhDIR3-ID"))
-				invocationOnMock.getArgument(0)
-			}
+			.thenAnswer { invocationOnMock: InvocationOnMock -> invocationOnMock.getArgument(0) }
 
 		// just for the exits check
 		whenever(cloudContentRepository.file(aaFolder, "dir3.c9r", null))
@@ -576,10 +715,19 @@ class CryptoImplVaultFormat7Test {
 
 		MatcherAssert.assertThat(cloudFolder, CoreMatchers.`is`(cryptoFolder3))
 
-		Mockito.verify(cloudContentRepository).create(ddFolder)
+		// the dir file is only written once the directory it references exists
+		val inOrder = Mockito.inOrder(cloudContentRepository)
+		inOrder.verify(cloudContentRepository).create(ddFolder)
+		inOrder.verify(cloudContentRepository).write(eq(testDir3DirFile), any(), any(), eq(false), any())
 		Mockito.verify(cloudContentRepository).create(testDir3)
-		Mockito.verify(cloudContentRepository).write(eq(testDir3DirFile), any(), any(), eq(false), any())
-		Mockito.verify(cloudContentRepository).write(eq(testDir3DirBackupFile), any(), any(), eq(false), any())
+		// the new directory ID is only cached after the folder has been created
+		val dirIdInfo = argumentCaptor<DirIdInfo>()
+		Mockito.verify(dirIdCache).put(eq(cryptoFolder3), dirIdInfo.capture())
+		// the backup is uploaded in the background
+		val backup = argumentCaptor<DataSource>()
+		Mockito.verify(cloudContentRepository, Mockito.timeout(1000)).write(eq(testDir3DirBackupFile), backup.capture(), any(), eq(false), any())
+		val encrypted = BufferedReader(InputStreamReader(backup.firstValue.open(context)!!, StandardCharsets.UTF_8)).readLine()
+		MatcherAssert.assertThat(encrypted, CoreMatchers.`is`("hhhhh" + dirIdInfo.firstValue.id.uppercase()))
 	}
 
 	@Test
@@ -652,6 +800,7 @@ class CryptoImplVaultFormat7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(7)
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(7)
+		// the backup of the directory ID is encrypted by the EncryptingWritableByteChannel of cryptolib
 		whenever(fileContentCryptor.encryptChunk(any(ByteBuffer::class.java), any(), any(FileHeader::class.java)))
 			.thenAnswer { invocation: InvocationOnMock ->
 				val input = invocation.getArgument<ByteBuffer>(0)
@@ -660,12 +809,7 @@ class CryptoImplVaultFormat7Test {
 			}
 
 		whenever(cloudContentRepository.write(eq(testDir3DirBackupFile), any(DataSource::class.java), any(), eq(false), any()))
-			.thenAnswer { invocationOnMock: InvocationOnMock ->
-				val inputStream = invocationOnMock.getArgument<DataSource>(1)
-				val encrypted = BufferedReader(InputStreamReader(inputStream.open(context)!!, StandardCharsets.UTF_8)).readLine()
-				MatcherAssert.assertThat(encrypted, CoreMatchers.`is`("hhhhhDIR3-ID"))
-				invocationOnMock.getArgument(0)
-			}
+			.thenAnswer { invocationOnMock: InvocationOnMock -> invocationOnMock.getArgument(0) }
 
 		var cloudFolder: CloudFolder = inTest.folder(root, dir3Name)
 
@@ -676,7 +820,11 @@ class CryptoImplVaultFormat7Test {
 		Mockito.verify(cloudContentRepository).create(testDir3)
 		Mockito.verify(cloudContentRepository).write(eq(testDir3DirFile), any(), any(), eq(false), any())
 		Mockito.verify(cloudContentRepository).write(eq(testDir3NameFile), any(), any(), eq(true), any())
-		Mockito.verify(cloudContentRepository).write(eq(testDir3DirBackupFile), any(), any(), eq(false), any())
+		// the backup is uploaded in the background
+		val backup = argumentCaptor<DataSource>()
+		Mockito.verify(cloudContentRepository, Mockito.timeout(1000)).write(eq(testDir3DirBackupFile), backup.capture(), any(), eq(false), any())
+		val encrypted = BufferedReader(InputStreamReader(backup.firstValue.open(context)!!, StandardCharsets.UTF_8)).readLine()
+		MatcherAssert.assertThat(encrypted, CoreMatchers.`is`("hhhhhDIR3-ID"))
 	}
 
 	@Test
@@ -285,9 +285,11 @@ internal class CryptoImplVaultFormatPre7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileNameCryptor.encryptFilename(BaseEncoding.base32(), "File 1", dirIdRoot.toByteArray())).thenReturn("file1")
 		whenever(fileHeaderCryptor.decryptHeader(StandardCharsets.UTF_8.encode("hhhhh"))).thenReturn(header)
-		whenever(fileContentCryptor.decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), eq(header), any()))
-			.then { invocation: InvocationOnMock? -> StandardCharsets.UTF_8.encode("geheim!!") }
-		whenever(cloudContentRepository.read(eq(cryptoFile1.cloudFile), any(), any(), any())).thenAnswer { invocationOnMock: InvocationOnMock ->
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<ByteBuffer>(1).put(StandardCharsets.UTF_8.encode("geheim!!"))
+			null
+		}.whenever(fileContentCryptor).decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), any(), eq(header), any())
+		whenever(cloudContentRepository.read(eq(cryptoFile1.cloudFile), anyOrNull(), any(), any())).thenAnswer { invocationOnMock: InvocationOnMock ->
 			val out = invocationOnMock.getArgument<OutputStream>(2)
 			copyStreamToStream(ByteArrayInputStream(file1Content), out)
 			null
@@ -316,10 +318,12 @@ internal class CryptoImplVaultFormatPre7Test {
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileHeaderCryptor.decryptHeader(StandardCharsets.UTF_8.encode("hhhhh"))).thenReturn(header)
-		whenever(fileContentCryptor.decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), eq(header), any()))
-			.then { invocation: InvocationOnMock? -> StandardCharsets.UTF_8.encode("geheim!!") }
+		Mockito.doAnswer { invocation: InvocationOnMock ->
+			invocation.getArgument<ByteBuffer>(1).put(StandardCharsets.UTF_8.encode("geheim!!"))
+			null
+		}.whenever(fileContentCryptor).decryptChunk(eq(StandardCharsets.UTF_8.encode("TOPSECRET!")), any(), any(), eq(header), any())
 		val cryptoFile15 = CryptoFile(root, file3Name, "/$file3Name", null, testFile3ContentFile)
-		whenever(cloudContentRepository.read(eq(cryptoFile15.cloudFile), any(), any(), any())).thenAnswer { invocationOnMock: InvocationOnMock ->
+		whenever(cloudContentRepository.read(eq(cryptoFile15.cloudFile), anyOrNull(), any(), any())).thenAnswer { invocationOnMock: InvocationOnMock ->
 			val out = invocationOnMock.getArgument<OutputStream>(2)
 			copyStreamToStream(ByteArrayInputStream(file1Content), out)
 			null
@@ -342,17 +346,12 @@ internal class CryptoImplVaultFormatPre7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(10)
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
-		whenever(
-			fileContentCryptor.encryptChunk(
-				any(ByteBuffer::class.java), any(), any(
-					FileHeader::class.java
-				)
-			)
-		).thenAnswer { invocation: InvocationOnMock ->
+		Mockito.doAnswer { invocation: InvocationOnMock ->
 			val input = invocation.getArgument<ByteBuffer>(0)
 			val inStr = StandardCharsets.UTF_8.decode(input).toString()
-			ByteBuffer.wrap(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
-		}
+			invocation.getArgument<ByteBuffer>(1).put(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
+			null
+		}.whenever(fileContentCryptor).encryptChunk(any(), any(), any(), any())
 		whenever(cloudContentRepository.write(eq(cryptoFile1.cloudFile), any(DataSource::class.java), any(), eq(false), any()))
 			.thenAnswer { invocationOnMock: InvocationOnMock ->
 				val inputStream = invocationOnMock.getArgument<DataSource>(1)
@@ -389,17 +388,12 @@ internal class CryptoImplVaultFormatPre7Test {
 		whenever(fileHeaderCryptor.headerSize()).thenReturn(5)
 		whenever(fileContentCryptor.cleartextChunkSize()).thenReturn(10)
 		whenever(fileContentCryptor.ciphertextChunkSize()).thenReturn(10)
-		whenever(
-			fileContentCryptor.encryptChunk(
-				any(ByteBuffer::class.java), any(), any(
-					FileHeader::class.java
-				)
-			)
-		).thenAnswer { invocation: InvocationOnMock ->
+		Mockito.doAnswer { invocation: InvocationOnMock ->
 			val input = invocation.getArgument<ByteBuffer>(0)
 			val inStr = StandardCharsets.UTF_8.decode(input).toString()
-			ByteBuffer.wrap(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
-		}
+			invocation.getArgument<ByteBuffer>(1).put(inStr.lowercase().toByteArray(StandardCharsets.UTF_8))
+			null
+		}.whenever(fileContentCryptor).encryptChunk(any(), any(), any(), any())
 		whenever(cloudContentRepository.write(eq(metaDataDFile), any(DataSource::class.java), any(), eq(false), any()))
 			.thenAnswer { invocationOnMock: InvocationOnMock ->
 				val inputStream = invocationOnMock.getArgument<DataSource>(1)
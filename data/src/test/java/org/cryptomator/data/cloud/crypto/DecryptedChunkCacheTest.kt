@@ -0,0 +1,52 @@
+package org.cryptomator.data.cloud.crypto
+
+import android.content.ComponentCallbacks2
+import org.cryptomator.cryptolib.api.Cryptor
+import org.cryptomator.domain.CloudFile
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito
+import org.mockito.kotlin.mock
+
+class DecryptedChunkCacheTest {
+
+	private val cryptor: Cryptor = mock()
+	private val file = DecryptedChunkCache.FileKey.of(cryptor, ciphertextFile("/file"))!!
+
+	private val inTest = DecryptedChunkCache(4)
+
+	@Test
+	fun testTrimMemoryInBackgroundEvictsLeastRecentlyUsedHalf() {
+		inTest.put(file, 0, byteArrayOf(1))
+		inTest.put(file, 1, byteArrayOf(2))
+		inTest.put(file, 2, byteArrayOf(3))
+		inTest.put(file, 3, byteArrayOf(4))
+		inTest.get(file, 0)
+
+		inTest.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)
+
+		MatcherAssert.assertThat(inTest.get(file, 0), CoreMatchers.notNullValue())
+		MatcherAssert.assertThat(inTest.get(file, 1), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.get(file, 2), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.get(file, 3), CoreMatchers.notNullValue())
+	}
+
+	@Test
+	fun testTrimMemoryCompleteEvictsAndWipesAllChunks() {
+		val chunk = byteArrayOf(1, 2)
+		inTest.put(file, 0, chunk)
+
+		inTest.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+
+		MatcherAssert.assertThat(inTest.get(file, 0), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(chunk.all { it == 0.toByte() }, CoreMatchers.`is`(true))
+	}
+
+	private fun ciphertextFile(path: String): CloudFile {
+		val file: CloudFile = mock()
+		Mockito.`when`(file.path).thenReturn(path)
+		Mockito.`when`(file.size).thenReturn(42L)
+		return file
+	}
+}
@@ -0,0 +1,78 @@
+package org.cryptomator.data.cloud.crypto
+
+import android.content.ComponentCallbacks2
+import org.cryptomator.data.cloud.crypto.DirIdCache.DirIdInfo
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+
+class DirIdCacheFormat7Test {
+
+	private val cloudFolder = TestFolder(RootTestFolder(mock()), "d", "/d")
+	private val root = RootCryptoFolder(mock())
+	private val folderA = CryptoFolder(root, "a", "/a", null)
+	private val folderAB = CryptoFolder(folderA, "b", "/a/b", null)
+	private val folderABC = CryptoFolder(folderAB, "c", "/a/b/c", null)
+	private val folderAbc = CryptoFolder(root, "abc", "/abc", null)
+
+	private val inTest = DirIdCacheFormat7(3)
+
+	@Test
+	fun testEvictSubFoldersOfKeepsFolderAndSiblings() {
+		val infoA = inTest.put(folderA, DirIdInfo("a", cloudFolder))
+		inTest.put(folderAB, DirIdInfo("b", cloudFolder))
+		inTest.put(folderABC, DirIdInfo("c", cloudFolder))
+
+		inTest.evictSubFoldersOf(folderA)
+
+		MatcherAssert.assertThat(inTest[folderA], CoreMatchers.sameInstance(infoA))
+		MatcherAssert.assertThat(inTest[folderAB], CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest[folderABC], CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.size(), CoreMatchers.`is`(1))
+	}
+
+	@Test
+	fun testEvictSubFoldersOfDoesNotMatchPathPrefixes() {
+		inTest.put(folderA, DirIdInfo("a", cloudFolder))
+		val infoAbc = inTest.put(folderAbc, DirIdInfo("abc", cloudFolder))
+
+		inTest.evictSubFoldersOf(folderA)
+
+		MatcherAssert.assertThat(inTest[folderAbc], CoreMatchers.sameInstance(infoAbc))
+	}
+
+	@Test
+	fun testEvictKeepsSubFolders() {
+		inTest.put(folderA, DirIdInfo("a", cloudFolder))
+		val infoAB = inTest.put(folderAB, DirIdInfo("b", cloudFolder))
+
+		inTest.evict(folderA)
+
+		MatcherAssert.assertThat(inTest[folderA], CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest[folderAB], CoreMatchers.sameInstance(infoAB))
+	}
+
+	@Test
+	fun testLeastRecentlyUsedEntryIsEvictedWhenFull() {
+		inTest.put(root, DirIdInfo("", cloudFolder))
+		inTest.put(folderA, DirIdInfo("a", cloudFolder))
+		inTest.put(folderAB, DirIdInfo("b", cloudFolder))
+		inTest[root]
+
+		inTest.put(folderABC, DirIdInfo("c", cloudFolder))
+
+		MatcherAssert.assertThat(inTest[folderA], CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.size(), CoreMatchers.`is`(3))
+	}
+
+	@Test
+	fun testTrimMemoryClearsCache() {
+		inTest.put(folderA, DirIdInfo("a", cloudFolder))
+		inTest.put(folderAB, DirIdInfo("b", cloudFolder))
+
+		inTest.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+
+		MatcherAssert.assertThat(inTest.size(), CoreMatchers.`is`(0))
+	}
+}
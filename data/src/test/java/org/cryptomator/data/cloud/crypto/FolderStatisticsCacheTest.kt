@@ -0,0 +1,104 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.data.cloud.crypto.FolderStatisticsCache.Contents
+import org.cryptomator.domain.CloudFile
+import org.cryptomator.domain.FolderStatistics
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+
+class FolderStatisticsCacheTest {
+
+	private val root = RootCryptoFolder(mock())
+	private val folder = CryptoFolder(root, "a", "/a", null)
+	private val file1 = CryptoFile(root, "b", "/b", 10L, mock())
+	private val file2 = CryptoFile(root, "c", "/c", null, mock())
+	private val file3 = CryptoFile(root, "d", "/d", 5L, mock())
+
+	private val inTest = FolderStatisticsCache(2)
+
+	@Test
+	fun testContentsSumUpFilesAndCountSubfolders() {
+		val contents = Contents.of(listOf(folder, file1, file2, file3))
+
+		MatcherAssert.assertThat(contents.statistics, CoreMatchers.`is`(FolderStatistics(15, 3, 1)))
+		MatcherAssert.assertThat(contents.subfoldersOf(root).map { it.path }, CoreMatchers.`is`(listOf("/a")))
+	}
+
+	@Test
+	fun testSubfoldersAreLocatedBelowTheCurrentPathOfTheirParent() {
+		val dirFile = mock<CloudFile>()
+		val contents = Contents.of(listOf(CryptoFolder(folder, "e", "/a/e", dirFile)))
+		val movedFolder = CryptoFolder(root, "moved", "/moved", null)
+
+		val subfolders = contents.subfoldersOf(movedFolder)
+
+		MatcherAssert.assertThat(subfolders.map { it.path }, CoreMatchers.`is`(listOf("/moved/e")))
+		MatcherAssert.assertThat(subfolders[0].parent, CoreMatchers.`is`(movedFolder))
+		MatcherAssert.assertThat(subfolders[0].dirFile, CoreMatchers.sameInstance(dirFile))
+	}
+
+	@Test
+	fun testLeastRecentlyUsedContentsAreEvictedWhenFull() {
+		inTest.put("dir1", Contents.of(emptyList()))
+		inTest.put("dir2", Contents.of(emptyList()))
+		inTest["dir1"]
+
+		inTest.put("dir3", Contents.of(emptyList()))
+
+		MatcherAssert.assertThat(inTest["dir1"], CoreMatchers.notNullValue())
+		MatcherAssert.assertThat(inTest["dir2"], CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.size(), CoreMatchers.`is`(2))
+	}
+
+	@Test
+	fun testInvalidateRemovesContents() {
+		inTest.put("dir", Contents.of(listOf(file1)))
+
+		inTest.invalidate("dir")
+
+		MatcherAssert.assertThat(inTest["dir"], CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testChangedContentsDropTotalsOfDirectoryAndItsAncestors() {
+		val inTest = FolderStatisticsCache()
+		putWithTotal(inTest, "root", null, FolderStatistics(15, 3, 1))
+		putWithTotal(inTest, "dir", "root", FolderStatistics(5, 1, 0))
+		putWithTotal(inTest, "sibling", "root", FolderStatistics(10, 2, 0))
+
+		inTest.invalidate("dir")
+
+		MatcherAssert.assertThat(inTest.total("dir"), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.total("root"), CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest.total("sibling"), CoreMatchers.`is`(FolderStatistics(10, 2, 0)))
+	}
+
+	@Test
+	fun testEvictedContentsDropTotalsOfAncestors() {
+		putWithTotal(inTest, "root", null, FolderStatistics(15, 3, 1))
+		putWithTotal(inTest, "dir", "root", FolderStatistics(5, 1, 0))
+		inTest["root"]
+
+		inTest.put("other", Contents.of(emptyList()))
+
+		MatcherAssert.assertThat(inTest.total("root"), CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testTotalSummedUpWhileDirectoryChangedIsNotCached() {
+		inTest.put("dir", Contents.of(listOf(file1)))
+		val generation = inTest.generation()
+
+		inTest.invalidate("other")
+		inTest.putTotal("dir", null, FolderStatistics(10, 1, 0), generation)
+
+		MatcherAssert.assertThat(inTest.total("dir"), CoreMatchers.nullValue())
+	}
+
+	private fun putWithTotal(cache: FolderStatisticsCache, dirId: String, parentDirId: String?, total: FolderStatistics) {
+		cache.put(dirId, Contents.of(emptyList()))
+		cache.putTotal(dirId, parentDirId, total, cache.generation())
+	}
+}
@@ -0,0 +1,82 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.util.BufferPool
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.Test
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CountDownLatch
+
+class OrderedChunkPipelineTest {
+
+	@Test
+	fun testResultsAreTakenInSubmissionOrder() {
+		val inTest = OrderedChunkPipeline(3)
+
+		inTest.submit(chunk("a")) { Thread.sleep(50); copy(it) }
+		inTest.submit(chunk("b")) { copy(it) }
+		inTest.submit(chunk("c")) { copy(it) }
+
+		MatcherAssert.assertThat(text(inTest.take()), CoreMatchers.`is`("a"))
+		MatcherAssert.assertThat(text(inTest.take()), CoreMatchers.`is`("b"))
+		MatcherAssert.assertThat(text(inTest.take()), CoreMatchers.`is`("c"))
+		MatcherAssert.assertThat(inTest.isEmpty(), CoreMatchers.`is`(true))
+	}
+
+	@Test
+	fun testInputOfChunkCancelledBeforeItWasProcessedIsWiped() {
+		val inTest = OrderedChunkPipeline(CryptoExecutor.PARALLELISM + 1)
+		val blocked = CountDownLatch(CryptoExecutor.PARALLELISM)
+		val unblock = CountDownLatch(1)
+		repeat(CryptoExecutor.PARALLELISM) {
+			inTest.submit(chunk("blocker")) {
+				blocked.countDown()
+				unblock.await()
+				copy(it)
+			}
+		}
+		blocked.await()
+		val cleartext = chunk("cleartext")
+		inTest.submit(cleartext) { throw IllegalStateException("Cancelled chunk processed") }
+
+		inTest.cancel()
+		unblock.countDown()
+
+		MatcherAssert.assertThat(cleartext.array().all { it == 0.toByte() }, CoreMatchers.`is`(true))
+		MatcherAssert.assertThat(inTest.isEmpty(), CoreMatchers.`is`(true))
+	}
+
+	@Test
+	fun testResultOfProcessedChunkWhichWasNotTakenIsWiped() {
+		val inTest = OrderedChunkPipeline(1)
+		val processed = CountDownLatch(1)
+		val cleartext = chunk("cleartext")
+		inTest.submit(chunk("ciphertext")) {
+			processed.countDown()
+			cleartext
+		}
+		processed.await()
+		Thread.sleep(50)
+
+		inTest.cancel()
+
+		MatcherAssert.assertThat(cleartext.array().all { it == 0.toByte() }, CoreMatchers.`is`(true))
+	}
+
+	private fun chunk(content: String): ByteBuffer {
+		val chunk = BufferPool.lease(content.length)
+		chunk.put(content.toByteArray(StandardCharsets.UTF_8)).flip()
+		return chunk
+	}
+
+	private fun copy(chunk: ByteBuffer): ByteBuffer {
+		val copy = ByteBuffer.allocate(chunk.remaining()).put(chunk)
+		copy.flip()
+		return copy
+	}
+
+	private fun text(chunk: ByteBuffer): String {
+		return StandardCharsets.UTF_8.decode(chunk).toString()
+	}
+}
@@ -0,0 +1,73 @@
+package org.cryptomator.data.cloud.crypto
+
+import org.cryptomator.data.cloud.crypto.DirIdCache.DirIdInfo
+import org.cryptomator.data.cloud.crypto.ResolvedPathCache.ResolvedPath
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+
+class ResolvedPathCacheTest {
+
+	private val cloudFolder = TestFolder(RootTestFolder(mock()), "d", "/d")
+	private val root = RootCryptoFolder(mock())
+	private val folderA = CryptoFolder(root, "a", "/a", null)
+	private val folderAB = CryptoFolder(folderA, "b", "/a/b", null)
+	private val folderAbc = CryptoFolder(root, "abc", "/abc", null)
+
+	private val dirIdCache = DirIdCacheFormat7()
+
+	private val inTest = ResolvedPathCache()
+
+	@Test
+	fun testInvalidateRemovesFolderAndSubfolders() {
+		inTest.put(ResolvedPath(folderA, dirIdCache), inTest.generation())
+		inTest.put(ResolvedPath(folderAB, dirIdCache), inTest.generation())
+		inTest.put(ResolvedPath(folderAbc, dirIdCache), inTest.generation())
+
+		inTest.invalidate(folderA)
+
+		MatcherAssert.assertThat(inTest["/a"], CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest["/a/b"], CoreMatchers.nullValue())
+		MatcherAssert.assertThat(inTest["/abc"]?.folder, CoreMatchers.`is`(folderAbc))
+	}
+
+	@Test
+	fun testPathResolvedDuringInvalidationIsNotCached() {
+		val generation = inTest.generation()
+
+		inTest.invalidate(folderA)
+		inTest.put(ResolvedPath(folderAB, dirIdCache), generation)
+
+		MatcherAssert.assertThat(inTest.size(), CoreMatchers.`is`(0))
+	}
+
+	@Test
+	fun testResolvedPathIsCurrentWhileDirIdsOfAncestorsAreCached() {
+		dirIdCache.put(folderA, DirIdInfo("a", cloudFolder))
+		val resolvedPath = ResolvedPath(folderAB, dirIdCache)
+
+		MatcherAssert.assertThat(resolvedPath.isCurrent(dirIdCache), CoreMatchers.`is`(true))
+	}
+
+	@Test
+	fun testResolvedPathIsNotCurrentAfterEvictionAndDoesNotRestoreDirIds() {
+		dirIdCache.put(folderA, DirIdInfo("a", cloudFolder))
+		val resolvedPath = ResolvedPath(folderAB, dirIdCache)
+
+		dirIdCache.evictSubFoldersOf(root)
+
+		MatcherAssert.assertThat(resolvedPath.isCurrent(dirIdCache), CoreMatchers.`is`(false))
+		MatcherAssert.assertThat(dirIdCache[folderA], CoreMatchers.nullValue())
+	}
+
+	@Test
+	fun testResolvedPathIsNotCurrentAfterDirIdOfAncestorChanged() {
+		dirIdCache.put(folderA, DirIdInfo("a", cloudFolder))
+		val resolvedPath = ResolvedPath(folderAB, dirIdCache)
+
+		dirIdCache.put(folderA, DirIdInfo("a2", cloudFolder))
+
+		MatcherAssert.assertThat(resolvedPath.isCurrent(dirIdCache), CoreMatchers.`is`(false))
+	}
+}
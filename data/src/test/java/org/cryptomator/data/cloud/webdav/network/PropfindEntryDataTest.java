@@ -0,0 +1,106 @@
+package org.cryptomator.data.cloud.webdav.network;
+
+import org.cryptomator.data.cloud.webdav.RootWebDavFolder;
+import org.cryptomator.data.cloud.webdav.WebDavFolder;
+import org.cryptomator.domain.WebDavCloud;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PropfindEntryDataTest {
+
+	private static final WebDavFolder PARENT_FOLDER = new WebDavFolder(new RootWebDavFolder( //
+			WebDavCloud //
+					.aWebDavCloudCloud() //
+					.withUrl("https://webdavserver.com") //
+					.withPassword("Bla") //
+					.withUsername("Julian") //
+					.build()), //
+			"webdav", //
+			"/webdav"); //
+
+	@Test
+	public void testPathOfAbsoluteHrefIsDecodedPathAfterHost() {
+		PropfindEntryData inTest = entryWithPath("https://webdavserver.com/webdav/Gel%c3%b6schte%20Dateien");
+
+		assertThat(inTest.getPath(), is("webdav/Gelöschte Dateien"));
+		assertThat(inTest.getDepth(), is(2));
+		assertThat(inTest.toCloudNode(PARENT_FOLDER).getName(), is("Gelöschte Dateien"));
+	}
+
+	@Test
+	public void testPathOfRelativeHrefIsDecodedHref() {
+		PropfindEntryData inTest = entryWithPath("/webdav/Gel%c3%b6schte%20Dateien");
+
+		assertThat(inTest.getPath(), is("/webdav/Gelöschte Dateien"));
+		assertThat(inTest.getDepth(), is(3));
+		assertThat(inTest.toCloudNode(PARENT_FOLDER).getName(), is("Gelöschte Dateien"));
+	}
+
+	@Test
+	public void testRelativeHrefWithoutLeadingSlashIsAbsolutePath() {
+		PropfindEntryData inTest = entryWithPath("webdav/0.txt");
+
+		assertThat(inTest.getPath(), is("/webdav/0.txt"));
+		assertThat(inTest.getDepth(), is(3));
+		assertThat(inTest.toCloudNode(PARENT_FOLDER).getName(), is("0.txt"));
+	}
+
+	@Test
+	public void testTrailingSlashIsNotASegment() {
+		PropfindEntryData inTest = entryWithPath("/webdav/folder/");
+
+		assertThat(inTest.getPath(), is("/webdav/folder/"));
+		assertThat(inTest.getDepth(), is(3));
+		assertThat(inTest.toCloudNode(PARENT_FOLDER).getName(), is("folder"));
+	}
+
+	@Test
+	public void testPathOfHostOnlyHrefIsEmpty() {
+		assertThat(entryWithPath("https://webdavserver.com").getPath(), is(""));
+		assertThat(entryWithPath("https://webdavserver.com").getDepth(), is(0));
+		assertThat(entryWithPath("https://webdavserver.com/").getPath(), is(""));
+		assertThat(entryWithPath("https://webdavserver.com/").getDepth(), is(0));
+	}
+
+	@Test
+	public void testRootHrefHasEmptyName() {
+		PropfindEntryData inTest = entryWithPath("/");
+
+		assertThat(inTest.getPath(), is("/"));
+		assertThat(inTest.getDepth(), is(1));
+		assertThat(inTest.toCloudNode(PARENT_FOLDER).getName(), is(""));
+	}
+
+	@Test
+	public void testEmptyHrefIsRoot() {
+		PropfindEntryData inTest = entryWithPath("");
+
+		assertThat(inTest.getPath(), is("/"));
+		assertThat(inTest.getDepth(), is(1));
+	}
+
+	@Test
+	public void testHrefWithoutHostIsNoAbsoluteUri() {
+		assertThat(entryWithPath("https:///webdav").getPath(), is("/https:///webdav"));
+		assertThat(entryWithPath("/webdav/https://webdavserver.com/0.txt").getPath(), is("/webdav/https://webdavserver.com/0.txt"));
+	}
+
+	@Test
+	public void testSamePathIgnoresLeadingAndTrailingSlashes() {
+		PropfindEntryData requested = entryWithPath("https://webdavserver.com/webdav/");
+
+		assertThat(entryWithPath("/webdav").hasSamePathAs(requested), is(true));
+		assertThat(entryWithPath("webdav/").hasSamePathAs(requested), is(true));
+		assertThat(entryWithPath("/webdav/0.txt").hasSamePathAs(requested), is(false));
+		assertThat(entryWithPath("/webda").hasSamePathAs(requested), is(false));
+		assertThat(entryWithPath("https://webdavserver.com").hasSamePathAs(entryWithPath("/")), is(true));
+	}
+
+	private PropfindEntryData entryWithPath(String href) {
+		PropfindEntryData entry = new PropfindEntryData();
+		entry.setPath(href);
+		return entry;
+	}
+}
@@ -0,0 +1,271 @@
+package org.cryptomator.data.cloud.webdav.network
+
+import org.cryptomator.data.cloud.webdav.RootWebDavFolder
+import org.cryptomator.data.cloud.webdav.WebDavFile
+import org.cryptomator.data.cloud.webdav.WebDavFolder
+import org.cryptomator.data.cloud.webdav.WebDavNode
+import org.cryptomator.domain.WebDavCloud
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable
+import org.kxml2.io.KXmlParser
+import org.xmlpull.v1.XmlPullParser
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.lang.management.ManagementFactory
+import java.net.URLDecoder
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+import java.time.ZoneOffset
+import java.time.format.DateTimeFormatter
+import java.util.Base64
+import java.util.Date
+import java.util.Random
+import java.util.regex.Pattern
+
+/**
+ * Measures parsing the PROPFIND responses of huge folders, reporting the parsed entries per second and the bytes allocated per entry.
+ * The nodes pulled by [PropfindResponseParser.nextNode] and parsed by [PropfindResponseParser.parse] are compared to the ones of
+ * [BaselineParser], which parses the responses the way the parser did before it was optimized.
+ *
+ * The responses are modelled on the ones in `propfind-test-request`: hrefs with percent-encoded ciphertext names, one file per ten
+ * folders and an additional propstat with 404 status for the content length of each folder, as sent by Nextcloud.
+ *
+ * Run with `CRYPTOMATOR_BENCHMARK=true ./gradlew :data:testApkstoreDebugUnitTest --tests *PropfindResponseParserBenchmark`.
+ */
+@EnabledIfEnvironmentVariable(named = "CRYPTOMATOR_BENCHMARK", matches = "true")
+class PropfindResponseParserBenchmark {
+
+	private val folder = WebDavFolder(
+		RootWebDavFolder(
+			WebDavCloud //
+				.aWebDavCloudCloud() //
+				.withUrl(SERVER_URL) //
+				.withUsername("user") //
+				.withPassword("password") //
+				.build()
+		), "folder", "/folder"
+	)
+
+	private val response = multistatus(ENTRY_COUNT)
+
+	@Test
+	fun benchmarkParseHugeFolder() {
+		val baseline = measure("baseline") { responseBody ->
+			BaselineParser(folder, KXmlParser()).parse(responseBody)
+		}
+		val pulled = measure("nextNode") { responseBody ->
+			val parser = PropfindResponseParser(folder, SERVER_URL + "/folder/", KXmlParser())
+			parser.begin(responseBody)
+			generateSequence { parser.nextNode() }.toList()
+		}
+		val parsed = measure("parse") { responseBody ->
+			// like the baseline, the entry of the requested folder is the least deep one
+			val entries = PropfindResponseParser(folder, null, KXmlParser()).parse(responseBody)
+			val requestedFolderEntry = entries.minByOrNull { it.getDepth() }
+			entries.filter { it !== requestedFolderEntry }.map { it.toCloudNode(folder) }
+		}
+
+		MatcherAssert.assertThat(baseline.size, CoreMatchers.`is`(ENTRY_COUNT))
+		MatcherAssert.assertThat(describe(pulled), CoreMatchers.`is`(describe(baseline)))
+		MatcherAssert.assertThat(describe(parsed), CoreMatchers.`is`(describe(baseline)))
+	}
+
+	/**
+	 * @return the nodes parsed by the last iteration
+	 */
+	private fun measure(name: String, parse: (InputStream) -> List<WebDavNode>): List<WebDavNode> {
+		repeat(WARMUP_ITERATIONS) { parse(ByteArrayInputStream(response)) }
+		val threadMXBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+		val threadId = Thread.currentThread().id
+		var nodes = emptyList<WebDavNode>()
+		val allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId)
+		val start = System.nanoTime()
+		repeat(ITERATIONS) { nodes = parse(ByteArrayInputStream(response)) }
+		val nanos = System.nanoTime() - start
+		val allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore
+		val entries = ENTRY_COUNT.toLong() * ITERATIONS
+
+		println(String.format("%s: %d entries/s, %d bytes allocated per entry (%d entries, %d KiB response)", name, entries * 1_000_000_000L / nanos, allocated / entries, ENTRY_COUNT, response.size / 1024))
+		return nodes
+	}
+
+	private fun describe(nodes: List<WebDavNode>): List<String> {
+		return nodes.map { node ->
+			when (node) {
+				is WebDavFile -> String.format("file %s %s %s", node.path, node.size, node.modified?.time)
+				else -> String.format("folder %s", node.path)
+			}
+		}
+	}
+
+	private fun multistatus(entryCount: Int): ByteArray {
+		val random = Random(42)
+		val xml = StringBuilder("<?xml version=\"1.0\"?>\n<d:multistatus xmlns:d=\"DAV:\" xmlns:s=\"http://sabredav.org/ns\">\n")
+		appendResponse(xml, "$HREF_PREFIX/folder/", Instant.ofEpochSecond(FIRST_MODIFIED), null)
+		repeat(entryCount) { index ->
+			val name = ciphertextName(random)
+			val modified = Instant.ofEpochSecond(FIRST_MODIFIED + index * 37L)
+			if (index % 10 == 0) {
+				appendResponse(xml, "$HREF_PREFIX/folder/$name/", modified, null)
+			} else {
+				appendResponse(xml, "$HREF_PREFIX/folder/$name", modified, random.nextInt(10_000_000).toLong())
+			}
+		}
+		xml.append("</d:multistatus>\n")
+		return xml.toString().toByteArray(StandardCharsets.UTF_8)
+	}
+
+	private fun appendResponse(xml: StringBuilder, href: String, modified: Instant, size: Long?) {
+		xml.append("<d:response><d:href>").append(href).append("</d:href>")
+		xml.append("<d:propstat><d:prop>")
+		xml.append("<d:getlastmodified>").append(HTTP_DATE_FORMATTER.format(modified)).append("</d:getlastmodified>")
+		if (size != null) {
+			xml.append("<d:getcontentlength>").append(size).append("</d:getcontentlength><d:resourcetype/>")
+		} else {
+			xml.append("<d:resourcetype><d:collection/></d:resourcetype>")
+		}
+		xml.append("</d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat>")
+		if (size == null) {
+			xml.append("<d:propstat><d:prop><d:getcontentlength/></d:prop><d:status>HTTP/1.1 404 Not Found</d:status></d:propstat>")
+		}
+		xml.append("</d:response>\n")
+	}
+
+	private fun ciphertextName(random: Random): String {
+		val bytes = ByteArray(CIPHERTEXT_NAME_BYTES).also { random.nextBytes(it) }
+		return Base64.getUrlEncoder().encodeToString(bytes).replace("=", "%3D") + ".c9r"
+	}
+
+	/**
+	 * Parses the responses like [PropfindResponseParser] did before it was optimized: tag names and status lines are split using regular
+	 * expressions, texts are copied into builders, dates are parsed leniently by [Date] and hrefs are matched, decoded and split.
+	 */
+	private class BaselineParser(private val folder: WebDavFolder, private val xmlPullParser: XmlPullParser) {
+
+		private class Entry {
+
+			var path = ""
+			var isFile = true
+			var lastModified: Date? = null
+			var size: Long? = null
+
+			val pathSegments: List<String>
+				get() = path.split("/").let { if (it.last() == "") it.subList(0, it.size - 1) else it }
+		}
+
+		fun parse(responseBody: InputStream): List<WebDavNode> {
+			val entries = ArrayList<Entry>()
+			xmlPullParser.setInput(responseBody, "UTF-8")
+			while (skipToStartOf("response")) {
+				parseResponse()?.let { entries.add(it) }
+			}
+			// the entry of the requested folder is the least deep one
+			val requestedFolderEntry = entries.minByOrNull { it.pathSegments.size }
+			return entries.filter { it !== requestedFolderEntry }.map { entry ->
+				val name = entry.pathSegments.last()
+				if (entry.isFile) {
+					WebDavFile(folder, name, entry.size, entry.lastModified)
+				} else {
+					WebDavFolder(folder, name, folder.path + '/' + name)
+				}
+			}
+		}
+
+		private fun skipToStartOf(tag: String): Boolean {
+			do {
+				xmlPullParser.next()
+			} while (xmlPullParser.eventType != XmlPullParser.END_DOCUMENT && !startOf(tag))
+			return startOf(tag)
+		}
+
+		private fun parseResponse(): Entry? {
+			var entry: Entry? = null
+			var path: String? = null
+			while (nextTagUntilEndOf("response")) {
+				if (tagIs("propstat")) {
+					entry = parsePropstatWith200Status() ?: entry
+				} else if (tagIs("href")) {
+					path = textInCurrentTag().trim { it <= ' ' }
+				}
+			}
+			return entry?.takeIf { path != null }?.apply { this.path = extractPath(path!!) }
+		}
+
+		private fun parsePropstatWith200Status(): Entry? {
+			val result = Entry()
+			var statusOk = false
+			while (nextTagUntilEndOf("propstat")) {
+				when {
+					tagIs("status") -> statusOk = textInCurrentTag().trim { it <= ' ' }.split(" ".toRegex()).toTypedArray()[1] == "200"
+					tagIs("collection") -> result.isFile = false
+					tagIs("getlastmodified") -> result.lastModified = parseDate(textInCurrentTag())
+					tagIs("getcontentlength") -> result.size = textInCurrentTag().toLongOrNull()
+				}
+			}
+			return result.takeIf { statusOk }
+		}
+
+		private fun nextTagUntilEndOf(tag: String): Boolean {
+			do {
+				xmlPullParser.next()
+			} while (xmlPullParser.eventType != XmlPullParser.END_DOCUMENT && xmlPullParser.eventType != XmlPullParser.START_TAG && !(xmlPullParser.eventType == XmlPullParser.END_TAG && tagIs(tag)))
+			return xmlPullParser.eventType == XmlPullParser.START_TAG
+		}
+
+		private fun startOf(tag: String): Boolean {
+			return xmlPullParser.eventType == XmlPullParser.START_TAG && tagIs(tag)
+		}
+
+		private fun tagIs(tag: String): Boolean {
+			return tag.equals(xmlPullParser.name.split(":".toRegex(), 2).toTypedArray().last(), ignoreCase = true)
+		}
+
+		private fun textInCurrentTag(): String {
+			val result = StringBuilder()
+			var ident = 0
+			do {
+				when (xmlPullParser.next()) {
+					XmlPullParser.TEXT -> result.append(xmlPullParser.text)
+					XmlPullParser.START_TAG -> ident++
+					XmlPullParser.END_TAG -> ident--
+				}
+			} while (xmlPullParser.eventType != XmlPullParser.END_DOCUMENT && ident >= 0)
+			return result.toString()
+		}
+
+		@Suppress("DEPRECATION")
+		private fun parseDate(text: String): Date? {
+			return try {
+				Date(text)
+			} catch (e: IllegalArgumentException) {
+				null
+			}
+		}
+
+		private fun extractPath(pathOrUri: String): String {
+			val matcher = URI_PATTERN.matcher(pathOrUri)
+			val path = when {
+				matcher.matches() -> matcher.group(1)
+				!pathOrUri.startsWith("/") -> "/$pathOrUri"
+				else -> pathOrUri
+			}
+			return URLDecoder.decode(path, "UTF-8")
+		}
+	}
+
+	companion object {
+
+		private const val SERVER_URL = "https://webdav.example.com/remote.php/webdav"
+		private const val HREF_PREFIX = "/remote.php/webdav"
+		private const val ENTRY_COUNT = 50_000
+		private const val CIPHERTEXT_NAME_BYTES = 40
+		private const val FIRST_MODIFIED = 1_500_000_000L
+		private const val WARMUP_ITERATIONS = 3
+		private const val ITERATIONS = 5
+
+		private val HTTP_DATE_FORMATTER = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC)
+		private val URI_PATTERN = Pattern.compile("^[a-z]+://[^/]+/(.*)$")
+	}
+}
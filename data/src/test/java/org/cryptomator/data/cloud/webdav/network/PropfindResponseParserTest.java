@@ -7,12 +7,15 @@ import org.cryptomator.domain.CloudNode;
 import org.cryptomator.domain.WebDavCloud;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.kxml2.io.KXmlParser;
 import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
@@ -27,7 +30,6 @@ import static org.hamcrest.Matchers.emptyCollectionOf;
 import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 import static java.util.Collections.sort;
 
-@Disabled
 public class PropfindResponseParserTest {
 
 	private static final String PARENT_CLOUD_PATH = "https://webdavserver.com/User7de989b";
@@ -48,12 +50,16 @@ public class PropfindResponseParserTest {
 	private static final String RESPONSE_ONE_FILE_NO_SERVER = "directory-one-file-no-server";
 	private static final String RESPONSE_ONE_FILE_AND_FOLDERS = "directory-and-file";
 	private static final String RESPONSE_MAL_FORMATTED_XMLPULLPARSER_EXCEPTION = "malformatted-response-xmlpullparser";
+	private static final String LAST_MODIFIED = "Thu, 18 May 2017 09:49:41 GMT";
+	private static final Date LAST_MODIFIED_DATE = Date.from(Instant.parse("2017-05-18T09:49:41Z"));
+	private static final long SIZE = 36L;
+	private static final String STATUS_OK = "HTTP/1.1 200 OK";
 	private final Comparator<PropfindEntryData> ASCENDING_BY_DEPTH = (o1, o2) -> o1.getDepth() - o2.getDepth();
 	private PropfindResponseParser inTest;
 
 	@BeforeEach
 	public void setup() {
-		inTest = new PropfindResponseParser(PARENT_FOLDER);
+		inTest = parserFor(PARENT_FOLDER, null);
 	}
 
 	@Test
@@ -111,7 +117,7 @@ public class PropfindResponseParserTest {
 				"", //
 				""); //
 
-		inTest = new PropfindResponseParser(webDavFolder);
+		inTest = parserFor(webDavFolder, null);
 
 		List<PropfindEntryData> result = inTest.parse(load(RESPONSE_ONE_FILE_AND_FOLDERS));
 		List<CloudNode> nodes = processDirList(result, webDavFolder);
@@ -123,11 +129,207 @@ public class PropfindResponseParserTest {
 						cloudFile(new WebDavFile(webDavFolder, "0.txt", 54175L, new Date("Thu, 18 May 2017 9:49:41 GMT")))));
 	}
 
+	@Test
+	public void testPulledNodesSkipRequestedFolderIdentifiedByHref() throws XmlPullParserException, IOException {
+		WebDavFolder webDavFolder = rootFolderOf("https://webdavserver.com");
+		inTest = parserFor(webDavFolder, "https://webdavserver.com/");
+
+		List<CloudNode> nodes = pullNodes(load(RESPONSE_ONE_FILE_AND_FOLDERS));
+
+		assertThat(nodes, //
+				contains( //
+						cloudFile(new WebDavFile(webDavFolder, "0.txt", 54175L, new Date("Thu, 18 May 2017 9:49:41 GMT"))), //
+						cloudFolder(new WebDavFolder(webDavFolder, "Gelöschte Dateien", "/Gelöschte Dateien"))));
+	}
+
+	@Test
+	public void testPulledNodesSkipRequestedFolderIdentifiedByDepthIfHrefDoesNotMatch() throws XmlPullParserException, IOException {
+		WebDavFolder webDavFolder = rootFolderOf("https://proxy.com/webdav");
+		inTest = parserFor(webDavFolder, "https://proxy.com/webdav/");
+
+		List<CloudNode> nodes = pullNodes(load(RESPONSE_ONE_FILE_AND_FOLDERS));
+
+		assertThat(nodes, //
+				contains( //
+						cloudFile(new WebDavFile(webDavFolder, "0.txt", 54175L, new Date("Thu, 18 May 2017 9:49:41 GMT"))), //
+						cloudFolder(new WebDavFolder(webDavFolder, "Gelöschte Dateien", "/Gelöschte Dateien"))));
+	}
+
+	@Test
+	public void testPullingEmptyResponseLeadsToNoNodes() throws XmlPullParserException, IOException {
+		inTest = parserFor(PARENT_FOLDER, PARENT_CLOUD_PATH + PARENT_FOLDER_PATH);
+
+		List<CloudNode> nodes = pullNodes(load(RESPONSE_EMPTY_DIRECTORY));
+
+		assertThat(nodes, is(emptyCollectionOf(CloudNode.class)));
+	}
+
 	@Test
 	public void testMallFormattedResponseLeadsToXmlPullParserException() {
 		Assertions.assertThrows(XmlPullParserException.class, () -> inTest.parse(load(RESPONSE_MAL_FORMATTED_XMLPULLPARSER_EXCEPTION)));
 	}
 
+	@Test
+	public void testPulledNodesOfAbsoluteHrefs() throws XmlPullParserException, IOException {
+		WebDavFolder webDavFolder = rootFolderOf("https://webdavserver.com/webdav");
+		inTest = parserFor(webDavFolder, "https://webdavserver.com/webdav/");
+
+		List<CloudNode> nodes = pullNodes(multistatus("d", //
+				folderEntry("d", "https://webdavserver.com/webdav/"), //
+				fileEntry("d", "https://webdavserver.com/webdav/0.txt", LAST_MODIFIED, STATUS_OK), //
+				folderEntry("d", "https://webdavserver.com/webdav/Gel%c3%b6schte%20Dateien/")));
+
+		assertThat(nodes, //
+				contains( //
+						cloudFile(new WebDavFile(webDavFolder, "0.txt", SIZE, LAST_MODIFIED_DATE)), //
+						cloudFolder(new WebDavFolder(webDavFolder, "Gelöschte Dateien", "/Gelöschte Dateien"))));
+	}
+
+	@Test
+	public void testPulledNodesOfRelativeHrefsWithoutLeadingSlash() throws XmlPullParserException, IOException {
+		WebDavFolder webDavFolder = rootFolderOf("https://webdavserver.com/webdav");
+		inTest = parserFor(webDavFolder, "https://webdavserver.com/webdav");
+
+		List<CloudNode> nodes = pullNodes(multistatus("d", //
+				folderEntry("d", "webdav/"), //
+				fileEntry("d", "webdav/0.txt", LAST_MODIFIED, STATUS_OK)));
+
+		assertThat(nodes, contains(cloudFile(new WebDavFile(webDavFolder, "0.txt", SIZE, LAST_MODIFIED_DATE))));
+	}
+
+	@Test
+	public void testPulledNodesSkipRequestedFolderOfHostOnlyUrl() throws XmlPullParserException, IOException {
+		WebDavFolder webDavFolder = rootFolderOf("https://webdavserver.com");
+		inTest = parserFor(webDavFolder, "https://webdavserver.com");
+
+		List<CloudNode> nodes = pullNodes(multistatus("d", //
+				fileEntry("d", "https://webdavserver.com/0.txt", LAST_MODIFIED, STATUS_OK), //
+				folderEntry("d", "https://webdavserver.com")));
+
+		assertThat(nodes, contains(cloudFile(new WebDavFile(webDavFolder, "0.txt", SIZE, LAST_MODIFIED_DATE))));
+	}
+
+	@Test
+	public void testPulledNodesSkipRequestedFolderIdentifiedByHrefIgnoringTrailingSlash() throws XmlPullParserException, IOException {
+		WebDavFolder webDavFolder = rootFolderOf("https://webdavserver.com/webdav");
+		inTest = parserFor(webDavFolder, "https://webdavserver.com/webdav");
+
+		// the absolute hrefs of the files are as deep as the relative href of the requested folder, so only its href identifies it
+		List<CloudNode> nodes = pullNodes(multistatus("d", //
+				fileEntry("d", "https://webdavserver.com/webdav/0.txt", LAST_MODIFIED, STATUS_OK), //
+				fileEntry("d", "https://webdavserver.com/webdav/1.txt", LAST_MODIFIED, STATUS_OK), //
+				folderEntry("d", "/webdav/")));
+
+		assertThat(nodes, //
+				contains( //
+						cloudFile(new WebDavFile(webDavFolder, "0.txt", SIZE, LAST_MODIFIED_DATE)), //
+						cloudFile(new WebDavFile(webDavFolder, "1.txt", SIZE, LAST_MODIFIED_DATE))));
+	}
+
+	@Test
+	public void testStatusLineWithoutReasonPhraseIsOk() throws XmlPullParserException, IOException {
+		List<PropfindEntryData> result = inTest.parse(multistatus("d", //
+				fileEntry("d", "/0.txt", LAST_MODIFIED, "HTTP/1.1 200"), //
+				fileEntry("d", "/1.txt", LAST_MODIFIED, "HTTP/1.1 404"), //
+				fileEntry("d", "/2.txt", LAST_MODIFIED, "HTTP/1.1 2000")));
+
+		assertThat(result.size(), is(1));
+		assertThat(result.get(0).getPath(), is("/0.txt"));
+	}
+
+	@Test
+	public void testTagsAreMatchedRegardlessOfNamespacePrefix() throws XmlPullParserException, IOException {
+		for (String prefix : new String[] {"", "d", "D", "lp1"}) {
+			inTest = parserFor(PARENT_FOLDER, null);
+
+			List<PropfindEntryData> result = inTest.parse(multistatus(prefix, //
+					folderEntry(prefix, "/"), //
+					fileEntry(prefix, "/0.txt", LAST_MODIFIED, STATUS_OK)));
+			List<CloudNode> nodes = processDirList(result, PARENT_FOLDER);
+
+			assertThat(nodes, contains(cloudFile(new WebDavFile(PARENT_FOLDER, "0.txt", SIZE, LAST_MODIFIED_DATE))));
+		}
+	}
+
+	@Test
+	public void testDateWithSingleDigitHourIsParsed() throws XmlPullParserException, IOException {
+		List<PropfindEntryData> result = inTest.parse(multistatus("d", //
+				folderEntry("d", "/"), //
+				fileEntry("d", "/0.txt", "Thu, 18 May 2017 9:49:41 GMT", STATUS_OK)));
+		List<CloudNode> nodes = processDirList(result, PARENT_FOLDER);
+
+		assertThat(nodes, contains(cloudFile(new WebDavFile(PARENT_FOLDER, "0.txt", SIZE, LAST_MODIFIED_DATE))));
+	}
+
+	@Test
+	public void testDateInOtherFormatIsParsedLeniently() throws XmlPullParserException, IOException {
+		List<PropfindEntryData> result = inTest.parse(multistatus("d", //
+				folderEntry("d", "/"), //
+				fileEntry("d", "/0.txt", "Thu May 18 09:49:41 GMT 2017", STATUS_OK)));
+		List<CloudNode> nodes = processDirList(result, PARENT_FOLDER);
+
+		assertThat(nodes, contains(cloudFile(new WebDavFile(PARENT_FOLDER, "0.txt", SIZE, LAST_MODIFIED_DATE))));
+	}
+
+	private PropfindResponseParser parserFor(WebDavFolder requestedFolder, String requestedUrl) {
+		// the pull parser of the platform isn't available in unit tests
+		return new PropfindResponseParser(requestedFolder, requestedUrl, new KXmlParser());
+	}
+
+	private InputStream multistatus(String prefix, String... entries) {
+		StringBuilder response = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		response.append('<').append(tag(prefix, "multistatus")).append(prefix.isEmpty() ? " xmlns" : " xmlns:" + prefix).append("=\"DAV:\">");
+		for (String entry : entries) {
+			response.append(entry);
+		}
+		response.append("</").append(tag(prefix, "multistatus")).append('>');
+		return new ByteArrayInputStream(response.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String folderEntry(String prefix, String href) {
+		return entry(prefix, href, element(prefix, "resourcetype", "<" + tag(prefix, "collection") + "/>"), STATUS_OK);
+	}
+
+	private String fileEntry(String prefix, String href, String lastModified, String status) {
+		return entry(prefix, href, element(prefix, "getlastmodified", lastModified) + element(prefix, "getcontentlength", String.valueOf(SIZE)) + element(prefix, "resourcetype", ""), status);
+	}
+
+	private String entry(String prefix, String href, String properties, String status) {
+		return element(prefix, "response", //
+				element(prefix, "href", href) + //
+						element(prefix, "propstat", element(prefix, "prop", properties) + element(prefix, "status", status)));
+	}
+
+	private String element(String prefix, String name, String content) {
+		return "<" + tag(prefix, name) + ">" + content + "</" + tag(prefix, name) + ">";
+	}
+
+	private String tag(String prefix, String name) {
+		return prefix.isEmpty() ? name : prefix + ":" + name;
+	}
+
+	private WebDavFolder rootFolderOf(String url) {
+		return new WebDavFolder(new RootWebDavFolder( //
+				WebDavCloud //
+						.aWebDavCloudCloud() //
+						.withUrl(url) //
+						.withPassword("Bla") //
+						.withUsername("Julian") //
+						.build()), //
+				"", //
+				""); //
+	}
+
+	private List<CloudNode> pullNodes(InputStream responseBody) throws XmlPullParserException, IOException {
+		List<CloudNode> result = new ArrayList<>();
+		inTest.begin(responseBody);
+		CloudNode node;
+		while ((node = inTest.nextNode()) != null) {
+			result.add(node);
+		}
+		return result;
+	}
+
 	private InputStream load(String resourceName) {
 		return getClass().getResourceAsStream("/propfind-test-request/" + resourceName + ".xml");
 	}
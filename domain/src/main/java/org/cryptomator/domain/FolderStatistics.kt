@@ -0,0 +1,28 @@
+package org.cryptomator.domain
+
+import java.io.Serializable
+
+/**
+ * The total size and number of files and folders within a folder, including all its subfolders but not the folder itself.
+ */
+class FolderStatistics(val size: Long, val files: Long, val folders: Long) : Serializable {
+
+	operator fun plus(other: FolderStatistics): FolderStatistics {
+		return FolderStatistics(size + other.size, files + other.files, folders + other.folders)
+	}
+
+	override fun equals(other: Any?): Boolean {
+		if (other === this) return true
+		return other is FolderStatistics && size == other.size && files == other.files && folders == other.folders
+	}
+
+	override fun hashCode(): Int {
+		return (size.hashCode() * 31 + files.hashCode()) * 31 + folders.hashCode()
+	}
+
+	companion object {
+
+		@JvmField
+		val EMPTY = FolderStatistics(0, 0, 0)
+	}
+}
@@ -0,0 +1,58 @@
+package org.cryptomator.domain.executor
+
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.SynchronousQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Creates the thread pools of shared background work, e.g. cryptographic work, cloud requests or database updates. Their threads are named
+ * `<name>_<n>`, don't keep the app alive and terminate when idle, so an unused pool costs nothing.
+ */
+object DaemonExecutors {
+
+	// Sets the amount of time an idle thread waits before terminating
+	private const val KEEP_ALIVE_TIME = 10L
+
+	/**
+	 * @return an executor running up to `threads` tasks concurrently and queueing all others
+	 */
+	@JvmStatic
+	fun bounded(name: String, threads: Int): ThreadPoolExecutor {
+		return create(name, threads, threads, LinkedBlockingQueue()).apply {
+			allowCoreThreadTimeOut(true)
+		}
+	}
+
+	/**
+	 * @return an executor running its tasks one after another in submission order
+	 */
+	@JvmStatic
+	fun singleThread(name: String): ThreadPoolExecutor {
+		return bounded(name, 1)
+	}
+
+	/**
+	 * @return an executor running each task immediately on an idle or a new thread
+	 */
+	@JvmStatic
+	fun unbounded(name: String): ThreadPoolExecutor {
+		return create(name, 0, Int.MAX_VALUE, SynchronousQueue())
+	}
+
+	private fun create(name: String, corePoolSize: Int, maxPoolSize: Int, workQueue: BlockingQueue<Runnable>): ThreadPoolExecutor {
+		return ThreadPoolExecutor(corePoolSize, maxPoolSize, KEEP_ALIVE_TIME, TimeUnit.SECONDS, workQueue, DaemonThreadFactory(name))
+	}
+
+	private class DaemonThreadFactory(private val name: String) : ThreadFactory {
+
+		private val counter = AtomicInteger()
+
+		override fun newThread(runnable: Runnable): Thread {
+			return Thread(runnable, name + "_" + counter.getAndIncrement()).apply { isDaemon = true }
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package org.cryptomator.domain.executor
+
+import org.cryptomator.domain.exception.BackendException
+import org.cryptomator.domain.exception.FatalBackendException
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Future
+
+/**
+ * Traverses a folder tree with up to `parallelism` folders visited concurrently, e.g. to delete a folder with thousands of subfolders
+ * without listing them one after another.
+ *
+ * Visits run on threads of their own, so they may block on tasks of other executors, e.g. the ones running the cloud requests and the
+ * cryptographic work of a vault. The folders returned by a visit are visited as soon as a slot is free, there is no guaranteed order
+ * between folders of different branches.
+ */
+object SubtreeTraversal {
+
+	const val MAX_PARALLEL_VISITS = 4
+
+	private val threadPoolExecutor = DaemonExecutors.unbounded("subtree_traversal")
+
+	/**
+	 * Visits `root` and all folders returned by visits, blocking until all are visited.
+	 *
+	 * If a visit fails, the remaining visits are cancelled. Backend exceptions, runtime exceptions and errors thrown by `visit` are rethrown
+	 * as is, all others are wrapped into a [FatalBackendException].
+	 */
+	@JvmStatic
+	@JvmOverloads
+	@Throws(BackendException::class)
+	fun <T> traverse(root: T, parallelism: Int = MAX_PARALLEL_VISITS, visit: Visit<T>) {
+		val completionService = ExecutorCompletionService<List<T>>(threadPoolExecutor)
+		val pending = ArrayDeque(listOf(root))
+		val running = HashSet<Future<List<T>>>()
+		try {
+			while (pending.isNotEmpty() || running.isNotEmpty()) {
+				while (pending.isNotEmpty() && running.size < parallelism) {
+					val next = pending.removeFirst()
+					running.add(completionService.submit(Callable { visit.visit(next) }))
+				}
+				val visited = completionService.take()
+				running.remove(visited)
+				pending.addAll(visited.get())
+			}
+		} catch (e: InterruptedException) {
+			running.forEach { it.cancel(true) }
+			Thread.currentThread().interrupt()
+			throw FatalBackendException("Interrupted while traversing folders", e)
+		} catch (e: ExecutionException) {
+			running.forEach { it.cancel(true) }
+			when (val cause = e.cause) {
+				is BackendException -> throw cause
+				is RuntimeException -> throw cause
+				is Error -> throw cause
+				else -> throw FatalBackendException(cause)
+			}
+		}
+	}
+
+	fun interface Visit<T> {
+
+		/**
+		 * @return the subfolders of `folder` to visit next
+		 */
+		@Throws(BackendException::class)
+		fun visit(folder: T): List<T>
+	}
+}
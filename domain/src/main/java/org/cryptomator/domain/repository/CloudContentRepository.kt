@@ -4,13 +4,16 @@ import org.cryptomator.domain.Cloud
 import org.cryptomator.domain.CloudFile
 import org.cryptomator.domain.CloudFolder
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.domain.exception.BackendException
 import org.cryptomator.domain.usecases.ProgressAware
 import org.cryptomator.domain.usecases.cloud.DataSource
 import org.cryptomator.domain.usecases.cloud.DownloadState
+import org.cryptomator.domain.usecases.cloud.RangeOutputStream
 import org.cryptomator.domain.usecases.cloud.UploadState
 import java.io.File
 import java.io.OutputStream
+import java.util.function.Consumer
 
 /**
  *
@@ -44,6 +47,66 @@ interface CloudContentRepository<CloudType : Cloud, NodeType : CloudNode, DirTyp
 	@Throws(BackendException::class)
 	fun list(folder: DirType): List<NodeType>
 
+	/**
+	 * Lists the folder like [list], additionally handing the nodes to `onPage` in pages as soon as they are available, so the first nodes of
+	 * a huge folder can be shown before the listing is complete.
+	 *
+	 * The default implementation hands over the complete listing as a single page, repositories able to list incrementally should override
+	 * it.
+	 *
+	 * @return all nodes of the folder, i.e. the nodes of all pages
+	 */
+	@Throws(BackendException::class)
+	fun listInPages(folder: DirType, onPage: Consumer<List<NodeType>>): List<NodeType> {
+		return list(folder).also {
+			if (it.isNotEmpty()) {
+				onPage.accept(it)
+			}
+		}
+	}
+
+	/**
+	 * Returns the contents of the folder as known locally, without contacting the cloud. The result might be outdated and has to be
+	 * revalidated using [list].
+	 *
+	 * The default implementation knows nothing, repositories keeping an index of listed folders should override it.
+	 *
+	 * @return the locally known contents of the folder or `null` if they are unknown
+	 */
+	@Throws(BackendException::class)
+	fun cachedList(folder: DirType): List<NodeType>? {
+		return null
+	}
+
+	/**
+	 * Computes the total size and number of files and folders within the folder and all its subfolders.
+	 *
+	 * The default implementation lists the folders one after another, repositories able to reuse previous results should override it.
+	 */
+	@Throws(BackendException::class)
+	fun statistics(folder: DirType): FolderStatistics {
+		var statistics = FolderStatistics.EMPTY
+		for (node in list(folder)) {
+			if (node is CloudFolder) {
+				@Suppress("UNCHECKED_CAST")
+				statistics += FolderStatistics(0, 0, 1) + statistics(node as DirType)
+			} else if (node is CloudFile) {
+				statistics += FolderStatistics(node.size ?: 0, 1, 0)
+			}
+		}
+		return statistics
+	}
+
+	/**
+	 * Returns the statistics of the folder as known locally, without contacting the cloud. The result might be outdated.
+	 *
+	 * @return the locally known statistics of the folder or `null` if they are unknown
+	 */
+	@Throws(BackendException::class)
+	fun cachedStatistics(folder: DirType): FolderStatistics? {
+		return null
+	}
+
 	/**
 	 * Creates a cloud folder and maybe intermediate directories.
 	 *
@@ -94,6 +157,20 @@ interface CloudContentRepository<CloudType : Cloud, NodeType : CloudNode, DirTyp
 	@Throws(BackendException::class)
 	fun read(file: FileType, encryptedTmpFile: File?, data: OutputStream, progressAware: ProgressAware<DownloadState>)
 
+	/**
+	 * Reads `length` bytes of the file starting at `offset`. Less bytes are written to `data` if the file ends before. Nothing is read if
+	 * `length` is zero.
+	 *
+	 * The default implementation reads the whole file and discards everything outside of the range, repositories able to fetch partial content should override it.
+	 */
+	@Throws(BackendException::class)
+	fun read(file: FileType, offset: Long, length: Long, data: OutputStream, progressAware: ProgressAware<DownloadState>) {
+		if (length == 0L) {
+			return
+		}
+		read(file, null, RangeOutputStream(data, offset, length), progressAware)
+	}
+
 	@Throws(BackendException::class)
 	fun delete(node: NodeType)
 
@@ -7,6 +7,7 @@ import org.cryptomator.domain.exception.BackendException;
 import org.cryptomator.domain.exception.FatalBackendException;
 import org.cryptomator.generator.Parameter;
 import org.cryptomator.generator.UseCase;
+import org.cryptomator.util.BufferPool;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -18,6 +19,8 @@ import java.security.NoSuchAlgorithmException;
 @UseCase
 public class CalculateFileHash {
 
+	private static final int BUFFER_SIZE = 16 << 10; // 16 KiB
+
 	private final Context context;
 	private final Uri uri;
 
@@ -31,8 +34,12 @@ public class CalculateFileHash {
 			MessageDigest digest = MessageDigest.getInstance("MD5");
 			try (InputStream inputStream = context.getContentResolver().openInputStream(uri); //
 				 DigestInputStream dis = new DigestInputStream(inputStream, digest)) {
-				byte[] buffer = new byte[4096];
-				while (dis.read(buffer) != -1) {
+				byte[] buffer = BufferPool.leaseArray(BUFFER_SIZE);
+				try {
+					while (dis.read(buffer) != -1) {
+					}
+				} finally {
+					BufferPool.release(buffer);
 				}
 				return digest.digest();
 			} catch (IOException e) {
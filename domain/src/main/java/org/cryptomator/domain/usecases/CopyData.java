@@ -4,6 +4,7 @@ import org.cryptomator.domain.exception.BackendException;
 import org.cryptomator.domain.exception.FatalBackendException;
 import org.cryptomator.generator.Parameter;
 import org.cryptomator.generator.UseCase;
+import org.cryptomator.util.BufferPool;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -13,6 +14,7 @@ import java.io.OutputStream;
 class CopyData {
 
 	private static final int EOF = -1;
+	private static final int BUFFER_SIZE = 16 << 10; // 16 KiB
 	private final InputStream source;
 	private final OutputStream target;
 
@@ -22,8 +24,8 @@ class CopyData {
 	}
 
 	public void execute() throws BackendException {
+		byte[] buffer = BufferPool.leaseArray(BUFFER_SIZE);
 		try {
-			byte[] buffer = new byte[4096];
 			int read = 0;
 			while (read != EOF) {
 				read = source.read(buffer);
@@ -33,6 +35,8 @@ class CopyData {
 			}
 		} catch (IOException e) {
 			throw new FatalBackendException(e);
+		} finally {
+			BufferPool.release(buffer);
 		}
 	}
 
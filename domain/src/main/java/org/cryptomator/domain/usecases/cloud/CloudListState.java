@@ -0,0 +1,26 @@
+package org.cryptomator.domain.usecases.cloud;
+
+import org.cryptomator.domain.CloudNode;
+
+import java.util.List;
+
+public class CloudListState implements ProgressState {
+
+	private final List<CloudNode> nodes;
+
+	private CloudListState(List<CloudNode> nodes) {
+		this.nodes = nodes;
+	}
+
+	public static CloudListState page(List<CloudNode> page) {
+		return new CloudListState(page);
+	}
+
+	/**
+	 * @return only the nodes listed since the previous state
+	 */
+	public List<CloudNode> nodes() {
+		return nodes;
+	}
+
+}
@@ -0,0 +1,27 @@
+package org.cryptomator.domain.usecases.cloud;
+
+import org.cryptomator.domain.CloudFolder;
+import org.cryptomator.domain.FolderStatistics;
+
+import java.util.Map;
+
+public class FolderStatisticsState implements ProgressState {
+
+	private final Map<CloudFolder, FolderStatistics> statistics;
+
+	private FolderStatisticsState(Map<CloudFolder, FolderStatistics> statistics) {
+		this.statistics = statistics;
+	}
+
+	public static FolderStatisticsState computed(Map<CloudFolder, FolderStatistics> statisticsSoFar) {
+		return new FolderStatisticsState(statisticsSoFar);
+	}
+
+	/**
+	 * @return the statistics of all folders computed so far, not only the ones computed since the previous state
+	 */
+	public Map<CloudFolder, FolderStatistics> statistics() {
+		return statistics;
+	}
+
+}
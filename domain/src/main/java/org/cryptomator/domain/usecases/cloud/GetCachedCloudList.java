@@ -0,0 +1,35 @@
+package org.cryptomator.domain.usecases.cloud;
+
+import org.cryptomator.domain.CloudFolder;
+import org.cryptomator.domain.CloudNode;
+import org.cryptomator.domain.exception.BackendException;
+import org.cryptomator.domain.repository.CloudContentRepository;
+import org.cryptomator.generator.Parameter;
+import org.cryptomator.generator.UseCase;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Retrieves the locally known contents of a folder without contacting the cloud. The result is empty if the contents are unknown.
+ */
+@UseCase
+class GetCachedCloudList {
+
+	private final CloudContentRepository cloudContentRepository;
+	private final CloudFolder folder;
+
+	public GetCachedCloudList(CloudContentRepository cloudContentRepository, @Parameter CloudFolder folder) {
+		this.cloudContentRepository = cloudContentRepository;
+		this.folder = folder;
+	}
+
+	public List<CloudNode> execute() throws BackendException {
+		List<CloudNode> nodes = cloudContentRepository.cachedList(folder);
+		if (nodes == null) {
+			return Collections.emptyList();
+		}
+		return nodes;
+	}
+
+}
@@ -4,11 +4,17 @@ import org.cryptomator.domain.CloudFolder;
 import org.cryptomator.domain.CloudNode;
 import org.cryptomator.domain.exception.BackendException;
 import org.cryptomator.domain.repository.CloudContentRepository;
+import org.cryptomator.domain.usecases.ProgressAware;
 import org.cryptomator.generator.Parameter;
 import org.cryptomator.generator.UseCase;
 
 import java.util.List;
 
+import static org.cryptomator.domain.usecases.cloud.Progress.progress;
+
+/**
+ * Lists the folder, reporting each page of nodes as progress while the listing is received in pages.
+ */
 @UseCase
 class GetCloudList {
 
@@ -20,8 +26,8 @@ class GetCloudList {
 		this.folder = folder;
 	}
 
-	public List<CloudNode> execute() throws BackendException {
-		return cloudContentRepository.list(folder);
+	public List<CloudNode> execute(ProgressAware<CloudListState> progressAware) throws BackendException {
+		return cloudContentRepository.listInPages(folder, page -> progressAware.onProgress(progress(CloudListState.page((List<CloudNode>) page)).between(0).and(1).withValue(0)));
 	}
 
 }
@@ -0,0 +1,69 @@
+package org.cryptomator.domain.usecases.cloud;
+
+import org.cryptomator.domain.CloudFolder;
+import org.cryptomator.domain.FolderStatistics;
+import org.cryptomator.domain.exception.BackendException;
+import org.cryptomator.domain.repository.CloudContentRepository;
+import org.cryptomator.domain.usecases.ProgressAware;
+import org.cryptomator.generator.Parameter;
+import org.cryptomator.generator.UseCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.cryptomator.domain.usecases.cloud.Progress.progress;
+
+/**
+ * Computes the {@link FolderStatistics} of folders. The locally known statistics are reported first, the remaining ones are computed one
+ * folder after another until cancelled.
+ */
+@UseCase
+class GetFolderStatistics {
+
+	private final CloudContentRepository cloudContentRepository;
+	private final List<CloudFolder> folders;
+
+	private volatile boolean cancelled;
+
+	public GetFolderStatistics(CloudContentRepository cloudContentRepository, @Parameter List<CloudFolder> folders) {
+		this.cloudContentRepository = cloudContentRepository;
+		this.folders = folders;
+	}
+
+	public void onCancel() {
+		cancelled = true;
+	}
+
+	public Map<CloudFolder, FolderStatistics> execute(ProgressAware<FolderStatisticsState> progressAware) throws BackendException {
+		Map<CloudFolder, FolderStatistics> statistics = new LinkedHashMap<>();
+		List<CloudFolder> unknownFolders = new ArrayList<>();
+		for (CloudFolder folder : folders) {
+			FolderStatistics cachedStatistics = cloudContentRepository.cachedStatistics(folder);
+			if (cachedStatistics != null) {
+				statistics.put(folder, cachedStatistics);
+			} else {
+				unknownFolders.add(folder);
+			}
+		}
+		if (!statistics.isEmpty()) {
+			report(statistics, progressAware);
+		}
+		for (CloudFolder folder : unknownFolders) {
+			if (cancelled) {
+				break;
+			}
+			statistics.put(folder, cloudContentRepository.statistics(folder));
+			report(statistics, progressAware);
+		}
+		return statistics;
+	}
+
+	private void report(Map<CloudFolder, FolderStatistics> statistics, ProgressAware<FolderStatisticsState> progressAware) {
+		FolderStatisticsState state = FolderStatisticsState.computed(Collections.unmodifiableMap(new LinkedHashMap<>(statistics)));
+		progressAware.onProgress(progress(state).between(0).and(folders.size()).withValue(statistics.size()));
+	}
+
+}
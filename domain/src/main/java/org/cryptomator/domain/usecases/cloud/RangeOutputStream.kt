@@ -0,0 +1,53 @@
+package org.cryptomator.domain.usecases.cloud
+
+import java.io.IOException
+import java.io.OutputStream
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Passes only the bytes from `offset` (inclusive) to `offset + length` (exclusive) of everything written to this stream to the delegate.
+ */
+class RangeOutputStream(private val delegate: OutputStream, private val offset: Long, private val length: Long) : OutputStream() {
+
+	private var position: Long = 0
+
+	@Throws(IOException::class)
+	override fun write(b: Int) {
+		if (position >= offset && position - offset < length) {
+			delegate.write(b)
+		}
+		position++
+	}
+
+	@Throws(IOException::class)
+	override fun write(b: ByteArray, off: Int, len: Int) {
+		val start = max(position, offset)
+		val end = min(position + len, end())
+		if (start < end) {
+			delegate.write(b, off + (start - position).toInt(), (end - start).toInt())
+		}
+		position += len
+	}
+
+	/**
+	 * @return `true` if all bytes of the range were written to the delegate
+	 */
+	fun isComplete(): Boolean {
+		return position >= end()
+	}
+
+	private fun end(): Long {
+		return if (length > Long.MAX_VALUE - offset) Long.MAX_VALUE else offset + length
+	}
+
+	@Throws(IOException::class)
+	override fun flush() {
+		delegate.flush()
+	}
+
+	@Throws(IOException::class)
+	override fun close() {
+		delegate.close()
+	}
+}
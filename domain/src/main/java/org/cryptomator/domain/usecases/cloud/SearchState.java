@@ -0,0 +1,32 @@
+package org.cryptomator.domain.usecases.cloud;
+
+import org.cryptomator.domain.CloudNode;
+
+import java.util.List;
+
+public class SearchState implements ProgressState {
+
+	private final List<CloudNode> matches;
+	private final int searchedFolders;
+
+	private SearchState(List<CloudNode> matches, int searchedFolders) {
+		this.matches = matches;
+		this.searchedFolders = searchedFolders;
+	}
+
+	public static SearchState searching(List<CloudNode> newMatches, int searchedFolders) {
+		return new SearchState(newMatches, searchedFolders);
+	}
+
+	/**
+	 * @return only the matches found since the previous state
+	 */
+	public List<CloudNode> matches() {
+		return matches;
+	}
+
+	public int searchedFolders() {
+		return searchedFolders;
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.cryptomator.domain.usecases.cloud;
+
+import android.os.PatternMatcher;
+
+import org.cryptomator.domain.CloudFolder;
+import org.cryptomator.domain.CloudNode;
+import org.cryptomator.domain.exception.BackendException;
+import org.cryptomator.domain.executor.SubtreeTraversal;
+import org.cryptomator.domain.repository.CloudContentRepository;
+import org.cryptomator.domain.usecases.ProgressAware;
+import org.cryptomator.generator.Parameter;
+import org.cryptomator.generator.UseCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.cryptomator.domain.usecases.cloud.Progress.progress;
+
+/**
+ * Searches the names of all nodes in a folder and its subfolders, listing up to {@link SubtreeTraversal#MAX_PARALLEL_VISITS} folders
+ * concurrently.
+ * <p>
+ * The matches are reported as soon as they are found using {@link SearchState SearchStates} containing the matches found since the
+ * previous state. The locally known contents of the folders, see {@link CloudContentRepository#cachedList(CloudFolder)}, are searched
+ * first to show their matches without contacting the cloud, before the folders are listed to revalidate them. Only the matches of the
+ * listings are returned, so cached matches which don't exist anymore are dropped from the result. The search stops listing further
+ * folders as soon as it is cancelled.
+ */
+@UseCase
+class SearchVault {
+
+	private final CloudContentRepository cloudContentRepository;
+	private final CloudFolder folder;
+	private final String query;
+	private final PatternMatcher globPattern;
+
+	private final List<CloudNode> matches = new ArrayList<>();
+	private final Set<String> reportedPaths = new HashSet<>();
+	private final AtomicInteger searchedFolders = new AtomicInteger();
+	private volatile boolean cancelled;
+
+	public SearchVault(CloudContentRepository cloudContentRepository, //
+			@Parameter CloudFolder folder, //
+			@Parameter String query, //
+			@Parameter Boolean globSearch) {
+		this.cloudContentRepository = cloudContentRepository;
+		this.folder = folder;
+		this.query = query.toLowerCase(Locale.ROOT);
+		this.globPattern = globSearch ? new PatternMatcher(query, PatternMatcher.PATTERN_SIMPLE_GLOB) : null;
+	}
+
+	public void onCancel() {
+		cancelled = true;
+	}
+
+	public List<CloudNode> execute(ProgressAware<SearchState> progressAware) throws BackendException {
+		try {
+			SubtreeTraversal.traverse(folder, next -> searchCachedIn(next, progressAware));
+			SubtreeTraversal.traverse(folder, next -> searchIn(next, progressAware));
+		} finally {
+			synchronized (matches) {
+				progressAware.onProgress(Progress.completed(SearchState.searching(Collections.emptyList(), searchedFolders.get())));
+			}
+		}
+		synchronized (matches) {
+			return new ArrayList<>(matches);
+		}
+	}
+
+	/**
+	 * Reports the matching nodes of the locally known contents of the folder.
+	 *
+	 * @return the locally known subfolders of the folder, or none if its contents aren't known or the search is cancelled
+	 */
+	private List<CloudFolder> searchCachedIn(CloudFolder folder, ProgressAware<SearchState> progressAware) throws BackendException {
+		if (cancelled) {
+			return Collections.emptyList();
+		}
+		List<CloudNode> children = cloudContentRepository.cachedList(folder);
+		if (children == null) {
+			return Collections.emptyList();
+		}
+		return search(children, searchedFolders.get(), false, progressAware);
+	}
+
+	/**
+	 * Lists the folder and reports its matching nodes which haven't been reported from its locally known contents.
+	 *
+	 * @return the subfolders of the folder, or none if the search is cancelled
+	 */
+	private List<CloudFolder> searchIn(CloudFolder folder, ProgressAware<SearchState> progressAware) throws BackendException {
+		if (cancelled) {
+			return Collections.emptyList();
+		}
+		List<CloudNode> children = cloudContentRepository.list(folder);
+		return search(children, searchedFolders.incrementAndGet(), true, progressAware);
+	}
+
+	private List<CloudFolder> search(List<CloudNode> children, int searched, boolean listed, ProgressAware<SearchState> progressAware) {
+		List<CloudFolder> subfolders = new ArrayList<>();
+		List<CloudNode> matchingNodes = new ArrayList<>();
+		for (CloudNode node : children) {
+			if (node instanceof CloudFolder) {
+				subfolders.add((CloudFolder) node);
+			}
+			if (matches(node.getName())) {
+				matchingNodes.add(node);
+			}
+		}
+		if (!matchingNodes.isEmpty()) {
+			// progress is reported by one thread at a time
+			synchronized (matches) {
+				if (listed) {
+					matches.addAll(matchingNodes);
+				}
+				List<CloudNode> newMatches = new ArrayList<>();
+				for (CloudNode node : matchingNodes) {
+					if (reportedPaths.add(node.getPath())) {
+						newMatches.add(node);
+					}
+				}
+				if (!newMatches.isEmpty() && !cancelled) {
+					progressAware.onProgress(progress(SearchState.searching(Collections.unmodifiableList(newMatches), searched)).between(0).and(1).withValue(0));
+				}
+			}
+		}
+		return cancelled ? Collections.emptyList() : subfolders;
+	}
+
+	private boolean matches(String name) {
+		if (globPattern != null) {
+			return globPattern.match(name);
+		}
+		return name.toLowerCase(Locale.ROOT).contains(query);
+	}
+
+}
@@ -11,6 +11,7 @@ import org.cryptomator.domain.repository.CloudContentRepository;
 import org.cryptomator.domain.usecases.ProgressAware;
 import org.cryptomator.generator.Parameter;
 import org.cryptomator.generator.UseCase;
+import org.cryptomator.util.BufferPool;
 
 import java.io.Closeable;
 import java.io.File;
@@ -27,6 +28,7 @@ import static java.io.File.createTempFile;
 class UploadFiles {
 
 	private static final int EOF = -1;
+	private static final int BUFFER_SIZE = 16 << 10; // 16 KiB
 
 	private final Context context;
 	private final CloudContentRepository cloudContentRepository;
@@ -124,12 +126,13 @@ class UploadFiles {
 	}
 
 	private void copy(InputStream in, OutputStream out) throws IOException {
-		byte[] buffer = new byte[4096];
+		byte[] buffer = BufferPool.leaseArray(BUFFER_SIZE);
 		try {
 			while (copyDidNotReachEof(in, out, buffer)) {
 				// empty
 			}
 		} finally {
+			BufferPool.release(buffer);
 			closeQuietly(in);
 			closeQuietly(out);
 		}
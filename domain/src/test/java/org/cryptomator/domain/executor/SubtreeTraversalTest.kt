@@ -0,0 +1,55 @@
+package org.cryptomator.domain.executor
+
+import org.cryptomator.domain.exception.BackendException
+import org.cryptomator.domain.exception.NoSuchCloudFileException
+import org.hamcrest.CoreMatchers
+import org.hamcrest.MatcherAssert
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.max
+
+class SubtreeTraversalTest {
+
+	@Test
+	fun testTraverseVisitsAllFoldersWithBoundedParallelism() {
+		val visited = ConcurrentHashMap.newKeySet<String>()
+		val running = AtomicInteger()
+		val maxRunning = AtomicInteger()
+
+		SubtreeTraversal.traverse("", 2) { path ->
+			maxRunning.accumulateAndGet(running.incrementAndGet()) { a, b -> max(a, b) }
+			visited.add(path)
+			Thread.sleep(5)
+			running.decrementAndGet()
+			if (path.length < 3) (0..2).map { "$path$it" } else emptyList()
+		}
+
+		MatcherAssert.assertThat(visited.size, CoreMatchers.`is`(1 + 3 + 9 + 27))
+		MatcherAssert.assertThat(maxRunning.get() <= 2, CoreMatchers.`is`(true))
+	}
+
+	@Test
+	fun testTraverseRethrowsBackendExceptionOfVisit() {
+		Assertions.assertThrows(NoSuchCloudFileException::class.java) {
+			SubtreeTraversal.traverse("") { path ->
+				if (path == "1") throw NoSuchCloudFileException(path)
+				if (path.isEmpty()) listOf("0", "1", "2") else emptyList()
+			}
+		}
+	}
+
+	@Test
+	@Throws(BackendException::class)
+	fun testTraverseOfLeafVisitsOnlyRoot() {
+		val visited = ConcurrentHashMap.newKeySet<String>()
+
+		SubtreeTraversal.traverse("leaf") { path ->
+			visited.add(path)
+			emptyList()
+		}
+
+		MatcherAssert.assertThat(visited, CoreMatchers.`is`(setOf("leaf")))
+	}
+}
@@ -0,0 +1,129 @@
+package org.cryptomator.domain.usecases.cloud;
+
+import android.os.PatternMatcher;
+
+import org.cryptomator.domain.CloudFile;
+import org.cryptomator.domain.CloudFolder;
+import org.cryptomator.domain.CloudNode;
+import org.cryptomator.domain.exception.BackendException;
+import org.cryptomator.domain.repository.CloudContentRepository;
+import org.cryptomator.domain.usecases.ProgressAware;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedConstruction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.when;
+import static java.util.Collections.emptyList;
+
+public class SearchVaultTest {
+
+	private final CloudContentRepository cloudContentRepository = mock(CloudContentRepository.class);
+
+	private final CloudFolder root = folder("root");
+	private final CloudFolder documents = folder("Documents");
+	private final CloudFolder reports = folder("Reports");
+	private final CloudFile report = file("report.pdf");
+	private final CloudFile otherReport = file("Annual Report.odt");
+	private final CloudFile photo = file("photo.jpg");
+
+	@Test
+	public void testMatchesInSubfoldersAreFound() throws BackendException {
+		when(cloudContentRepository.list(root)).thenReturn(Arrays.asList(documents, photo));
+		when(cloudContentRepository.list(documents)).thenReturn(Arrays.asList(reports, report));
+		when(cloudContentRepository.list(reports)).thenReturn(Arrays.asList(otherReport));
+		List<SearchState> states = new ArrayList<>();
+		ProgressAware<SearchState> progressAware = progress -> states.add(progress.state());
+
+		List<CloudNode> result = new SearchVault(cloudContentRepository, root, "report", false).execute(progressAware);
+
+		assertThat(result, containsInAnyOrder(reports, report, otherReport));
+		SearchState finalState = states.get(states.size() - 1);
+		assertThat(finalState.searchedFolders(), is(3));
+	}
+
+	@Test
+	public void testEachMatchIsReportedOnce() throws BackendException {
+		when(cloudContentRepository.list(root)).thenReturn(Arrays.asList(documents, photo));
+		when(cloudContentRepository.list(documents)).thenReturn(Arrays.asList(reports, report));
+		when(cloudContentRepository.list(reports)).thenReturn(Arrays.asList(otherReport));
+		List<CloudNode> reportedMatches = new ArrayList<>();
+
+		new SearchVault(cloudContentRepository, root, "report", false).execute(progress -> reportedMatches.addAll(progress.state().matches()));
+
+		assertThat(reportedMatches, containsInAnyOrder(reports, report, otherReport));
+	}
+
+	@Test
+	public void testCachedMatchesAreReportedBeforeListingAndRevalidated() throws BackendException {
+		CloudFile deletedReport = file("deleted report.txt");
+		when(cloudContentRepository.cachedList(root)).thenReturn(Arrays.asList(documents, photo));
+		when(cloudContentRepository.cachedList(documents)).thenReturn(Arrays.asList(report, deletedReport));
+		when(cloudContentRepository.list(root)).thenReturn(Arrays.asList(documents, photo));
+		when(cloudContentRepository.list(documents)).thenReturn(Arrays.asList(reports, report));
+		when(cloudContentRepository.list(reports)).thenReturn(Arrays.asList(otherReport));
+		List<SearchState> states = new ArrayList<>();
+
+		List<CloudNode> result = new SearchVault(cloudContentRepository, root, "report", false).execute(progress -> states.add(progress.state()));
+
+		assertThat(states.get(0).matches(), containsInAnyOrder(report, deletedReport));
+		assertThat(states.get(0).searchedFolders(), is(0));
+		List<CloudNode> reportedMatches = new ArrayList<>();
+		states.forEach(state -> reportedMatches.addAll(state.matches()));
+		assertThat(reportedMatches, containsInAnyOrder(report, deletedReport, reports, otherReport));
+		assertThat(result, containsInAnyOrder(reports, report, otherReport));
+	}
+
+	@Test
+	public void testGlobSearchMatchesNamesWithPattern() throws BackendException {
+		when(cloudContentRepository.list(root)).thenReturn(Arrays.asList(documents, photo));
+		when(cloudContentRepository.list(documents)).thenReturn(Arrays.asList(reports, report));
+		when(cloudContentRepository.list(reports)).thenReturn(Arrays.asList(otherReport));
+		List<Object> patternMatcherArguments = new ArrayList<>();
+
+		try (MockedConstruction<PatternMatcher> patternMatchers = mockConstruction(PatternMatcher.class, (patternMatcher, context) -> {
+			patternMatcherArguments.addAll(context.arguments());
+			when(patternMatcher.match(anyString())).thenAnswer(invocation -> invocation.<String>getArgument(0).endsWith(".pdf"));
+		})) {
+			List<CloudNode> result = new SearchVault(cloudContentRepository, root, "*.pdf", true).execute(progress -> {
+			});
+
+			assertThat(result, is(Arrays.asList(report)));
+			assertThat(patternMatchers.constructed().size(), is(1));
+			assertThat(patternMatcherArguments, is(Arrays.<Object>asList("*.pdf", PatternMatcher.PATTERN_SIMPLE_GLOB)));
+		}
+	}
+
+	@Test
+	public void testNoMatches() throws BackendException {
+		when(cloudContentRepository.list(root)).thenReturn(Arrays.asList(documents, photo));
+		when(cloudContentRepository.list(documents)).thenReturn(emptyList());
+
+		List<CloudNode> result = new SearchVault(cloudContentRepository, root, "report", false).execute(progress -> {
+		});
+
+		assertThat(result, is(emptyList()));
+	}
+
+	private CloudFolder folder(String name) {
+		CloudFolder folder = mock(CloudFolder.class);
+		when(folder.getName()).thenReturn(name);
+		when(folder.getPath()).thenReturn("/" + name);
+		return folder;
+	}
+
+	private CloudFile file(String name) {
+		CloudFile file = mock(CloudFile.class);
+		when(file.getName()).thenReturn(name);
+		when(file.getPath()).thenReturn("/" + name);
+		return file;
+	}
+}
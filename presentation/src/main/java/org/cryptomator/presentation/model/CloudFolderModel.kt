@@ -3,6 +3,7 @@ package org.cryptomator.presentation.model
 import org.cryptomator.data.cloud.crypto.CryptoCloud
 import org.cryptomator.domain.CloudFolder
 import org.cryptomator.domain.CloudType
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.domain.usecases.ResultRenamed
 
 class CloudFolderModel(cloudFolder: CloudFolder) : CloudNodeModel<CloudFolder>(cloudFolder) {
@@ -11,6 +12,8 @@ class CloudFolderModel(cloudFolder: CloudFolder) : CloudNodeModel<CloudFolder>(c
 		oldName = cloudFolderRenamed.oldName
 	}
 
+	var statistics: FolderStatistics? = null
+
 	override val isFile: Boolean
 		get() = false
 	override val isFolder: Boolean
@@ -11,6 +11,7 @@ import org.cryptomator.domain.Cloud
 import org.cryptomator.domain.CloudFile
 import org.cryptomator.domain.CloudFolder
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.domain.Vault
 import org.cryptomator.domain.di.PerView
 import org.cryptomator.domain.exception.CloudNodeAlreadyExistsException
@@ -26,17 +27,23 @@ import org.cryptomator.domain.usecases.DownloadFile
 import org.cryptomator.domain.usecases.GetDecryptedCloudForVaultUseCase
 import org.cryptomator.domain.usecases.PrepareDownloadFilesUseCase
 import org.cryptomator.domain.usecases.ResultRenamed
+import org.cryptomator.domain.usecases.cloud.CloudListState
 import org.cryptomator.domain.usecases.cloud.CreateFolderUseCase
 import org.cryptomator.domain.usecases.cloud.DeleteNodesUseCase
 import org.cryptomator.domain.usecases.cloud.DownloadFilesUseCase
 import org.cryptomator.domain.usecases.cloud.DownloadState
+import org.cryptomator.domain.usecases.cloud.FolderStatisticsState
+import org.cryptomator.domain.usecases.cloud.GetCachedCloudListUseCase
 import org.cryptomator.domain.usecases.cloud.GetCloudListRecursiveUseCase
 import org.cryptomator.domain.usecases.cloud.GetCloudListUseCase
+import org.cryptomator.domain.usecases.cloud.GetFolderStatisticsUseCase
 import org.cryptomator.domain.usecases.cloud.MoveFilesUseCase
 import org.cryptomator.domain.usecases.cloud.MoveFoldersUseCase
 import org.cryptomator.domain.usecases.cloud.Progress
 import org.cryptomator.domain.usecases.cloud.RenameFileUseCase
 import org.cryptomator.domain.usecases.cloud.RenameFolderUseCase
+import org.cryptomator.domain.usecases.cloud.SearchState
+import org.cryptomator.domain.usecases.cloud.SearchVaultUseCase
 import org.cryptomator.domain.usecases.cloud.UploadFile
 import org.cryptomator.domain.usecases.cloud.UploadFilesUseCase
 import org.cryptomator.domain.usecases.cloud.UploadState
@@ -70,6 +77,7 @@ import org.cryptomator.presentation.ui.dialog.ExportCloudFilesDialog
 import org.cryptomator.presentation.ui.dialog.FileNameDialog
 import org.cryptomator.presentation.util.ContentResolverUtil
 import org.cryptomator.presentation.util.DownloadFileUtil
+import org.cryptomator.presentation.util.FileFingerprint
 import org.cryptomator.presentation.util.FileNameBlacklist
 import org.cryptomator.presentation.util.FileUtil
 import org.cryptomator.presentation.util.FolderNameBlacklist
@@ -84,9 +92,11 @@ import org.cryptomator.util.SharedPreferencesHandler
 import org.cryptomator.util.file.FileCacheUtils
 import org.cryptomator.util.file.MimeType
 import org.cryptomator.util.file.MimeTypes
+import java.io.File
 import java.io.FileInputStream
 import java.io.FileNotFoundException
 import java.io.Serializable
+import java.security.MessageDigest
 import java.util.function.Supplier
 import javax.inject.Inject
 import kotlin.reflect.KClass
@@ -95,6 +105,9 @@ import timber.log.Timber
 @PerView
 class BrowseFilesPresenter @Inject constructor( //
 	private val getCloudListUseCase: GetCloudListUseCase,  //
+	private val getCachedCloudListUseCase: GetCachedCloudListUseCase,  //
+	private val searchVaultUseCase: SearchVaultUseCase,  //
+	private val getFolderStatisticsUseCase: GetFolderStatisticsUseCase,  //
 	private val createFolderUseCase: CreateFolderUseCase,  //
 	private val downloadFilesUseCase: DownloadFilesUseCase,  //
 	private val deleteNodesUseCase: DeleteNodesUseCase,  //
@@ -154,7 +167,7 @@ class BrowseFilesPresenter @Inject constructor( //
 
 	@JvmField
 	@InstanceState
-	var openedCloudFileMd5: ByteArray? = null
+	var openedFileFingerprint: FileFingerprint? = null
 
 	@JvmField
 	var openWritableFileNotification: OpenWritableFileNotification? = null
@@ -195,19 +208,57 @@ class BrowseFilesPresenter @Inject constructor( //
 	}
 
 	private fun getCloudList(cloudFolderModel: CloudFolderModel) {
-		getCloudListUseCase //
+		searchVaultUseCase.unsubscribe()
+		getFolderStatisticsUseCase.unsubscribe()
+		// shows the locally known contents until the listing is done, e.g. from the index of a vault
+		var listed = false
+		var cachedShown = false
+		getCachedCloudListUseCase //
 			.withFolder(cloudFolderModel.toCloudNode()) //
 			.run(object : DefaultResultHandler<List<CloudNode>>() {
 				override fun onSuccess(cloudNodes: List<CloudNode>) {
+					if (!listed && cloudNodes.isNotEmpty()) {
+						cachedShown = true
+						showCloudNodesCollectionInView(cloudNodes)
+					}
+				}
+
+				override fun onError(e: Throwable) {
+					Timber.tag("BrowseFilesPresenter").d(e, "Failed to show cached contents of folder")
+				}
+			})
+		getCloudListUseCase //
+			.withFolder(cloudFolderModel.toCloudNode()) //
+			.run(object : DefaultProgressAwareResultHandler<List<CloudNode>, CloudListState>() {
+				override fun onProgress(progress: Progress<CloudListState>) {
+					// shows the nodes listed so far, unless the locally known contents are shown which are likely more complete
+					if (!cachedShown) {
+						progress.state()?.let {
+							if (listed) {
+								addCloudNodesToView(it.nodes())
+							} else {
+								listed = true
+								showCloudNodesCollectionInView(it.nodes())
+							}
+						}
+					}
+				}
+
+				override fun onSuccess(cloudNodes: List<CloudNode>) {
+					listed = true
 					if (cloudNodes.isEmpty()) {
 						clearCloudList()
 					} else {
 						showCloudNodesCollectionInView(cloudNodes)
+						if (cloudFolderModel.vault() != null && sharedPreferencesHandler.showFolderStatistics()) {
+							getFolderStatistics(cloudNodes.filterIsInstance<CloudFolder>())
+						}
 					}
 					view?.showLoading(false)
 				}
 
 				override fun onError(e: Throwable) {
+					listed = true
 					view?.showLoading(false)
 					when {
 						authenticationExceptionHandler.handleAuthenticationException(this@BrowseFilesPresenter, e, ActivityResultCallbacks.getCloudListAfterAuthentication(cloudFolderModel)) -> {
@@ -231,6 +282,68 @@ class BrowseFilesPresenter @Inject constructor( //
 			})
 	}
 
+	private fun getFolderStatistics(folders: List<CloudFolder>) {
+		if (folders.isEmpty()) {
+			return
+		}
+		getFolderStatisticsUseCase //
+			.withFolders(folders) //
+			.run(object : DefaultProgressAwareResultHandler<Map<CloudFolder, FolderStatistics>, FolderStatisticsState>() {
+				override fun onProgress(progress: Progress<FolderStatisticsState>) {
+					progress.state()?.let { showFolderStatisticsInView(it.statistics()) }
+				}
+
+				override fun onSuccess(statistics: Map<CloudFolder, FolderStatistics>) {
+					showFolderStatisticsInView(statistics)
+				}
+
+				override fun onError(e: Throwable) {
+					Timber.tag("BrowseFilesPresenter").w(e, "Failed to compute folder statistics")
+				}
+			})
+	}
+
+	private fun showFolderStatisticsInView(statistics: Map<CloudFolder, FolderStatistics>) {
+		statistics.forEach { (folder, folderStatistics) -> view?.showFolderStatistics(cloudFolderModelMapper.toModel(folder), folderStatistics) }
+	}
+
+	/**
+	 * Searches the folder and its subfolders for nodes whose names match the query, showing the matches as they are found.
+	 */
+	fun onSearchVault(cloudFolderModel: CloudFolderModel, query: String) {
+		getFolderStatisticsUseCase.unsubscribe()
+		view?.showLoading(true)
+		var matchesShown = false
+		searchVaultUseCase //
+			.withFolder(cloudFolderModel.toCloudNode()) //
+			.andQuery(query) //
+			.andGlobSearch(sharedPreferencesHandler.useGlobSearch()) //
+			.run(object : DefaultProgressAwareResultHandler<List<CloudNode>, SearchState>() {
+				override fun onProgress(progress: Progress<SearchState>) {
+					progress.state()?.matches()?.takeIf { it.isNotEmpty() }?.let {
+						if (matchesShown) {
+							addCloudNodesToView(it)
+						} else {
+							matchesShown = true
+							showCloudNodesCollectionInView(it)
+						}
+					}
+				}
+
+				override fun onSuccess(cloudNodes: List<CloudNode>) {
+					if (cloudNodes.isEmpty()) {
+						clearCloudList()
+					} else {
+						showCloudNodesCollectionInView(cloudNodes)
+					}
+				}
+
+				override fun onFinished() {
+					view?.showLoading(false)
+				}
+			})
+	}
+
 	@Callback(dispatchResultOkOnly = false)
 	fun getCloudListAfterAuthentication(result: ActivityResult, cloudFolderModel: CloudFolderModel) {
 		if (result.isResultOk) {
@@ -310,6 +423,11 @@ class BrowseFilesPresenter @Inject constructor( //
 		view?.showCloudNodes(cloudNodeModels)
 	}
 
+	private fun addCloudNodesToView(cloudNodes: List<CloudNode>) {
+		val cloudNodeModels = cloudNodeModelMapper.toModels(cloudNodes).filter { cloudNode -> !isBlacklistedCloudNode(cloudNode) }
+		view?.addCloudNodes(cloudNodeModels)
+	}
+
 	private fun isBlacklistedCloudNode(cloudNode: CloudNodeModel<*>): Boolean {
 		return if (cloudNode is CloudFileModel) {
 			fileNameBlacklist.isBlacklisted(cloudNode)
@@ -347,8 +465,11 @@ class BrowseFilesPresenter @Inject constructor( //
 				), 0
 			)
 		)
+		val decryptedFileMd5 = if (Intent.ACTION_VIEW == actionAfterDownload) MessageDigest.getInstance("MD5") else null
+		val downloadFiles = decryptedFileMd5?.let { listOf(downloadFileUtil.createDigestingDownloadFileFor(this, cloudFiles[0], it)) } //
+			?: downloadFileUtil.createDownloadFilesFor(this, cloudFiles)
 		downloadFilesUseCase //
-			.withDownloadFiles(downloadFileUtil.createDownloadFilesFor(this, cloudFiles)) //
+			.withDownloadFiles(downloadFiles) //
 			.run(object : DefaultProgressAwareResultHandler<List<CloudFile>, DownloadState>() {
 				override fun onFinished() {
 					view?.hideProgress(cloudFiles)
@@ -364,7 +485,7 @@ class BrowseFilesPresenter @Inject constructor( //
 				}
 
 				override fun onSuccess(files: List<CloudFile>) {
-					handleSuccessAfterReadingFiles(files, actionAfterDownload)
+					handleSuccessAfterReadingFiles(files, actionAfterDownload, decryptedFileMd5?.digest())
 				}
 
 				override fun onError(e: Throwable) {
@@ -374,10 +495,10 @@ class BrowseFilesPresenter @Inject constructor( //
 			})
 	}
 
-	private fun handleSuccessAfterReadingFiles(files: List<CloudFile>, actionAfterDownload: String) {
+	private fun handleSuccessAfterReadingFiles(files: List<CloudFile>, actionAfterDownload: String, decryptedFileMd5: ByteArray? = null) {
 		try {
 			if (Intent.ACTION_VIEW == actionAfterDownload) {
-				viewFile(cloudFileModelMapper.toModel(files[0]))
+				viewFile(cloudFileModelMapper.toModel(files[0]), decryptedFileMd5)
 			} else {
 				if (Intent.ACTION_SEND_MULTIPLE == actionAfterDownload) {
 					shareFiles(cloudFileModelMapper.toModels(files))
@@ -506,7 +627,7 @@ class BrowseFilesPresenter @Inject constructor( //
 			})
 	}
 
-	private fun viewFile(cloudFile: CloudFileModel) {
+	private fun viewFile(cloudFile: CloudFileModel, decryptedFileMd5: ByteArray?) {
 		val lowerFileName = cloudFile.name.lowercase()
 		if (lowerFileName.endsWith(".txt") || lowerFileName.endsWith(".md") || lowerFileName.endsWith(".todo")) {
 			val intent = Intents.textEditorIntent()
@@ -525,7 +646,7 @@ class BrowseFilesPresenter @Inject constructor( //
 					.withWithImagePreviewFiles(fileUtil.storeImagePreviewFiles(imagePreviewStore))
 			)
 		} else {
-			viewExternalFile(cloudFile)
+			viewExternalFile(cloudFile, decryptedFileMd5)
 		}
 	}
 
@@ -533,8 +654,10 @@ class BrowseFilesPresenter @Inject constructor( //
 		return (mimeTypes.fromFilename(filename) ?: MimeType.WILDCARD_MIME_TYPE).mediatype == "image"
 	}
 
-	private fun viewExternalFile(cloudFile: CloudFileModel) {
-		val viewFileIntent = Intent(Intent.ACTION_VIEW)
+	/**
+	 * @param decryptedFileMd5 hash of the decrypted file if calculated while decrypting, otherwise it is calculated before opening the file
+	 */
+	private fun viewExternalFile(cloudFile: CloudFileModel, decryptedFileMd5: ByteArray? = null) {
 		var openFileType = OpenFileType.DEFAULT
 		uriToOpenedFile = if (useMicrosoftWorkaround(cloudFile)) {
 			openFileType = OpenFileType.MICROSOFT_WORKAROUND
@@ -544,29 +667,19 @@ class BrowseFilesPresenter @Inject constructor( //
 		}
 		openedCloudFile = cloudFile
 		uriToOpenedFile?.let {
+			val openedFile = openedFile(cloudFile, openFileType, it)
+			if (decryptedFileMd5 != null) {
+				openedFileFingerprint = FileFingerprint.of(openedFile, decryptedFileMd5)
+				startViewFileIntent(cloudFile, it, openFileType)
+				return
+			}
 			view?.showProgress(ProgressModel.GENERIC)
 			calculateFileHashUseCase //
 				.withUri(it) //
 				.run(object : DefaultResultHandler<ByteArray>() {
 					override fun onSuccess(hash: ByteArray) {
-						openedCloudFileMd5 = hash
-						viewFileIntent.setDataAndType(it, mimeTypes.fromFilename(cloudFile.name)?.toString())
-						var permissionFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION
-						if (licenseEnforcer.hasWriteAccessForVault(view?.folder?.vault())) {
-							permissionFlags = permissionFlags or Intent.FLAG_GRANT_WRITE_URI_PERMISSION
-						}
-						viewFileIntent.addFlags(permissionFlags)
-						if (sharedPreferencesHandler.keepUnlockedWhileEditing()) {
-							openWritableFileNotification = OpenWritableFileNotification(context(), it)
-							openWritableFileNotification?.show()
-							val cryptomatorApp = activity().application as CryptomatorApp
-							cryptomatorApp.suspendLock()
-						}
-						try {
-							requestActivityResult(ActivityResultCallbacks.openFileFinished(openFileType), viewFileIntent)
-						} catch (e: ActivityNotFoundException) {
-							view?.showFileTypeNotSupportedDialog(cloudFile)
-						}
+						openedFileFingerprint = FileFingerprint.of(openedFile, hash)
+						startViewFileIntent(cloudFile, it, openFileType)
 					}
 
 					override fun onFinished() {
@@ -576,6 +689,35 @@ class BrowseFilesPresenter @Inject constructor( //
 		}
 	}
 
+	private fun startViewFileIntent(cloudFile: CloudFileModel, uri: Uri, openFileType: OpenFileType) {
+		val viewFileIntent = Intent(Intent.ACTION_VIEW)
+		viewFileIntent.setDataAndType(uri, mimeTypes.fromFilename(cloudFile.name)?.toString())
+		var permissionFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION
+		if (licenseEnforcer.hasWriteAccessForVault(view?.folder?.vault())) {
+			permissionFlags = permissionFlags or Intent.FLAG_GRANT_WRITE_URI_PERMISSION
+		}
+		viewFileIntent.addFlags(permissionFlags)
+		if (sharedPreferencesHandler.keepUnlockedWhileEditing()) {
+			openWritableFileNotification = OpenWritableFileNotification(context(), uri)
+			openWritableFileNotification?.show()
+			val cryptomatorApp = activity().application as CryptomatorApp
+			cryptomatorApp.suspendLock()
+		}
+		try {
+			requestActivityResult(ActivityResultCallbacks.openFileFinished(openFileType), viewFileIntent)
+		} catch (e: ActivityNotFoundException) {
+			view?.showFileTypeNotSupportedDialog(cloudFile)
+		}
+	}
+
+	private fun openedFile(cloudFile: CloudFileModel, openFileType: OpenFileType, uriToOpenedFile: Uri): File {
+		return if (openFileType == OpenFileType.MICROSOFT_WORKAROUND) {
+			uriToOpenedFile.toFile()
+		} else {
+			fileUtil.fileFor(cloudFile)
+		}
+	}
+
 	enum class OpenFileType {
 		DEFAULT, MICROSOFT_WORKAROUND
 	}
@@ -607,35 +749,50 @@ class BrowseFilesPresenter @Inject constructor( //
 		context().revokeUriPermission(uriToOpenedFile, Intent.FLAG_GRANT_WRITE_URI_PERMISSION or Intent.FLAG_GRANT_READ_URI_PERMISSION)
 
 		uriToOpenedFile?.let {
-			view?.showProgress(ProgressModel.GENERIC)
-			calculateFileHashUseCase //
-				.withUri(it) //
-				.run(object : DefaultResultHandler<ByteArray>() {
-					override fun onSuccess(hashAfterEdit: ByteArray) {
-						openedCloudFileMd5?.let { hashBeforeEdit ->
-							if (hashAfterEdit.contentEquals(hashBeforeEdit)) {
-								Timber.tag("BrowseFilesPresenter").i("Opened app finished, file not changed")
-								deleteFileIfMicrosoftWorkaround(openFileType, uriToOpenedFile)
-							} else {
-								uploadChangedFile(openFileType)
-							}
-						} ?: deleteFileIfMicrosoftWorkaround(openFileType, uriToOpenedFile)
-					}
-
-					override fun onFinished() {
-						view?.showProgress(ProgressModel.COMPLETED)
-					}
+			val fingerprint = openedFileFingerprint
+			val change = openedCloudFile?.let { openedCloudFile ->
+				fingerprint?.compareAttributes(openedFile(openedCloudFile, openFileType, it))
+			} ?: FileFingerprint.Change.UNKNOWN
+			when (change) {
+				FileFingerprint.Change.CHANGED -> uploadChangedFile(openFileType)
+				FileFingerprint.Change.UNCHANGED -> {
+					Timber.tag("BrowseFilesPresenter").i("Opened app finished, file not changed")
+					deleteFileIfMicrosoftWorkaround(openFileType, uriToOpenedFile)
+				}
+				FileFingerprint.Change.UNKNOWN -> compareHashAfterEdit(it, openFileType)
+			}
+		}
+	}
 
-					override fun onError(e: Throwable) {
-						if (e is FileNotFoundException) {
-							Timber.tag("BrowseFilesPresenter").e(e, "Failed to read back changes, file isn't present anymore")
-							Toast.makeText(context(), R.string.error_file_not_found_after_opening_using_3party, Toast.LENGTH_LONG).show()
+	private fun compareHashAfterEdit(uri: Uri, openFileType: OpenFileType) {
+		view?.showProgress(ProgressModel.GENERIC)
+		calculateFileHashUseCase //
+			.withUri(uri) //
+			.run(object : DefaultResultHandler<ByteArray>() {
+				override fun onSuccess(hashAfterEdit: ByteArray) {
+					openedFileFingerprint?.let { fingerprint ->
+						if (fingerprint.hasSameHash(hashAfterEdit)) {
+							Timber.tag("BrowseFilesPresenter").i("Opened app finished, file not changed")
+							deleteFileIfMicrosoftWorkaround(openFileType, uriToOpenedFile)
 						} else {
-							super.onError(e)
+							uploadChangedFile(openFileType)
 						}
+					} ?: deleteFileIfMicrosoftWorkaround(openFileType, uriToOpenedFile)
+				}
+
+				override fun onFinished() {
+					view?.showProgress(ProgressModel.COMPLETED)
+				}
+
+				override fun onError(e: Throwable) {
+					if (e is FileNotFoundException) {
+						Timber.tag("BrowseFilesPresenter").e(e, "Failed to read back changes, file isn't present anymore")
+						Toast.makeText(context(), R.string.error_file_not_found_after_opening_using_3party, Toast.LENGTH_LONG).show()
+					} else {
+						super.onError(e)
 					}
-				})
-		}
+				}
+			})
 	}
 
 	private fun uploadChangedFile(openFileType: OpenFileType) {
@@ -1288,6 +1445,9 @@ class BrowseFilesPresenter @Inject constructor( //
 	init {
 		unsubscribeOnDestroy( //
 			getCloudListUseCase,  //
+			getCachedCloudListUseCase,  //
+			searchVaultUseCase,  //
+			getFolderStatisticsUseCase,  //
 			createFolderUseCase,  //
 			downloadFilesUseCase,  //
 			deleteNodesUseCase,  //
@@ -9,6 +9,7 @@ import org.cryptomator.domain.CloudNode
 import org.cryptomator.domain.Vault
 import org.cryptomator.domain.di.PerView
 import org.cryptomator.domain.usecases.GetDecryptedCloudForVaultUseCase
+import org.cryptomator.domain.usecases.cloud.CloudListState
 import org.cryptomator.domain.usecases.cloud.GetCloudListUseCase
 import org.cryptomator.domain.usecases.cloud.GetRootFolderUseCase
 import org.cryptomator.domain.usecases.cloud.Progress
@@ -262,7 +263,7 @@ class SharedFilesPresenter @Inject constructor( //
 		view?.showProgress(ProgressModel.GENERIC)
 		getCloudListUseCase //
 			.withFolder(folder) //
-			.run(object : DefaultResultHandler<List<CloudNode>>() {
+			.run(object : DefaultProgressAwareResultHandler<List<CloudNode>, CloudListState>() {
 				override fun onSuccess(currentCloudNodes: List<CloudNode>) {
 					checkForExistingFilesOrUploadFiles(folder, currentCloudNodes)
 				}
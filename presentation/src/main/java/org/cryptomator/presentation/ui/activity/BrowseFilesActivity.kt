@@ -11,6 +11,7 @@ import androidx.fragment.app.DialogFragment
 import androidx.fragment.app.Fragment
 import androidx.localbroadcastmanager.content.LocalBroadcastManager
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.domain.exception.ParentFolderIsNullException
 import org.cryptomator.generator.Activity
 import org.cryptomator.generator.InjectIntent
@@ -464,10 +465,18 @@ class BrowseFilesActivity : BaseActivity<ActivityLayoutBinding>(ActivityLayoutBi
 		browseFilesFragment().show(nodes)
 	}
 
+	override fun addCloudNodes(nodes: List<CloudNodeModel<*>>) {
+		browseFilesFragment().add(nodes)
+	}
+
 	override fun addOrUpdateCloudNode(node: CloudNodeModel<*>) {
 		browseFilesFragment().addOrUpdate(node)
 	}
 
+	override fun showFolderStatistics(folder: CloudFolderModel, statistics: FolderStatistics) {
+		browseFilesFragment().showFolderStatistics(folder, statistics)
+	}
+
 	override fun onCreateNewFolderClicked() {
 		guardWriteAccess(LicenseEnforcer.LockedAction.CREATE_FOLDER) { showCreateFolderDialog() }
 	}
@@ -595,7 +604,14 @@ class BrowseFilesActivity : BaseActivity<ActivityLayoutBinding>(ActivityLayoutBi
 	}
 
 	override fun onQueryTextSubmit(query: String?): Boolean {
-		updateFilter(query)
+		if (!query.isNullOrEmpty() && folder.vault() != null) {
+			// searches the subfolders as well, the filter keeps the matches of the current folder until the search shows them
+			showLoading(true)
+			browseFilesFragment().setFilterText(query)
+			browseFilesPresenter.onSearchVault(folder, query)
+		} else {
+			updateFilter(query)
+		}
 		return false
 	}
 
@@ -1,6 +1,7 @@
 package org.cryptomator.presentation.ui.activity.view
 
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.presentation.model.CloudFileModel
 import org.cryptomator.presentation.model.CloudFolderModel
 import org.cryptomator.presentation.model.CloudNodeModel
@@ -11,7 +12,9 @@ interface BrowseFilesView : View {
 	val folder: CloudFolderModel
 
 	fun showCloudNodes(nodes: List<CloudNodeModel<*>>)
+	fun addCloudNodes(nodes: List<CloudNodeModel<*>>)
 	fun addOrUpdateCloudNode(node: CloudNodeModel<*>)
+	fun showFolderStatistics(folder: CloudFolderModel, statistics: FolderStatistics)
 	fun deleteCloudNodesFromAdapter(nodes: List<CloudNodeModel<*>>)
 	fun replaceRenamedCloudNode(node: CloudNodeModel<out CloudNode>)
 	fun showLoading(loading: Boolean)
@@ -8,6 +8,7 @@ import android.view.View.VISIBLE
 import android.view.ViewGroup
 import com.simplecityapps.recyclerview_fastscroll.views.FastScrollRecyclerView
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.presentation.R
 import org.cryptomator.presentation.databinding.ItemBrowseFilesNodeBinding
 import org.cryptomator.presentation.intent.ChooseCloudNodeSettings
@@ -28,6 +29,7 @@ import org.cryptomator.presentation.util.DateHelper
 import org.cryptomator.presentation.util.FileIcon
 import org.cryptomator.presentation.util.FileSizeHelper
 import org.cryptomator.presentation.util.FileUtil
+import org.cryptomator.presentation.util.ResourceHelper
 import org.cryptomator.presentation.util.ResourceHelper.Companion.getDrawable
 import org.cryptomator.util.SharedPreferencesHandler
 import javax.inject.Inject
@@ -62,6 +64,14 @@ constructor(
 		}
 	}
 
+	fun showFolderStatistics(folder: CloudFolderModel, statistics: FolderStatistics) {
+		val position = positionOf(folder)
+		if (position != -1) {
+			(getItem(position) as CloudFolderModel).statistics = statistics
+			notifyItemChanged(position)
+		}
+	}
+
 	fun replaceRenamedCloudFile(cloudNode: CloudNodeModel<out CloudNode>) {
 		itemCollection.forEach { nodes ->
 			if (nodes.javaClass == cloudNode.javaClass && nodes.name == cloudNode.oldName) {
@@ -220,6 +230,8 @@ constructor(
 
 		private fun bindFolder(folder: CloudFolderModel) {
 			binding.llCloudFolderContent.cloudFolderText.text = folder.name
+			binding.llCloudFolderContent.cloudFolderSubText.text = folder.statistics?.let { folderDetails(it) }.orEmpty()
+			binding.llCloudFolderContent.cloudFolderSubText.visibility = if (folder.statistics != null) VISIBLE else GONE
 			enableNodeClick { callback.onFolderClicked(folder) }
 		}
 
@@ -260,6 +272,11 @@ constructor(
 			} else formattedModifiedDate ?: ""
 		}
 
+		private fun folderDetails(statistics: FolderStatistics): String {
+			val formattedSize = fileSizeHelper.getFormattedFileSize(statistics.size)
+			return String.format(ResourceHelper.getString(R.string.screen_file_browser_folder_info_label_statistics), formattedSize, statistics.files, statistics.folders)
+		}
+
 		fun showProgress(progress: ProgressModel?) {
 			bound?.progress = progress
 			when {
@@ -380,6 +397,7 @@ constructor(
 				binding.llCloudFileContent.cloudFileContent.visibility = GONE
 				binding.llCloudFolderContent.cloudFolderContent.visibility = VISIBLE
 				binding.llCloudFolderContent.cloudFolderText.visibility = VISIBLE
+				binding.llCloudFolderContent.cloudFolderSubText.visibility = if (binding.llCloudFolderContent.cloudFolderSubText.text.isEmpty()) GONE else VISIBLE
 				binding.llCloudFolderContent.cloudFolderActionText.visibility = GONE
 				binding.settings.visibility = VISIBLE
 				binding.itemCheckBox.visibility = GONE
@@ -417,6 +435,7 @@ constructor(
 				binding.llCloudFileContent.cloudFileContent.visibility = GONE
 				binding.llCloudFolderContent.cloudFolderContent.visibility = VISIBLE
 				binding.llCloudFolderContent.cloudFolderText.visibility = VISIBLE
+				binding.llCloudFolderContent.cloudFolderSubText.visibility = GONE
 				binding.llCloudFolderContent.cloudFolderActionText.visibility = VISIBLE
 				binding.itemCheckBox.visibility = GONE
 			}
@@ -67,6 +67,34 @@ public abstract class RecyclerViewBaseAdapter<Item, Callback, ViewHolder extends
 		notifyDataSetChanged();
 	}
 
+	/**
+	 * Adds the items like {@link #addAll(Collection)}, but merges them into the already sorted items instead of sorting all items again,
+	 * so adding the pages of a long listing one by one doesn't sort the items shown so far over and over.
+	 */
+	public void addAllSorted(Collection<? extends Item> items) {
+		if (comparator == null) {
+			addAll(items);
+			return;
+		}
+		List<Item> added = new ArrayList<>(items);
+		Collections.sort(added, comparator);
+		List<Item> merged = new ArrayList<>(itemCollection.size() + added.size());
+		int i = 0;
+		int j = 0;
+		while (i < itemCollection.size() && j < added.size()) {
+			if (comparator.compare(added.get(j), itemCollection.get(i)) < 0) {
+				merged.add(added.get(j++));
+			} else {
+				merged.add(itemCollection.get(i++));
+			}
+		}
+		merged.addAll(itemCollection.subList(i, itemCollection.size()));
+		merged.addAll(added.subList(j, added.size()));
+		itemCollection.clear();
+		itemCollection.addAll(merged);
+		notifyDataSetChanged();
+	}
+
 	public List<Item> getAll() {
 		return itemCollection;
 	}
@@ -11,6 +11,7 @@ import androidx.core.content.ContextCompat
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout
 import org.cryptomator.domain.CloudNode
+import org.cryptomator.domain.FolderStatistics
 import org.cryptomator.generator.Fragment
 import org.cryptomator.presentation.R
 import org.cryptomator.presentation.R.dimen.global_padding
@@ -182,6 +183,11 @@ class BrowseFilesFragment : BaseFragment<FragmentBrowseFilesBinding>(FragmentBro
 		updateEmptyFolderHint()
 	}
 
+	fun add(nodes: List<CloudNodeModel<*>>?) {
+		cloudNodesAdapter.addAllSorted(cloudNodesAdapter.filterNodes(nodes, filterText))
+		updateEmptyFolderHint()
+	}
+
 	fun showProgress(nodes: List<CloudNodeModel<*>>?, progress: ProgressModel?) {
 		nodes?.forEach { node ->
 			showProgress(node, progress)
@@ -254,6 +260,10 @@ class BrowseFilesFragment : BaseFragment<FragmentBrowseFilesBinding>(FragmentBro
 		updateEmptyFolderHint()
 	}
 
+	fun showFolderStatistics(folder: CloudFolderModel, statistics: FolderStatistics) {
+		cloudNodesAdapter.showFolderStatistics(folder, statistics)
+	}
+
 	private fun updateEmptyFolderHint() {
 		binding.rlViewEmptyFolder.emptyFolderHint.visibility = if (cloudNodesAdapter.isEmpty) VISIBLE else GONE
 	}
@@ -5,6 +5,8 @@ import org.cryptomator.presentation.model.CloudFileModel
 import org.cryptomator.presentation.presenter.Presenter
 import java.io.FileNotFoundException
 import java.io.OutputStream
+import java.security.DigestOutputStream
+import java.security.MessageDigest
 import javax.inject.Inject
 
 class DownloadFileUtil @Inject constructor(private val fileUtil: FileUtil) {
@@ -18,6 +20,16 @@ class DownloadFileUtil @Inject constructor(private val fileUtil: FileUtil) {
 		}
 	}
 
+	/**
+	 * Like [createDownloadFilesFor] but additionally updates `digest` with the cleartext while it is written, so no additional pass is required to hash the decrypted file.
+	 */
+	fun createDigestingDownloadFileFor(presenter: Presenter<*>, cloudFile: CloudFileModel, digest: MessageDigest): DownloadFile {
+		return DownloadFile.Builder() //
+			.setDownloadFile(cloudFile.toCloudNode()) //
+			.setDataSink(createDecryptedDataFor(presenter, cloudFile)?.let { DigestOutputStream(it, digest) }) //
+			.build()
+	}
+
 	fun createDecryptedDataFor(presenter: Presenter<*>, cloudFile: CloudFileModel): OutputStream? {
 		try {
 			return fileUtil.newDecryptedData(cloudFile)
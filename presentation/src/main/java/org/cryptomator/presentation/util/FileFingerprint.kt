@@ -0,0 +1,39 @@
+package org.cryptomator.presentation.util
+
+import java.io.File
+import java.io.Serializable
+
+/**
+ * Size, modification time and MD5 hash of a decrypted file to detect if it has been changed by another app.
+ */
+class FileFingerprint private constructor(private val size: Long, private val lastModified: Long, private val md5: ByteArray) : Serializable {
+
+	/**
+	 * Compares the cheap attributes of the file first.
+	 *
+	 * @return [Change.CHANGED] if the size differs, [Change.UNCHANGED] if size and modification time are the same, otherwise [Change.UNKNOWN] and the hashes have to be compared using [hasSameHash]
+	 */
+	fun compareAttributes(file: File): Change {
+		return when {
+			!file.exists() -> Change.UNKNOWN
+			file.length() != size -> Change.CHANGED
+			file.lastModified() == lastModified -> Change.UNCHANGED
+			else -> Change.UNKNOWN
+		}
+	}
+
+	fun hasSameHash(md5: ByteArray): Boolean {
+		return this.md5.contentEquals(md5)
+	}
+
+	enum class Change {
+		CHANGED, UNCHANGED, UNKNOWN
+	}
+
+	companion object {
+
+		fun of(file: File, md5: ByteArray): FileFingerprint {
+			return FileFingerprint(file.length(), file.lastModified(), md5)
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package org.cryptomator.presentation.util
+
+import org.cryptomator.presentation.util.FileFingerprint.Change
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class FileFingerprintTest {
+
+	@TempDir
+	lateinit var tmpDir: File
+
+	private lateinit var file: File
+	private lateinit var fingerprint: FileFingerprint
+
+	@BeforeEach
+	fun setup() {
+		file = File(tmpDir, "file.txt")
+		file.writeText("content")
+		file.setLastModified(LAST_MODIFIED)
+		fingerprint = FileFingerprint.of(file, MD5)
+	}
+
+	@Test
+	fun `compareAttributes returns CHANGED if size changed`() {
+		file.writeText("changed content")
+		file.setLastModified(LAST_MODIFIED)
+
+		assertEquals(Change.CHANGED, fingerprint.compareAttributes(file))
+	}
+
+	@Test
+	fun `compareAttributes returns UNCHANGED if size and modification time are the same`() {
+		assertEquals(Change.UNCHANGED, fingerprint.compareAttributes(file))
+	}
+
+	@Test
+	fun `compareAttributes returns UNKNOWN if size is the same but modification time differs`() {
+		file.writeText("CONTENT")
+		file.setLastModified(LAST_MODIFIED + 2000)
+
+		assertEquals(Change.UNKNOWN, fingerprint.compareAttributes(file))
+	}
+
+	@Test
+	fun `compareAttributes returns UNKNOWN if file is missing`() {
+		file.delete()
+
+		assertEquals(Change.UNKNOWN, fingerprint.compareAttributes(file))
+	}
+
+	@Test
+	fun `hasSameHash compares the hashes by content`() {
+		assertTrue(fingerprint.hasSameHash(MD5.copyOf()))
+		assertFalse(fingerprint.hasSameHash(byteArrayOf(1, 2, 3, 5)))
+	}
+
+	companion object {
+
+		private const val LAST_MODIFIED = 1_600_000_000_000L
+		private val MD5 = byteArrayOf(1, 2, 3, 4)
+	}
+}
@@ -0,0 +1,118 @@
+package org.cryptomator.util
+
+import java.nio.ByteBuffer
+import java.util.Arrays
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.min
+
+/**
+ * Process wide pool of transfer buffers to avoid allocating new buffers for each copied, encrypted or decrypted file.
+ *
+ * Buffers are grouped in size classes of multiples of [SIZE_CLASS_GRANULARITY] up to [MAX_POOLED_SIZE], larger requests are allocated but not pooled.
+ * Leased buffers may be larger than requested and are wiped when released because they might have contained cleartext.
+ * Leases which are not released (e.g. because of an exception) are simply garbage collected.
+ */
+object BufferPool {
+
+	const val SIZE_CLASS_GRANULARITY = 4 shl 10 // 4 KiB
+	const val MAX_POOLED_SIZE = 256 shl 10 // 256 KiB
+
+	private val MAX_POOLED_PER_SIZE_CLASS = 4 * Runtime.getRuntime().availableProcessors() + 4
+	private val ZEROS = ByteArray(SIZE_CLASS_GRANULARITY)
+
+	private val arrays = SizeClasses<ByteArray>()
+	private val heapBuffers = SizeClasses<ByteBuffer>()
+	private val directBuffers = SizeClasses<ByteBuffer>()
+
+	/**
+	 * @return an array with a length of at least `minSize`
+	 */
+	@JvmStatic
+	fun leaseArray(minSize: Int): ByteArray {
+		require(minSize >= 0) { "Negative size" }
+		return arrays.poll(minSize) ?: ByteArray(capacityOf(minSize))
+	}
+
+	@JvmStatic
+	fun release(array: ByteArray) {
+		if (isPoolable(array.size)) {
+			Arrays.fill(array, 0.toByte())
+			arrays.offer(array.size, array)
+		}
+	}
+
+	/**
+	 * @return a cleared buffer with a limit of `size`, backed by an array if not `direct`
+	 */
+	@JvmStatic
+	@JvmOverloads
+	fun lease(size: Int, direct: Boolean = false): ByteBuffer {
+		require(size >= 0) { "Negative size" }
+		val pool = if (direct) directBuffers else heapBuffers
+		val buffer = pool.poll(size) ?: if (direct) ByteBuffer.allocateDirect(capacityOf(size)) else ByteBuffer.allocate(capacityOf(size))
+		buffer.clear()
+		buffer.limit(size)
+		return buffer
+	}
+
+	@JvmStatic
+	fun release(buffer: ByteBuffer) {
+		if (!isPoolable(buffer.capacity()) || buffer.isReadOnly) {
+			return
+		}
+		wipe(buffer)
+		if (buffer.isDirect) {
+			directBuffers.offer(buffer.capacity(), buffer)
+		} else if (buffer.arrayOffset() == 0) {
+			heapBuffers.offer(buffer.capacity(), buffer)
+		}
+	}
+
+	private fun wipe(buffer: ByteBuffer) {
+		if (buffer.hasArray()) {
+			Arrays.fill(buffer.array(), buffer.arrayOffset(), buffer.arrayOffset() + buffer.capacity(), 0.toByte())
+		} else {
+			buffer.clear()
+			while (buffer.hasRemaining()) {
+				buffer.put(ZEROS, 0, min(ZEROS.size, buffer.remaining()))
+			}
+		}
+		buffer.clear()
+	}
+
+	private fun isPoolable(capacity: Int): Boolean {
+		return capacity in 1..MAX_POOLED_SIZE && capacity % SIZE_CLASS_GRANULARITY == 0
+	}
+
+	private fun capacityOf(size: Int): Int {
+		return if (size in 1..MAX_POOLED_SIZE) sizeClassOf(size) * SIZE_CLASS_GRANULARITY else size
+	}
+
+	private fun sizeClassOf(size: Int): Int {
+		return (size + SIZE_CLASS_GRANULARITY - 1) / SIZE_CLASS_GRANULARITY
+	}
+
+	private class SizeClasses<T> {
+
+		private val queues = Array(MAX_POOLED_SIZE / SIZE_CLASS_GRANULARITY + 1) { ConcurrentLinkedQueue<T>() }
+		private val counts = Array(queues.size) { AtomicInteger() }
+
+		fun poll(size: Int): T? {
+			if (size !in 1..MAX_POOLED_SIZE) {
+				return null
+			}
+			val sizeClass = sizeClassOf(size)
+			return queues[sizeClass].poll()?.also { counts[sizeClass].decrementAndGet() }
+		}
+
+		fun offer(capacity: Int, element: T) {
+			val sizeClass = capacity / SIZE_CLASS_GRANULARITY
+			if (counts[sizeClass].incrementAndGet() > MAX_POOLED_PER_SIZE_CLASS) {
+				counts[sizeClass].decrementAndGet()
+				return
+			}
+			queues[sizeClass].offer(element)
+		}
+	}
+}
@@ -166,6 +166,10 @@ constructor(context: Context) : SharedPreferences.OnSharedPreferenceChangeListen
 		return defaultSharedPreferences.getValue(USE_LRU_CACHE, false)
 	}
 
+	fun prefetchDirIds(): Boolean {
+		return defaultSharedPreferences.getValue(PREFETCH_DIR_IDS, true)
+	}
+
 	fun addLicenseChangedListeners(listener: Consumer<String>) {
 		licenseChangedListeners[listener] = null
 		listener.accept(licenseToken())
@@ -310,6 +314,10 @@ constructor(context: Context) : SharedPreferences.OnSharedPreferenceChangeListen
 		return defaultSharedPreferences.getBoolean(BACKGROUND_UNLOCK_PREPARATION, true)
 	}
 
+	fun showFolderStatistics(): Boolean {
+		return defaultSharedPreferences.getBoolean(FOLDER_STATISTICS, false)
+	}
+
 	fun vaultsRemovedDuringMigration(vaultsToBeRemoved: Pair<String, List<String>>?) {
 		vaultsToBeRemoved?.let {
 			val vaultsToBeRemovedString = if (it.second.isNotEmpty()) {
@@ -394,6 +402,7 @@ constructor(context: Context) : SharedPreferences.OnSharedPreferenceChangeListen
 		private const val GLOB_SEARCH = "globSearch"
 		private const val KEEP_UNLOCKED_WHILE_EDITING = "keepUnlockedWhileEditing"
 		private const val BACKGROUND_UNLOCK_PREPARATION = "backgroundUnlockPreparation"
+		private const val FOLDER_STATISTICS = "folderStatistics"
 		private const val VAULTS_REMOVED_DURING_MIGRATION = "vaultsRemovedDuringMigration"
 		private const val VAULTS_REMOVED_DURING_MIGRATION_TYPE = "vaultsRemovedDuringMigrationType"
 		private const val LAST_UPDATE_CHECK = "lastUpdateCheck"
@@ -415,6 +424,7 @@ constructor(context: Context) : SharedPreferences.OnSharedPreferenceChangeListen
 		const val PHOTO_UPLOAD_INCLUDING_VIDEOS = "photoUploadIncludingVideos"
 		const val USE_LRU_CACHE = "lruCache"
 		const val LRU_CACHE_SIZE = "lruCacheSize"
+		const val PREFETCH_DIR_IDS = "prefetchDirIds"
 		const val MICROSOFT_WORKAROUND = "shareOfficeFilePublicly"
 		const val MAIL = "mail"
 		const val LICENSE_TOKEN = "licenseToken"
@@ -0,0 +1,64 @@
+package org.cryptomator.util
+
+import org.hamcrest.MatcherAssert
+import org.hamcrest.Matchers
+import org.junit.jupiter.api.Test
+
+class BufferPoolTest {
+
+	@Test
+	fun testLeaseArrayRoundsUpToSizeClass() {
+		val result = BufferPool.leaseArray(BufferPool.SIZE_CLASS_GRANULARITY + 1)
+
+		MatcherAssert.assertThat(result.size, Matchers.`is`(2 * BufferPool.SIZE_CLASS_GRANULARITY))
+	}
+
+	@Test
+	fun testReleasedArrayIsWipedAndReused() {
+		val array = BufferPool.leaseArray(A_POOLED_SIZE)
+		array.fill(42)
+
+		BufferPool.release(array)
+		val result = BufferPool.leaseArray(A_POOLED_SIZE)
+
+		MatcherAssert.assertThat(result, Matchers.sameInstance(array))
+		MatcherAssert.assertThat(result.all { it == 0.toByte() }, Matchers.`is`(true))
+	}
+
+	@Test
+	fun testLeaseBufferIsLimitedToRequestedSize() {
+		val buffer = BufferPool.lease(A_POOLED_SIZE - 1)
+		buffer.position(10)
+		BufferPool.release(buffer)
+
+		val result = BufferPool.lease(A_POOLED_SIZE - 2)
+
+		MatcherAssert.assertThat(result, Matchers.sameInstance(buffer))
+		MatcherAssert.assertThat(result.position(), Matchers.`is`(0))
+		MatcherAssert.assertThat(result.limit(), Matchers.`is`(A_POOLED_SIZE - 2))
+	}
+
+	@Test
+	fun testLeaseDirectBuffer() {
+		val result = BufferPool.lease(A_POOLED_SIZE, true)
+
+		MatcherAssert.assertThat(result.isDirect, Matchers.`is`(true))
+		MatcherAssert.assertThat(result.remaining(), Matchers.`is`(A_POOLED_SIZE))
+	}
+
+	@Test
+	fun testOversizedArraysAreNotPooled() {
+		val array = BufferPool.leaseArray(BufferPool.MAX_POOLED_SIZE + 1)
+
+		BufferPool.release(array)
+		val result = BufferPool.leaseArray(BufferPool.MAX_POOLED_SIZE + 1)
+
+		MatcherAssert.assertThat(array.size, Matchers.`is`(BufferPool.MAX_POOLED_SIZE + 1))
+		MatcherAssert.assertThat(result, Matchers.not(Matchers.sameInstance(array)))
+	}
+
+	companion object {
+
+		private const val A_POOLED_SIZE = 200 shl 10
+	}
+}